@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks;
+
+import com.xbd.rocketmq.benchmarks.stub.StubProducer;
+import com.xbd.rocketmq.client.core.RocketMQBatchPublisher;
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of per-message async sends compared to {@code sendNormalBatched}, with a simulated broker round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchSendBenchmark {
+
+    private static final int MESSAGES = 1024;
+
+    private static final String TOPIC = "benchmark-topic";
+
+    @Param({"0", "200"})
+    public long latencyMicros;
+
+    @Param({"16", "64"})
+    public int maxBatchCount;
+
+    private String payload;
+
+    private RocketMQTemplate perMessageTemplate;
+
+    private RocketMQTemplate batchedTemplate;
+
+    private final CompletableFuture<?>[] futures = new CompletableFuture<?>[MESSAGES];
+
+    @Setup
+    public void setup() {
+        payload = Payloads.string(512);
+        perMessageTemplate = new RocketMQTemplate();
+        perMessageTemplate.setProducer(new StubProducer(latencyMicros));
+        perMessageTemplate.setAsyncMaxInFlight(0);
+        batchedTemplate = new RocketMQTemplate();
+        batchedTemplate.setProducer(new StubProducer(latencyMicros));
+        batchedTemplate.setAsyncMaxInFlight(0);
+        batchedTemplate.setBatchPublisher(new RocketMQBatchPublisher(batchedTemplate, maxBatchCount, 256 * 1024, Duration.ofMillis(5)));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        perMessageTemplate.destroy();
+        batchedTemplate.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void perMessageAsync() {
+        for (int i = 0; i < MESSAGES; i++) {
+            futures[i] = perMessageTemplate.sendNormalAsync(TOPIC, payload, "tagA");
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void batched() {
+        for (int i = 0; i < MESSAGES; i++) {
+            futures[i] = batchedTemplate.sendNormalBatched(TOPIC, payload, "tagA");
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.xbd.rocketmq.benchmarks;
+
+import com.xbd.rocketmq.client.compression.CompressionType;
+import com.xbd.rocketmq.client.compression.MessageCompression;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU versus bytes of the {@link MessageCompression} codecs on ride track JSON. Next to ops/s the
+ * originalBytes and compressedBytes counters are reported in bytes/s, their ratio is the compression ratio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"GZIP", "LZ4", "ZSTD"})
+    public CompressionType type;
+
+    @Param({"16384", "131072"})
+    public int size;
+
+    private MessageCompression compression;
+
+    private byte[] body;
+
+    private ByteBuffer compressed;
+
+    @Setup
+    public void setup() {
+        compression = new MessageCompression(type, 0, 0, Collections.emptyMap());
+        body = Payloads.rideTrack(size);
+        compressed = ByteBuffer.wrap(compression.compress("benchmark-topic", body));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+
+        public long originalBytes;
+
+        public long compressedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            originalBytes = 0;
+            compressedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public byte[] compress(Bytes bytes) {
+        byte[] result = compression.compress("benchmark-topic", body);
+        bytes.originalBytes += body.length;
+        bytes.compressedBytes += result.length;
+        return result;
+    }
+
+    @Benchmark
+    public ByteBuffer decompress(Bytes bytes) {
+        bytes.originalBytes += body.length;
+        bytes.compressedBytes += compressed.remaining();
+        return MessageCompression.decompress(type.getEncoding(), compressed, body.length);
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks;
+
+import com.xbd.rocketmq.benchmarks.stub.StubClientServiceProvider;
+import com.xbd.rocketmq.benchmarks.stub.StubMessageView;
+import com.xbd.rocketmq.client.annotation.ConsumeMode;
+import com.xbd.rocketmq.client.converter.JsonMessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConverterRegistry;
+import com.xbd.rocketmq.client.core.RocketMQTypedListener;
+import com.xbd.rocketmq.client.support.DefaultRocketMQListenerContainer;
+import com.xbd.rocketmq.client.support.RocketMQClientRegistry;
+import com.xbd.rocketmq.client.support.TypedMessageListenerAdapter;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.consumer.FilterExpressionType;
+import org.apache.rocketmq.client.apis.consumer.MessageListener;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch of received messages through {@link DefaultRocketMQListenerContainer} to a typed listener, with in-process
+ * consumers: PUSH invokes the listener the container registered on the push consumer, EXECUTOR goes through the
+ * receive loop, the executor and the ack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContainerDispatchBenchmark {
+
+    private static final int MESSAGES = 1024;
+
+    private static final String TOPIC = "benchmark-topic";
+
+    @Param({"PUSH", "EXECUTOR"})
+    public ConsumeMode consumeMode;
+
+    @Param({"128", "4096"})
+    public int size;
+
+    private final StubClientServiceProvider provider = new StubClientServiceProvider();
+
+    private DefaultRocketMQListenerContainer container;
+
+    private MessageListener pushListener;
+
+    private MessageView[] messages;
+
+    private volatile CountDownLatch acked;
+
+    private volatile long consumed;
+
+    @Setup
+    public void setup() throws Exception {
+        MessageConverter messageConverter = new JsonMessageConverter();
+        byte[] body = messageConverter.toMessageBody(Payloads.pojo(size));
+        messages = new MessageView[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = new StubMessageView(TOPIC, "tagA", body,
+                Collections.singletonMap(MessageConverter.CONTENT_TYPE_PROPERTY, messageConverter.getContentType()));
+        }
+
+        RocketMQTypedListener<Payloads.OrderEvent> listener = (event, messageView) -> {
+            consumed += event.getOrderId();
+            return ConsumeResult.SUCCESS;
+        };
+        container = new DefaultRocketMQListenerContainer();
+        container.setName("benchmarkContainer");
+        container.setEndPoints("127.0.0.1:8081");
+        container.setAccessKey("ak");
+        container.setSecretKey("sk");
+        container.setRequestTimeout(3);
+        container.setConsumerGroup("benchmark-group");
+        container.setTopic(TOPIC);
+        container.setTag("*");
+        container.setSelectorType(FilterExpressionType.TAG);
+        container.setConsumeMode(consumeMode);
+        container.setMaxInFlight(256);
+        container.setClientRegistry(new RocketMQClientRegistry(provider, 0));
+        container.setMessageConverter(messageConverter);
+        container.setMessageConverterRegistry(MessageConverterRegistry.withDefaults(Collections.singletonList(messageConverter)));
+        container.setRocketMQListener(new TypedMessageListenerAdapter(listener, Payloads.OrderEvent.class,
+            messageConverter, container.getMessageConverterRegistry()));
+        provider.setAckCallback(() -> acked.countDown());
+        container.afterPropertiesSet();
+        container.start();
+        pushListener = provider.getMessageListener();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        container.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void dispatch(Blackhole blackhole) throws InterruptedException {
+        if (consumeMode == ConsumeMode.PUSH) {
+            for (MessageView message : messages) {
+                blackhole.consume(pushListener.consume(message));
+            }
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(MESSAGES);
+        acked = latch;
+        Collections.addAll(provider.getQueue(), messages);
+        latch.await();
+    }
+
+}
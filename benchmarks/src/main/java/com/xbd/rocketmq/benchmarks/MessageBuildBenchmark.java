@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks;
+
+import com.xbd.rocketmq.client.converter.JsonMessageConverter;
+import com.xbd.rocketmq.client.converter.JsonbMessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConverter;
+import com.xbd.rocketmq.client.support.RocketMQUtil;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RocketMQUtil#convertToRocketMessage} for String, byte[] and POJO payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBuildBenchmark {
+
+    @Param({"STRING", "BYTES", "POJO"})
+    public String payloadType;
+
+    @Param({"128", "4096", "65536"})
+    public int size;
+
+    @Param({"json", "jsonb"})
+    public String converter;
+
+    private Object payload;
+
+    private MessageConverter messageConverter;
+
+    @Setup
+    public void setup() {
+        switch (payloadType) {
+            case "STRING":
+                payload = Payloads.string(size);
+                break;
+            case "BYTES":
+                payload = Payloads.bytes(size);
+                break;
+            default:
+                payload = Payloads.pojo(size);
+        }
+        messageConverter = "jsonb".equals(converter) ? new JsonbMessageConverter() : new JsonMessageConverter();
+    }
+
+    @Benchmark
+    public Message build() {
+        return RocketMQUtil.convertToRocketMessage(messageConverter, "benchmark-topic", payload, null, null, "tagA");
+    }
+
+    @Benchmark
+    public Message buildWithKeys() {
+        return RocketMQUtil.convertToRocketMessage(messageConverter, "benchmark-topic", payload, null, null, "tagA", "order-1");
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Payloads of roughly the requested serialized size.
+ */
+public final class Payloads {
+
+    private Payloads() {
+    }
+
+    public static String string(int size) {
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) ('a' + i % 26);
+        }
+        return new String(chars);
+    }
+
+    public static byte[] bytes(int size) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) 'x');
+        return bytes;
+    }
+
+    /**
+     * A POJO whose JSON form is about {@code size} bytes.
+     */
+    public static OrderEvent pojo(int size) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(1234567890L);
+        event.setUserId("user-42");
+        event.setAmount(199.99d);
+        event.setStatus("PAID");
+        List<String> items = new ArrayList<>();
+        int remaining = size - 96;
+        while (remaining > 0) {
+            items.add("sku-" + string(Math.min(28, remaining)));
+            remaining -= 36;
+        }
+        event.setItems(items);
+        return event;
+    }
+
+    /**
+     * A ride track batch as JSON of about {@code size} bytes: GPS points with jittered coordinates,
+     * compressible like real tracks rather than like repeated text.
+     */
+    public static byte[] rideTrack(int size) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(size + 128).append("{\"rideId\":\"R20230322-000042\",\"points\":[");
+        double lat = 30.274085;
+        double lng = 120.155070;
+        long timestamp = 1679454000000L;
+        while (json.length() < size) {
+            lat += (random.nextDouble() - 0.5) * 0.0004;
+            lng += (random.nextDouble() - 0.5) * 0.0004;
+            timestamp += 1000 + random.nextInt(200);
+            json.append(String.format(Locale.ROOT, "{\"lat\":%.6f,\"lng\":%.6f,\"ts\":%d,\"speed\":%.1f,\"battery\":%d},",
+                    lat, lng, timestamp, random.nextDouble() * 25, 80 - json.length() / 4096));
+        }
+        json.setLength(json.length() - 1);
+        return utf8(json.append("]}").toString());
+    }
+
+    public static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static class OrderEvent {
+
+        private long orderId;
+
+        private String userId;
+
+        private double amount;
+
+        private String status;
+
+        private List<String> items;
+
+        public long getOrderId() {
+            return orderId;
+        }
+
+        public void setOrderId(long orderId) {
+            this.orderId = orderId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public List<String> getItems() {
+            return items;
+        }
+
+        public void setItems(List<String> items) {
+            this.items = items;
+        }
+    }
+
+}
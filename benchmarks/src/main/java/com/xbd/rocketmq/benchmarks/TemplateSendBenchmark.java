@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks;
+
+import com.xbd.rocketmq.benchmarks.stub.StubProducer;
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RocketMQTemplate} send overloads against an in-process producer, measuring the template overhead only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateSendBenchmark {
+
+    private static final String TOPIC = "benchmark-topic";
+
+    private static final Duration DELAY = Duration.ofSeconds(10);
+
+    @Param({"STRING", "POJO"})
+    public String payloadType;
+
+    @Param({"128", "4096"})
+    public int size;
+
+    private Object payload;
+
+    private RocketMQTemplate rocketMQTemplate;
+
+    @Setup
+    public void setup() {
+        payload = "STRING".equals(payloadType) ? Payloads.string(size) : Payloads.pojo(size);
+        rocketMQTemplate = new RocketMQTemplate();
+        rocketMQTemplate.setProducer(new StubProducer());
+        rocketMQTemplate.setAsyncMaxInFlight(0);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        rocketMQTemplate.destroy();
+    }
+
+    @Benchmark
+    public SendReceipt sendNormal() throws ClientException {
+        return rocketMQTemplate.sendNormal(TOPIC, payload, "tagA");
+    }
+
+    @Benchmark
+    public SendReceipt sendNormalWithKeys() throws ClientException {
+        return rocketMQTemplate.sendNormal(TOPIC, payload, "tagA", "order-1");
+    }
+
+    @Benchmark
+    public SendReceipt sendDelay() throws ClientException {
+        return rocketMQTemplate.sendDelay(TOPIC, payload, DELAY, "tagA");
+    }
+
+    @Benchmark
+    public SendReceipt sendFifo() throws ClientException {
+        return rocketMQTemplate.sendFifo(TOPIC, payload, "group-1", "tagA");
+    }
+
+    @Benchmark
+    public CompletableFuture<SendReceipt> sendNormalAsync() {
+        return rocketMQTemplate.sendNormalAsync(TOPIC, payload, "tagA");
+    }
+
+    @Benchmark
+    public CompletableFuture<SendReceipt> sendFifoAsync() {
+        return rocketMQTemplate.sendFifoAsync(TOPIC, payload, "group-1", "tagA");
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks;
+
+import com.xbd.rocketmq.benchmarks.stub.StubProducer;
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.apache.rocketmq.client.apis.producer.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction producer lookup by topic and tag, with a growing number of registered transaction producers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionLookupBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int producers;
+
+    private RocketMQTemplate rocketMQTemplate;
+
+    private String topic;
+
+    private String tag;
+
+    private String payload;
+
+    @Setup
+    public void setup() {
+        rocketMQTemplate = new RocketMQTemplate();
+        rocketMQTemplate.setProducer(new StubProducer());
+        StubProducer producer = new StubProducer();
+        for (int i = 0; i < producers; i++) {
+            rocketMQTemplate.addTransactionProducer("topic-" + i, "tag-" + i, producer);
+        }
+        topic = "topic-" + (producers - 1);
+        tag = "tag-" + (producers - 1);
+        payload = Payloads.string(128);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        rocketMQTemplate.destroy();
+    }
+
+    @Benchmark
+    public Transaction beginTransaction() throws ClientException {
+        return rocketMQTemplate.beginTransaction(topic, tag);
+    }
+
+    @Benchmark
+    public SendReceipt beginAndSend() throws ClientException {
+        Transaction transaction = rocketMQTemplate.beginTransaction(topic, tag);
+        return rocketMQTemplate.sendTransaction(transaction, topic, payload, tag);
+    }
+
+}
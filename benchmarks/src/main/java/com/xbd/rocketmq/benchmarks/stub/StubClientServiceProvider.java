@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks.stub;
+
+import org.apache.rocketmq.client.apis.ClientConfiguration;
+import org.apache.rocketmq.client.apis.ClientServiceProvider;
+import org.apache.rocketmq.client.apis.consumer.FilterExpression;
+import org.apache.rocketmq.client.apis.consumer.MessageListener;
+import org.apache.rocketmq.client.apis.consumer.PushConsumer;
+import org.apache.rocketmq.client.apis.consumer.PushConsumerBuilder;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumerBuilder;
+import org.apache.rocketmq.client.apis.message.MessageBuilder;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.apache.rocketmq.client.apis.producer.ProducerBuilder;
+import org.apache.rocketmq.client.apis.producer.TransactionChecker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out in-process clients: push consumers expose the listener the container registered,
+ * simple consumers receive whatever is offered to {@link #getQueue()}.
+ */
+public class StubClientServiceProvider implements ClientServiceProvider {
+
+    private final ClientServiceProvider delegate = ClientServiceProvider.loadService();
+
+    private final BlockingQueue<MessageView> queue = new LinkedBlockingQueue<>();
+
+    private final LongAdder acks = new LongAdder();
+
+    private volatile MessageListener messageListener;
+
+    private volatile Runnable ackCallback = () -> {
+    };
+
+    public BlockingQueue<MessageView> getQueue() {
+        return queue;
+    }
+
+    public MessageListener getMessageListener() {
+        return messageListener;
+    }
+
+    public long getAcks() {
+        return acks.sum();
+    }
+
+    public void setAckCallback(Runnable ackCallback) {
+        this.ackCallback = ackCallback;
+    }
+
+    @Override
+    public ProducerBuilder newProducerBuilder() {
+        return new ProducerBuilder() {
+            @Override
+            public ProducerBuilder setClientConfiguration(ClientConfiguration clientConfiguration) {
+                return this;
+            }
+
+            @Override
+            public ProducerBuilder setTopics(String... topics) {
+                return this;
+            }
+
+            @Override
+            public ProducerBuilder setMaxAttempts(int maxAttempts) {
+                return this;
+            }
+
+            @Override
+            public ProducerBuilder setTransactionChecker(TransactionChecker checker) {
+                return this;
+            }
+
+            @Override
+            public StubProducer build() {
+                return new StubProducer();
+            }
+        };
+    }
+
+    @Override
+    public MessageBuilder newMessageBuilder() {
+        return delegate.newMessageBuilder();
+    }
+
+    @Override
+    public PushConsumerBuilder newPushConsumerBuilder() {
+        return new PushConsumerBuilder() {
+            private String consumerGroup;
+
+            @Override
+            public PushConsumerBuilder setClientConfiguration(ClientConfiguration clientConfiguration) {
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setConsumerGroup(String consumerGroup) {
+                this.consumerGroup = consumerGroup;
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setSubscriptionExpressions(Map<String, FilterExpression> subscriptionExpressions) {
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setMessageListener(MessageListener listener) {
+                messageListener = listener;
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setMaxCacheMessageCount(int maxCachedMessageCount) {
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setMaxCacheMessageSizeInBytes(int maxCacheMessageSizeInBytes) {
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setConsumptionThreadCount(int consumptionThreadCount) {
+                return this;
+            }
+
+            @Override
+            public PushConsumer build() {
+                String group = consumerGroup;
+                return new PushConsumer() {
+                    @Override
+                    public String getConsumerGroup() {
+                        return group;
+                    }
+
+                    @Override
+                    public Map<String, FilterExpression> getSubscriptionExpressions() {
+                        return Collections.emptyMap();
+                    }
+
+                    @Override
+                    public PushConsumer subscribe(String topic, FilterExpression filterExpression) {
+                        return this;
+                    }
+
+                    @Override
+                    public PushConsumer unsubscribe(String topic) {
+                        return this;
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public SimpleConsumerBuilder newSimpleConsumerBuilder() {
+        return new SimpleConsumerBuilder() {
+            private String consumerGroup;
+
+            private Duration awaitDuration = Duration.ofMillis(100);
+
+            @Override
+            public SimpleConsumerBuilder setClientConfiguration(ClientConfiguration clientConfiguration) {
+                return this;
+            }
+
+            @Override
+            public SimpleConsumerBuilder setConsumerGroup(String consumerGroup) {
+                this.consumerGroup = consumerGroup;
+                return this;
+            }
+
+            @Override
+            public SimpleConsumerBuilder setSubscriptionExpressions(Map<String, FilterExpression> subscriptionExpressions) {
+                return this;
+            }
+
+            @Override
+            public SimpleConsumerBuilder setAwaitDuration(Duration awaitDuration) {
+                this.awaitDuration = awaitDuration;
+                return this;
+            }
+
+            @Override
+            public SimpleConsumer build() {
+                return new StubSimpleConsumer(consumerGroup, awaitDuration);
+            }
+        };
+    }
+
+    private final class StubSimpleConsumer implements SimpleConsumer {
+
+        private final String consumerGroup;
+
+        private final long awaitMillis;
+
+        private volatile boolean closed;
+
+        private StubSimpleConsumer(String consumerGroup, Duration awaitDuration) {
+            this.consumerGroup = consumerGroup;
+            this.awaitMillis = Math.min(awaitDuration.toMillis(), 100);
+        }
+
+        @Override
+        public String getConsumerGroup() {
+            return consumerGroup;
+        }
+
+        @Override
+        public SimpleConsumer subscribe(String topic, FilterExpression filterExpression) {
+            return this;
+        }
+
+        @Override
+        public SimpleConsumer unsubscribe(String topic) {
+            return this;
+        }
+
+        @Override
+        public Map<String, FilterExpression> getSubscriptionExpressions() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public List<MessageView> receive(int maxMessageNum, Duration invisibleDuration) {
+            List<MessageView> messages = new ArrayList<>(maxMessageNum);
+            try {
+                MessageView first = closed ? null : queue.poll(awaitMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    messages.add(first);
+                    queue.drainTo(messages, maxMessageNum - 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return messages;
+        }
+
+        @Override
+        public CompletableFuture<List<MessageView>> receiveAsync(int maxMessageNum, Duration invisibleDuration) {
+            return CompletableFuture.completedFuture(receive(maxMessageNum, invisibleDuration));
+        }
+
+        @Override
+        public void ack(MessageView messageView) {
+            acks.increment();
+            ackCallback.run();
+        }
+
+        @Override
+        public CompletableFuture<Void> ackAsync(MessageView messageView) {
+            ack(messageView);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void changeInvisibleDuration(MessageView messageView, Duration invisibleDuration) {
+        }
+
+        @Override
+        public CompletableFuture<Void> changeInvisibleDurationAsync(MessageView messageView, Duration invisibleDuration) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks.stub;
+
+import org.apache.rocketmq.client.apis.message.MessageId;
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Received message backed by a fixed body, the body is handed out the way the client does: a read only view.
+ */
+public class StubMessageView implements MessageView {
+
+    private final String topic;
+
+    private final String tag;
+
+    private final byte[] body;
+
+    private final Map<String, String> properties;
+
+    private final long bornTimestamp = System.currentTimeMillis();
+
+    public StubMessageView(String topic, String tag, byte[] body, Map<String, String> properties) {
+        this.topic = topic;
+        this.tag = tag;
+        this.body = body;
+        this.properties = properties;
+    }
+
+    @Override
+    public MessageId getMessageId() {
+        return StubSendReceipt.INSTANCE;
+    }
+
+    @Override
+    public String getTopic() {
+        return topic;
+    }
+
+    @Override
+    public ByteBuffer getBody() {
+        return ByteBuffer.wrap(body).asReadOnlyBuffer();
+    }
+
+    @Override
+    public Map<String, String> getProperties() {
+        return new HashMap<>(properties);
+    }
+
+    @Override
+    public Optional<String> getTag() {
+        return Optional.ofNullable(tag);
+    }
+
+    @Override
+    public Collection<String> getKeys() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Optional<String> getMessageGroup() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Long> getDeliveryTimestamp() {
+        return Optional.empty();
+    }
+
+    @Override
+    public String getBornHost() {
+        return "localhost";
+    }
+
+    @Override
+    public long getBornTimestamp() {
+        return bornTimestamp;
+    }
+
+    @Override
+    public int getDeliveryAttempt() {
+        return 1;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.benchmarks.stub;
+
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.Producer;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.apache.rocketmq.client.apis.producer.Transaction;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process producer answering every send, optionally after a simulated round trip.
+ */
+public class StubProducer implements Producer {
+
+    private static final CompletableFuture<SendReceipt> COMPLETED = CompletableFuture.completedFuture(StubSendReceipt.INSTANCE);
+
+    private final long latencyNanos;
+
+    private final ScheduledExecutorService timer;
+
+    public StubProducer() {
+        this(0);
+    }
+
+    public StubProducer(long latencyMicros) {
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        this.timer = latencyNanos > 0 ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "StubProducer-timer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    @Override
+    public SendReceipt send(Message message) {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        return StubSendReceipt.INSTANCE;
+    }
+
+    @Override
+    public SendReceipt send(Message message, Transaction transaction) {
+        return send(message);
+    }
+
+    @Override
+    public CompletableFuture<SendReceipt> sendAsync(Message message) {
+        if (timer == null) {
+            return COMPLETED;
+        }
+        CompletableFuture<SendReceipt> future = new CompletableFuture<>();
+        timer.schedule(() -> future.complete(StubSendReceipt.INSTANCE), latencyNanos, TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    @Override
+    public Transaction beginTransaction() {
+        return StubTransaction.INSTANCE;
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+}
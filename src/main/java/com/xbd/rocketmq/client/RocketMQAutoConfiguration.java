@@ -1,16 +1,31 @@
 package com.xbd.rocketmq.client;
 
 import com.xbd.rocketmq.client.autoconfigure.ListenerContainerConfiguration;
+import com.xbd.rocketmq.client.autoconfigure.RocketMQActuatorConfiguration;
+import com.xbd.rocketmq.client.autoconfigure.RocketMQEmbeddedConfiguration;
 import com.xbd.rocketmq.client.autoconfigure.RocketMQListenerConfiguration;
+import com.xbd.rocketmq.client.autoconfigure.RocketMQMetricsConfiguration;
 import com.xbd.rocketmq.client.autoconfigure.RocketMQProperties;
+import com.xbd.rocketmq.client.autoconfigure.RocketMQReactiveConfiguration;
 import com.xbd.rocketmq.client.autoconfigure.RocketMQTransactionConfiguration;
+import com.xbd.rocketmq.client.compression.MessageCompression;
+import com.xbd.rocketmq.client.converter.JsonMessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConverterRegistry;
+import com.xbd.rocketmq.client.core.RocketMQBatchPublisher;
 import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.core.SendPolicyExecutor;
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import com.xbd.rocketmq.client.outbox.RocketMQOutbox;
+import com.xbd.rocketmq.client.support.RocketMQClientRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.client.apis.*;
 import org.apache.rocketmq.client.apis.producer.Producer;
 import org.apache.rocketmq.client.apis.producer.ProducerBuilder;
 import org.apache.rocketmq.shaded.commons.lang3.StringUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -22,7 +37,11 @@ import org.springframework.context.annotation.Import;
 import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 /**
  * @author jibaole
@@ -32,19 +51,23 @@ import java.time.Duration;
  */
 @Configuration
 @EnableConfigurationProperties(RocketMQProperties.class)
-@Import({ListenerContainerConfiguration.class, RocketMQListenerConfiguration.class, RocketMQTransactionConfiguration.class})
+@Import({RocketMQEmbeddedConfiguration.class, ListenerContainerConfiguration.class, RocketMQListenerConfiguration.class,
+    RocketMQTransactionConfiguration.class, RocketMQMetricsConfiguration.class, RocketMQReactiveConfiguration.class,
+    RocketMQActuatorConfiguration.class})
 @Slf4j
-public class RocketMQAutoConfiguration implements ApplicationContextAware {
+public class RocketMQAutoConfiguration implements ApplicationContextAware, DisposableBean {
 
     @Autowired
     private RocketMQProperties config;
 
     private ApplicationContext applicationContext;
 
-    final ClientServiceProvider provider = ClientServiceProvider.loadService();
+    private volatile Producer defaultProducer;
 
     public static final String ROCKETMQ_TEMPLATE_GLOBAL_NAME = "rocketMQTemplate";
     public static final String DEFAULT_PRODUCER_BEAN_NAME = "defaultMQProducer";
+    public static final String ASYNC_SEND_EXECUTOR_BEAN_NAME = "rocketMQAsyncSendExecutor";
+    public static final String MESSAGE_CONVERTER_BEAN_NAME = "rocketMQMessageConverter";
 
     @PostConstruct
     public void checkProperties() {
@@ -54,25 +77,58 @@ public class RocketMQAutoConfiguration implements ApplicationContextAware {
         }
     }
 
-    @Bean(name = DEFAULT_PRODUCER_BEAN_NAME, destroyMethod = "close")
+    /**
+     * Closed by {@link #destroy()} through the client registry, so its client slot is given back.
+     */
+    @Bean(name = DEFAULT_PRODUCER_BEAN_NAME, destroyMethod = "")
     @ConditionalOnMissingBean(name = DEFAULT_PRODUCER_BEAN_NAME)
     public Producer producer() throws ClientException {
         log.info("Rocketmq default producer init……");
         Assert.hasText(config.getEndpoints(), "[rocketmq.endpoints] must not be null");
         Assert.hasText(config.getAccessKey(), "[rocketmq.accessKey] must not be null");
         Assert.hasText(config.getSecretKey(), "[rocketmq.secretKey] must not be null");
-        SessionCredentialsProvider sessionCredentialsProvider = new StaticSessionCredentialsProvider(config.getAccessKey(), config.getSecretKey());
-
-        ClientConfiguration clientConfiguration = ClientConfiguration.newBuilder()
-                .setEndpoints(config.getEndpoints())
-                .setCredentialProvider(sessionCredentialsProvider)
-                .setRequestTimeout(Duration.ofSeconds(config.getRequestTimeout()))
-                .build();
-        ProducerBuilder builder = provider.newProducerBuilder().setClientConfiguration(clientConfiguration);
-        if (config.getTopics() != null && config.getTopics().length() > 0) {
-            builder.setTopics(config.getTopics().split(","));
+        RocketMQClientRegistry clientRegistry = rocketMQClientRegistry();
+        ClientConfiguration clientConfiguration = clientRegistry.getClientConfiguration(config.getEndpoints(),
+                config.getAccessKey(), config.getSecretKey(), Duration.ofSeconds(config.getRequestTimeout()));
+        defaultProducer = clientRegistry.createClient(config.getEndpoints(), provider -> {
+            ProducerBuilder builder = provider.newProducerBuilder().setClientConfiguration(clientConfiguration);
+            if (config.getTopics() != null && config.getTopics().length() > 0) {
+                builder.setTopics(config.getTopics().split(","));
+            }
+            return builder.build();
+        });
+        return defaultProducer;
+    }
+
+    /**
+     * Runs after the beans created here are destroyed. The template may already have closed the producer, the
+     * registry only releases it once.
+     */
+    @Override
+    public void destroy() throws IOException {
+        Producer producer = defaultProducer;
+        if (producer != null) {
+            defaultProducer = null;
+            rocketMQClientRegistry().close(producer);
         }
-        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RocketMQClientRegistry rocketMQClientRegistry() {
+        return new RocketMQClientRegistry(ClientServiceProvider.loadService(), config.getMaxClientsPerEndpoint());
+    }
+
+    @Bean(name = MESSAGE_CONVERTER_BEAN_NAME)
+    @ConditionalOnMissingBean(name = MESSAGE_CONVERTER_BEAN_NAME)
+    public MessageConverter rocketMQMessageConverter() {
+        return new JsonMessageConverter();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MessageConverterRegistry messageConverterRegistry(ObjectProvider<MessageConverter> messageConverters) {
+        return MessageConverterRegistry.withDefaults(messageConverters.orderedStream().collect(Collectors.toList()));
     }
 
     @Bean(destroyMethod = "destroy")
@@ -80,9 +136,50 @@ public class RocketMQAutoConfiguration implements ApplicationContextAware {
     public RocketMQTemplate rocketMQTemplate() throws ClientException {
         RocketMQTemplate rocketMQTemplate = new RocketMQTemplate();
         rocketMQTemplate.setProducer(producer());
+        rocketMQTemplate.setClientRegistry(rocketMQClientRegistry());
+        rocketMQTemplate.setMessageConverter(applicationContext.getBean(MESSAGE_CONVERTER_BEAN_NAME, MessageConverter.class));
+        rocketMQTemplate.setAsyncMaxInFlight(config.getProducer().getAsyncMaxInFlight());
+        rocketMQTemplate.setSendTimestamp(config.getProducer().isSendTimestamp());
+        if (applicationContext.containsBean(ASYNC_SEND_EXECUTOR_BEAN_NAME)) {
+            rocketMQTemplate.setAsyncSendExecutor(applicationContext.getBean(ASYNC_SEND_EXECUTOR_BEAN_NAME, Executor.class));
+        }
+        RocketMQMetrics metrics = applicationContext.getBeanProvider(RocketMQMetrics.class).getIfAvailable(() -> RocketMQMetrics.NOOP);
+        rocketMQTemplate.setMetrics(metrics);
+        metrics.bindTemplate(ROCKETMQ_TEMPLATE_GLOBAL_NAME, rocketMQTemplate);
+        RocketMQProperties.Producer producer = config.getProducer();
+        if (producer.getPolicy().isEnabled() || !producer.getTopicPolicies().isEmpty()) {
+            rocketMQTemplate.setSendPolicyExecutor(new SendPolicyExecutor(producer.getPolicy(), producer.getTopicPolicies(), metrics));
+        }
+        RocketMQProperties.Compression compression = producer.getCompression();
+        if (compression.isEnabled()) {
+            rocketMQTemplate.setCompression(new MessageCompression(compression.getType(), compression.getLevel(),
+                    compression.getThreshold(), compression.getTopicThresholds()));
+        }
+        RocketMQProperties.Outbox outbox = producer.getOutbox();
+        if (outbox.isEnabled()) {
+            rocketMQTemplate.setOutbox(createOutbox(outbox, rocketMQTemplate.getProducer(), metrics));
+            rocketMQTemplate.setOutboxCloseTimeout(outbox.getCloseTimeout());
+        }
+        RocketMQProperties.Batch batch = config.getProducer().getBatch();
+        if (batch.isEnabled()) {
+            rocketMQTemplate.setBatchPublisher(new RocketMQBatchPublisher(rocketMQTemplate, batch.getMaxCount(), batch.getMaxBytes(), batch.getLinger()));
+            rocketMQTemplate.setBatchCloseTimeout(batch.getCloseTimeout());
+        }
         return rocketMQTemplate;
     }
 
+    private RocketMQOutbox createOutbox(RocketMQProperties.Outbox outbox, Producer producer, RocketMQMetrics metrics) {
+        RocketMQOutbox rocketMQOutbox;
+        try {
+            rocketMQOutbox = new RocketMQOutbox(Paths.get(outbox.getDirectory()), outbox.getSegmentSize(), outbox.isSyncWrites(),
+                    rocketMQClientRegistry().getProvider(), metrics);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open the RocketMQ outbox in " + outbox.getDirectory(), e);
+        }
+        rocketMQOutbox.start(producer::sendAsync, outbox.getDrainConcurrency(), outbox.getRetryInterval(), outbox.getMaxRetryInterval());
+        return rocketMQOutbox;
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
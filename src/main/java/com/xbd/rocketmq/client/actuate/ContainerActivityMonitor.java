@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.actuate;
+
+import com.xbd.rocketmq.client.support.AbstractRocketMQListenerContainer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives throughput and progress of the listener containers from their counters, on read only, so the
+ * containers pay for nothing but the counting. Throughput is averaged over the last one to two windows,
+ * a container is stuck when it has messages in flight and completed none for the stuck threshold.
+ * Both are as fresh as the reads, the health checks and endpoint calls, are frequent.
+ */
+public class ContainerActivityMonitor {
+
+    private final long windowNanos;
+
+    private final long stuckThresholdNanos;
+
+    private final Map<AbstractRocketMQListenerContainer, Progress> progresses = new ConcurrentHashMap<>();
+
+    public ContainerActivityMonitor(Duration throughputWindow, Duration stuckThreshold) {
+        this.windowNanos = throughputWindow.toNanos();
+        this.stuckThresholdNanos = stuckThreshold.toNanos();
+    }
+
+    public Activity sample(AbstractRocketMQListenerContainer container) {
+        long completed = container.getConsumedCount() + container.getFailedCount();
+        int inFlight = container.getInFlight();
+        long now = System.nanoTime();
+        return progresses.computeIfAbsent(container, c -> new Progress(completed, now)).sample(completed, inFlight, now);
+    }
+
+    public Duration getStuckThreshold() {
+        return Duration.ofNanos(stuckThresholdNanos);
+    }
+
+    private final class Progress {
+
+        private long previousCount;
+
+        private long previousNanos;
+
+        private long currentCount;
+
+        private long currentNanos;
+
+        private long lastCompleted;
+
+        private long lastProgressNanos;
+
+        private Progress(long completed, long now) {
+            this.previousCount = this.currentCount = this.lastCompleted = completed;
+            this.previousNanos = this.currentNanos = this.lastProgressNanos = now;
+        }
+
+        synchronized Activity sample(long completed, int inFlight, long now) {
+            if (completed != lastCompleted || inFlight == 0) {
+                lastCompleted = completed;
+                lastProgressNanos = now;
+            }
+            if (now - currentNanos >= windowNanos) {
+                previousCount = currentCount;
+                previousNanos = currentNanos;
+                currentCount = completed;
+                currentNanos = now;
+            }
+            double throughput = now > previousNanos ? (completed - previousCount) * 1e9 / (now - previousNanos) : 0;
+            long stalledNanos = now - lastProgressNanos;
+            return new Activity(throughput, stalledNanos / 1_000_000, inFlight > 0 && stalledNanos >= stuckThresholdNanos);
+        }
+    }
+
+    public static final class Activity {
+
+        private final double throughput;
+
+        private final long stalledMillis;
+
+        private final boolean stuck;
+
+        private Activity(double throughput, long stalledMillis, boolean stuck) {
+            this.throughput = throughput;
+            this.stalledMillis = stalledMillis;
+            this.stuck = stuck;
+        }
+
+        /**
+         * Messages completed per second, successful or not.
+         */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        /**
+         * Time since a message was last completed while messages were in flight.
+         */
+        public long getStalledMillis() {
+            return stalledMillis;
+        }
+
+        public boolean isStuck() {
+            return stuck;
+        }
+    }
+
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.actuate;
+
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.outbox.RocketMQOutbox;
+import com.xbd.rocketmq.client.support.AbstractRocketMQListenerContainer;
+import com.xbd.rocketmq.client.support.DefaultRocketMQListenerContainer;
+import com.xbd.rocketmq.client.support.FlowController;
+import com.xbd.rocketmq.client.support.MessageDeduplicator;
+import com.xbd.rocketmq.client.support.RocketMQListenerContainerRegistry;
+import com.xbd.rocketmq.client.support.RocketMQListenerContainerStarter;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/rocketmq}: the listener containers with their groups, topics, in-flight counts, throughput
+ * and progress, and the templates with their send counts and transaction producers. A POST to
+ * {@code /actuator/rocketmq/{name}} pauses, resumes or reconfigures a container.
+ */
+@Endpoint(id = "rocketmq")
+public class RocketMQEndpoint {
+
+    private final ListableBeanFactory beanFactory;
+
+    private final ContainerActivityMonitor activityMonitor;
+
+    private final RocketMQListenerContainerRegistry containerRegistry;
+
+    public RocketMQEndpoint(ListableBeanFactory beanFactory, ContainerActivityMonitor activityMonitor,
+                            RocketMQListenerContainerRegistry containerRegistry) {
+        this.beanFactory = beanFactory;
+        this.activityMonitor = activityMonitor;
+        this.containerRegistry = containerRegistry;
+    }
+
+    @ReadOperation
+    public RocketMQDescriptor rocketmq() {
+        List<ContainerDescriptor> containers = new ArrayList<>();
+        List<AbstractRocketMQListenerContainer> failed = failedContainers();
+        containerRegistry.getContainers().forEach((name, container) ->
+            containers.add(new ContainerDescriptor(name, container, failed.contains(container), activityMonitor.sample(container))));
+        List<TemplateDescriptor> templates = new ArrayList<>();
+        beanFactory.getBeansOfType(RocketMQTemplate.class, true, false).forEach((name, template) ->
+            templates.add(new TemplateDescriptor(name, template)));
+        return new RocketMQDescriptor(containers, templates);
+    }
+
+    @ReadOperation
+    public ContainerDescriptor container(@Selector String name) {
+        AbstractRocketMQListenerContainer container = containerRegistry.getContainers().get(name);
+        return container == null ? null
+            : new ContainerDescriptor(name, container, failedContainers().contains(container), activityMonitor.sample(container));
+    }
+
+    /**
+     * Applies the given changes in the order concurrency, tag, paused, e.g. {@code {"paused": true}} to shed the load
+     * of a container or {@code {"concurrency": 4, "tag": "vip"}} to narrow it.
+     */
+    @WriteOperation
+    public ContainerDescriptor updateContainer(@Selector String name, @Nullable Integer concurrency, @Nullable String tag,
+                                               @Nullable Boolean paused) {
+        AbstractRocketMQListenerContainer container = containerRegistry.getContainers().get(name);
+        if (container == null) {
+            return null;
+        }
+        if (concurrency != null) {
+            container.changeConcurrency(concurrency);
+        }
+        if (tag != null) {
+            container.changeTag(tag);
+        }
+        if (paused != null) {
+            if (paused) {
+                container.pause();
+            } else {
+                container.resume();
+            }
+        }
+        return container(name);
+    }
+
+    private List<AbstractRocketMQListenerContainer> failedContainers() {
+        RocketMQListenerContainerStarter starter = beanFactory.getBeanProvider(RocketMQListenerContainerStarter.class).getIfAvailable();
+        return starter == null ? Collections.emptyList() : starter.getFailedContainers();
+    }
+
+    public static final class RocketMQDescriptor {
+
+        private final List<ContainerDescriptor> containers;
+
+        private final List<TemplateDescriptor> templates;
+
+        private RocketMQDescriptor(List<ContainerDescriptor> containers, List<TemplateDescriptor> templates) {
+            this.containers = containers;
+            this.templates = templates;
+        }
+
+        public List<ContainerDescriptor> getContainers() {
+            return containers;
+        }
+
+        public List<TemplateDescriptor> getTemplates() {
+            return templates;
+        }
+    }
+
+    public static final class ContainerDescriptor {
+
+        private final String name;
+
+        private final String type;
+
+        private final String consumerGroup;
+
+        private final String topic;
+
+        private final String tag;
+
+        private final String consumeMode;
+
+        private final boolean running;
+
+        private final boolean startFailed;
+
+        private final boolean paused;
+
+        private final int concurrency;
+
+        private final int inFlight;
+
+        private final long consumed;
+
+        private final long failed;
+
+        private final double throughput;
+
+        private final long stalledMillis;
+
+        private final boolean stuck;
+
+        private final Integer concurrencyLimit;
+
+        private final Double rateLimit;
+
+        private final Long duplicates;
+
+        private ContainerDescriptor(String name, AbstractRocketMQListenerContainer container, boolean startFailed,
+                                    ContainerActivityMonitor.Activity activity) {
+            this.name = name;
+            this.type = container.getClass().getSimpleName();
+            this.consumerGroup = container.getConsumerGroup();
+            this.topic = container.getTopic();
+            this.tag = container.getTag();
+            this.consumeMode = container instanceof DefaultRocketMQListenerContainer
+                ? ((DefaultRocketMQListenerContainer) container).getConsumeMode().name() : null;
+            this.running = container.isRunning();
+            this.startFailed = startFailed;
+            this.paused = container.isPaused();
+            this.concurrency = container.getConcurrency();
+            this.inFlight = container.getInFlight();
+            this.consumed = container.getConsumedCount();
+            this.failed = container.getFailedCount();
+            this.throughput = activity.getThroughput();
+            this.stalledMillis = activity.getStalledMillis();
+            this.stuck = activity.isStuck();
+            FlowController flowController = container.getFlowController();
+            this.concurrencyLimit = flowController == null ? null : flowController.getLimit();
+            this.rateLimit = flowController == null || flowController.getPermitsPerSecond() <= 0 ? null : flowController.getPermitsPerSecond();
+            MessageDeduplicator deduplicator = container.getDeduplicator();
+            this.duplicates = deduplicator == null ? null : deduplicator.getDuplicateCount();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getConsumerGroup() {
+            return consumerGroup;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public String getConsumeMode() {
+            return consumeMode;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        public boolean isStartFailed() {
+            return startFailed;
+        }
+
+        public boolean isPaused() {
+            return paused;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getConsumed() {
+            return consumed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public long getStalledMillis() {
+            return stalledMillis;
+        }
+
+        public boolean isStuck() {
+            return stuck;
+        }
+
+        public Integer getConcurrencyLimit() {
+            return concurrencyLimit;
+        }
+
+        public Double getRateLimit() {
+            return rateLimit;
+        }
+
+        public Long getDuplicates() {
+            return duplicates;
+        }
+    }
+
+    public static final class TemplateDescriptor {
+
+        private final String name;
+
+        private final int asyncInFlight;
+
+        private final int asyncMaxInFlight;
+
+        private final long sendSuccess;
+
+        private final long sendFailure;
+
+        private final Long outboxBacklog;
+
+        private final Map<String, Map<String, Integer>> transactionProducers;
+
+        private TemplateDescriptor(String name, RocketMQTemplate template) {
+            this.name = name;
+            this.asyncInFlight = template.getAsyncInFlight();
+            this.asyncMaxInFlight = template.getAsyncMaxInFlight();
+            this.sendSuccess = template.getSendSuccessCount();
+            this.sendFailure = template.getSendFailureCount();
+            RocketMQOutbox outbox = template.getOutbox();
+            this.outboxBacklog = outbox == null ? null : outbox.getTotalBacklog();
+            this.transactionProducers = template.getTransactionProducerPools();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAsyncInFlight() {
+            return asyncInFlight;
+        }
+
+        public int getAsyncMaxInFlight() {
+            return asyncMaxInFlight;
+        }
+
+        public long getSendSuccess() {
+            return sendSuccess;
+        }
+
+        public long getSendFailure() {
+            return sendFailure;
+        }
+
+        public Long getOutboxBacklog() {
+            return outboxBacklog;
+        }
+
+        /**
+         * Pool sizes by topic then tag.
+         */
+        public Map<String, Map<String, Integer>> getTransactionProducers() {
+            return transactionProducers;
+        }
+    }
+
+}
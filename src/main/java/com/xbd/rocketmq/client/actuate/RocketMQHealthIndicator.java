@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.actuate;
+
+import com.xbd.rocketmq.client.support.AbstractRocketMQListenerContainer;
+import com.xbd.rocketmq.client.support.RocketMQListenerContainerStarter;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Down if a listener container failed to start or is stuck, messages in flight and none completed for the
+ * stuck threshold. Stopped containers are reported but do not take the health down.
+ */
+public class RocketMQHealthIndicator extends AbstractHealthIndicator {
+
+    private final ListableBeanFactory beanFactory;
+
+    private final ContainerActivityMonitor activityMonitor;
+
+    public RocketMQHealthIndicator(ListableBeanFactory beanFactory, ContainerActivityMonitor activityMonitor) {
+        super("RocketMQ health check failed");
+        this.beanFactory = beanFactory;
+        this.activityMonitor = activityMonitor;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        RocketMQListenerContainerStarter starter = beanFactory.getBeanProvider(RocketMQListenerContainerStarter.class).getIfAvailable();
+        List<AbstractRocketMQListenerContainer> failed = starter == null ? Collections.emptyList() : starter.getFailedContainers();
+        boolean down = false;
+        Map<String, String> states = new LinkedHashMap<>();
+        for (Map.Entry<String, AbstractRocketMQListenerContainer> entry
+            : beanFactory.getBeansOfType(AbstractRocketMQListenerContainer.class, true, false).entrySet()) {
+            AbstractRocketMQListenerContainer container = entry.getValue();
+            String state;
+            if (failed.contains(container)) {
+                state = "START_FAILED";
+                down = true;
+            } else if (!container.isRunning()) {
+                state = "STOPPED";
+            } else if (activityMonitor.sample(container).isStuck()) {
+                state = "STUCK";
+                down = true;
+            } else {
+                state = "RUNNING";
+            }
+            states.put(entry.getKey(), state);
+        }
+        (down ? builder.down() : builder.up())
+            .withDetail("containers", states)
+            .withDetail("stuckThreshold", activityMonitor.getStuckThreshold().toString());
+    }
+
+}
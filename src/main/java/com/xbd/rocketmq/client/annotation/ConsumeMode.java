@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.annotation;
+
+public enum ConsumeMode {
+
+    /**
+     * Messages are consumed on the push consumer's consumption threads.
+     */
+    PUSH,
+
+    /**
+     * Messages are received through a SimpleConsumer and dispatched to an executor, each message is
+     * acked once the listener returns SUCCESS. The number of messages in flight is bounded by maxInFlight.
+     */
+    EXECUTOR,
+
+    /**
+     * Messages are received through a SimpleConsumer and dispatched to a striped executor keyed by message group:
+     * the messages of one group are consumed one at a time in order, different groups in parallel.
+     */
+    ORDERLY
+
+}
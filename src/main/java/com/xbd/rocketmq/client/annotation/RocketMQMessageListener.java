@@ -30,6 +30,14 @@ public @interface RocketMQMessageListener {
     String ACCESS_KEY_PLACEHOLDER = "${rocketmq.accessKey:}";
     String SECRET_KEY_PLACEHOLDER = "${rocketmq.secretKey:}";
     String REQUEST_TIMEOUT_PLACEHOLDER = "${rocketmq.requestTimeout:}";
+    String CONSUMPTION_THREAD_COUNT_PLACEHOLDER = "${rocketmq.consumer.consumptionThreadCount:}";
+    String MAX_CACHE_MESSAGE_COUNT_PLACEHOLDER = "${rocketmq.consumer.maxCacheMessageCount:}";
+    String MAX_CACHE_MESSAGE_SIZE_IN_BYTES_PLACEHOLDER = "${rocketmq.consumer.maxCacheMessageSizeInBytes:}";
+    String MAX_IN_FLIGHT_PLACEHOLDER = "${rocketmq.consumer.maxInFlight:}";
+    String STRIPES_PLACEHOLDER = "${rocketmq.consumer.stripes:}";
+    String STRIPE_QUEUE_CAPACITY_PLACEHOLDER = "${rocketmq.consumer.stripeQueueCapacity:}";
+    String RATE_LIMIT_PLACEHOLDER = "${rocketmq.consumer.flowControl.rateLimit:}";
+    String ADAPTIVE_CONCURRENCY_PLACEHOLDER = "${rocketmq.consumer.flowControl.adaptiveConcurrency:}";
 
     String consumerGroup();
 
@@ -49,4 +57,89 @@ public @interface RocketMQMessageListener {
 
     String requestTimeout() default REQUEST_TIMEOUT_PLACEHOLDER;
 
+    /**
+     * Number of push consumer consumption threads, client default if empty.
+     */
+    String consumptionThreadCount() default CONSUMPTION_THREAD_COUNT_PLACEHOLDER;
+
+    /**
+     * Max number of messages cached locally per queue, client default if empty.
+     */
+    String maxCacheMessageCount() default MAX_CACHE_MESSAGE_COUNT_PLACEHOLDER;
+
+    /**
+     * Max bytes of messages cached locally per queue, client default if empty.
+     */
+    String maxCacheMessageSizeInBytes() default MAX_CACHE_MESSAGE_SIZE_IN_BYTES_PLACEHOLDER;
+
+    /**
+     * PUSH consumes on the push consumer threads, EXECUTOR dispatches every message to {@link #executor()},
+     * ORDERLY dispatches to {@link #stripes()} threads keeping the order within each message group.
+     */
+    ConsumeMode consumeMode() default ConsumeMode.PUSH;
+
+    /**
+     * Bean name of the Executor used by the EXECUTOR consume mode, virtual threads if supported by the JDK
+     * or an elastic pool of up to maxInFlight threads if empty.
+     */
+    String executor() default "";
+
+    /**
+     * Max messages being consumed at once in the EXECUTOR and ORDERLY consume modes.
+     */
+    String maxInFlight() default MAX_IN_FLIGHT_PLACEHOLDER;
+
+    /**
+     * Number of threads of the ORDERLY consume mode, the number of processors if empty.
+     */
+    String stripes() default STRIPES_PLACEHOLDER;
+
+    /**
+     * Max messages waiting per stripe in the ORDERLY consume mode, receiving pauses while a stripe is full.
+     */
+    String stripeQueueCapacity() default STRIPE_QUEUE_CAPACITY_PLACEHOLDER;
+
+    /**
+     * Max messages per second passed to the listener, unlimited if empty or not positive. Over the rate the
+     * container stops pulling instead of failing messages.
+     */
+    String rateLimit() default RATE_LIMIT_PLACEHOLDER;
+
+    /**
+     * Whether the number of messages consumed at once adapts to the failures and latency of the listener (AIMD),
+     * tuned by rocketmq.consumer.flowControl.*. Used by listeners implementing RocketMQListener or
+     * RocketMQTypedListener, not by batch listeners.
+     */
+    String adaptiveConcurrency() default ADAPTIVE_CONCURRENCY_PLACEHOLDER;
+
+    /**
+     * Max messages per receive call, only used by listeners implementing RocketMQBatchListener.
+     */
+    String maxBatchSize() default "32";
+
+    /**
+     * Seconds received messages stay invisible to other consumers before they are redelivered,
+     * used by the SimpleConsumer based batch listeners and the EXECUTOR and ORDERLY consume modes.
+     */
+    String invisibleDuration() default "30";
+
+    /**
+     * Seconds a receive call long-polls for messages, used by the SimpleConsumer based batch listeners
+     * and the EXECUTOR and ORDERLY consume modes.
+     */
+    String awaitDuration() default "10";
+
+    /**
+     * Key duplicate deliveries are recognized by, duplicates of messages already consumed with SUCCESS are acked
+     * without calling the listener. Capacity and expiry of the cache are set by rocketmq.consumer.dedup.*,
+     * a DeduplicationStore bean, if any, is consulted on a cache miss.
+     */
+    DeduplicationKey deduplication() default DeduplicationKey.NONE;
+
+    /**
+     * Bean name of the MessageConverter used for messages without a content type property,
+     * the global rocketMQMessageConverter if empty.
+     */
+    String messageConverter() default "";
+
 }
@@ -17,24 +17,49 @@
 
 package com.xbd.rocketmq.client.autoconfigure;
 
+import com.xbd.rocketmq.client.RocketMQAutoConfiguration;
+import com.xbd.rocketmq.client.annotation.DeduplicationKey;
 import com.xbd.rocketmq.client.annotation.RocketMQMessageListener;
+import com.xbd.rocketmq.client.converter.MessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConverterRegistry;
+import com.xbd.rocketmq.client.core.RocketMQBatchListener;
+import com.xbd.rocketmq.client.metrics.DeliveryLatencyReporter;
+import com.xbd.rocketmq.client.metrics.LatencySink;
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import com.xbd.rocketmq.client.metrics.Slf4jLatencySink;
+import com.xbd.rocketmq.client.support.RocketMQClientRegistry;
 import com.xbd.rocketmq.client.core.RocketMQListener;
+import com.xbd.rocketmq.client.core.RocketMQTypedListener;
+import com.xbd.rocketmq.client.support.AbstractRocketMQListenerContainer;
+import com.xbd.rocketmq.client.support.DefaultRocketMQBatchListenerContainer;
 import com.xbd.rocketmq.client.support.DefaultRocketMQListenerContainer;
+import com.xbd.rocketmq.client.support.DeduplicationStore;
+import com.xbd.rocketmq.client.support.MessageDeduplicator;
+import com.xbd.rocketmq.client.support.RocketMQListenerContainerRegistry;
+import com.xbd.rocketmq.client.support.RocketMQListenerContainerStarter;
+import com.xbd.rocketmq.client.support.TypedMessageListenerAdapter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.util.StringUtils;
 
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Configuration
@@ -60,36 +85,118 @@ public class ListenerContainerConfiguration implements ApplicationContextAware {
         this.applicationContext = (ConfigurableApplicationContext) applicationContext;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public RocketMQListenerContainerStarter rocketMQListenerContainerStarter() {
+        RocketMQProperties.Startup startup = rocketMQProperties.getStartup();
+        return new RocketMQListenerContainerStarter(startup.getParallelism(), startup.getTimeout(), startup.getFailurePolicy());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RocketMQListenerContainerRegistry rocketMQListenerContainerRegistry() {
+        return new RocketMQListenerContainerRegistry(applicationContext);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "rocketmq.consumer.latency", name = "enabled", havingValue = "true")
+    public DeliveryLatencyReporter deliveryLatencyReporter(ObjectProvider<LatencySink> latencySink) {
+        RocketMQProperties.Latency latency = rocketMQProperties.getConsumer().getLatency();
+        return new DeliveryLatencyReporter(latencySink.getIfAvailable(Slf4jLatencySink::new), latency.getSampleRate(), latency.getPublishInterval());
+    }
+
     public void registerContainer(String beanName, Object bean, RocketMQMessageListener annotation) {
         Class<?> clazz = AopProxyUtils.ultimateTargetClass(bean);
 
-        if (!RocketMQListener.class.isAssignableFrom(bean.getClass())) {
-            throw new IllegalStateException(clazz + " is not instance of " + RocketMQListener.class.getName());
+        if (!RocketMQListener.class.isAssignableFrom(bean.getClass()) && !RocketMQTypedListener.class.isAssignableFrom(bean.getClass())
+            && !RocketMQBatchListener.class.isAssignableFrom(bean.getClass())) {
+            throw new IllegalStateException(clazz + " is not instance of " + RocketMQListener.class.getName()
+                + ", " + RocketMQTypedListener.class.getName() + " or " + RocketMQBatchListener.class.getName());
         }
 
-        String containerBeanName = String.format("%s_%s", DefaultRocketMQListenerContainer.class.getName(), counter.incrementAndGet());
+        Class<? extends AbstractRocketMQListenerContainer> containerClass = RocketMQBatchListener.class.isAssignableFrom(bean.getClass())
+            ? DefaultRocketMQBatchListenerContainer.class : DefaultRocketMQListenerContainer.class;
+        String containerBeanName = String.format("%s_%s", containerClass.getName(), counter.incrementAndGet());
         GenericApplicationContext genericApplicationContext = (GenericApplicationContext) applicationContext;
 
-        genericApplicationContext.registerBean(containerBeanName,
-            DefaultRocketMQListenerContainer.class,
-            () -> createRocketMQListenerContainer(containerBeanName, bean, annotation)
-        );
-        DefaultRocketMQListenerContainer container = genericApplicationContext.getBean(containerBeanName, DefaultRocketMQListenerContainer.class);
-        if (!container.isRunning()) {
-            try {
-                container.start();
-            } catch (Exception e) {
-                log.error("Started container failed. {}", container, e);
-                throw new RuntimeException(e);
-            }
+        if (containerClass == DefaultRocketMQBatchListenerContainer.class) {
+            genericApplicationContext.registerBean(containerBeanName,
+                DefaultRocketMQBatchListenerContainer.class,
+                () -> createRocketMQBatchListenerContainer(containerBeanName, bean, annotation)
+            );
+        } else {
+            genericApplicationContext.registerBean(containerBeanName,
+                DefaultRocketMQListenerContainer.class,
+                () -> createRocketMQListenerContainer(containerBeanName, bean, annotation)
+            );
         }
+        AbstractRocketMQListenerContainer container = genericApplicationContext.getBean(containerBeanName, containerClass);
+        container.setAutoStartup(false);
+        applicationContext.getBean(RocketMQListenerContainerStarter.class).addContainer(container);
 
         log.info("Register the listener to container, listenerBeanName:{}, containerBeanName:{}", beanName, containerBeanName);
     }
 
     private DefaultRocketMQListenerContainer createRocketMQListenerContainer(String name, Object bean, RocketMQMessageListener annotation) {
         DefaultRocketMQListenerContainer container = new DefaultRocketMQListenerContainer();
+        configureContainer(container, name, annotation);
+
+        RocketMQProperties.Consumer consumer = rocketMQProperties.getConsumer();
+        container.setConsumptionThreadCount(resolveInteger(annotation.consumptionThreadCount(), consumer.getConsumptionThreadCount()));
+        container.setMaxCacheMessageCount(resolveInteger(annotation.maxCacheMessageCount(), consumer.getMaxCacheMessageCount()));
+        container.setMaxCacheMessageSizeInBytes(resolveInteger(annotation.maxCacheMessageSizeInBytes(), consumer.getMaxCacheMessageSizeInBytes()));
+        container.setConsumeMode(annotation.consumeMode());
+        container.setMaxInFlight(resolveInteger(annotation.maxInFlight(), consumer.getMaxInFlight()));
+        Integer stripes = resolveInteger(annotation.stripes(), consumer.getStripes());
+        if (stripes != null) {
+            container.setStripes(stripes);
+        }
+        Integer stripeQueueCapacity = resolveInteger(annotation.stripeQueueCapacity(), consumer.getStripeQueueCapacity());
+        if (stripeQueueCapacity != null) {
+            container.setStripeQueueCapacity(stripeQueueCapacity);
+        }
+        RocketMQProperties.FlowControl flowControl = consumer.getFlowControl();
+        String rateLimit = environment.resolvePlaceholders(annotation.rateLimit());
+        if (StringUtils.hasLength(rateLimit)) {
+            container.setRateLimit(Double.parseDouble(rateLimit));
+        } else if (flowControl.getRateLimit() != null) {
+            container.setRateLimit(flowControl.getRateLimit());
+        }
+        String adaptiveConcurrency = environment.resolvePlaceholders(annotation.adaptiveConcurrency());
+        container.setAdaptiveConcurrency(StringUtils.hasLength(adaptiveConcurrency)
+            ? Boolean.parseBoolean(adaptiveConcurrency) : flowControl.isAdaptiveConcurrency());
+        container.setMinConcurrency(flowControl.getMinConcurrency());
+        container.setMaxConcurrency(flowControl.getMaxConcurrency());
+        container.setLatencyThreshold(flowControl.getLatencyThreshold());
+        container.setBackoffRatio(flowControl.getBackoffRatio());
+        String executor = environment.resolvePlaceholders(annotation.executor());
+        if (StringUtils.hasLength(executor)) {
+            container.setExecutor(applicationContext.getBean(executor, Executor.class));
+        }
+
+        if (RocketMQListener.class.isAssignableFrom(bean.getClass())) {
+            container.setRocketMQListener((RocketMQListener) bean);
+        } else if (RocketMQTypedListener.class.isAssignableFrom(bean.getClass())) {
+            container.setRocketMQListener(new TypedMessageListenerAdapter((RocketMQTypedListener<?>) bean, resolvePayloadType(bean),
+                container.getMessageConverter(), container.getMessageConverterRegistry()));
+        } else {
+            log.warn("Consumer need implement RocketMQListener or RocketMQTypedListener. {}", container);
+            throw new RuntimeException("Consumer need implement RocketMQListener or RocketMQTypedListener");
+        }
+        return container;
+    }
+
+    private DefaultRocketMQBatchListenerContainer createRocketMQBatchListenerContainer(String name, Object bean, RocketMQMessageListener annotation) {
+        DefaultRocketMQBatchListenerContainer container = new DefaultRocketMQBatchListenerContainer();
+        configureContainer(container, name, annotation);
+
+        container.setMaxBatchSize(resolveInteger(annotation.maxBatchSize(), container.getMaxBatchSize()));
+        container.setRocketMQBatchListener((RocketMQBatchListener) bean);
+        return container;
+    }
 
+    private void configureContainer(AbstractRocketMQListenerContainer container, String name, RocketMQMessageListener annotation) {
         container.setRocketMQMessageListener(annotation);
 
         String endpoints = environment.resolvePlaceholders(annotation.endpoints());
@@ -97,16 +204,42 @@ public class ListenerContainerConfiguration implements ApplicationContextAware {
         container.setEndPoints(endpoints);
         container.setAccessKey(environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.accessKey())));
         container.setSecretKey(environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.secretKey())));
-        container.setRequestTimeout(Integer.valueOf(environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.requestTimeout()))));
+        container.setRequestTimeout(resolveInteger(annotation.requestTimeout(), rocketMQProperties.getRequestTimeout()));
+        container.setInvisibleDuration(Duration.ofSeconds(resolveInteger(annotation.invisibleDuration(), (int) container.getInvisibleDuration().getSeconds())));
+        container.setAwaitDuration(Duration.ofSeconds(resolveInteger(annotation.awaitDuration(), (int) container.getAwaitDuration().getSeconds())));
+
+        String messageConverter = environment.resolvePlaceholders(annotation.messageConverter());
+        messageConverter = StringUtils.hasLength(messageConverter) ? messageConverter : RocketMQAutoConfiguration.MESSAGE_CONVERTER_BEAN_NAME;
+        container.setMessageConverter(applicationContext.getBean(messageConverter, MessageConverter.class));
+        container.setMessageConverterRegistry(applicationContext.getBean(MessageConverterRegistry.class));
+        container.setClientRegistry(applicationContext.getBean(RocketMQClientRegistry.class));
+        container.setMetrics(applicationContext.getBeanProvider(RocketMQMetrics.class).getIfAvailable(() -> RocketMQMetrics.NOOP));
+        container.setLatencyReporter(applicationContext.getBeanProvider(DeliveryLatencyReporter.class).getIfAvailable());
+        container.setShutdownTimeout(rocketMQProperties.getShutdown().getTimeout());
+        container.setPhase(rocketMQProperties.getShutdown().getPhase());
+        container.setName(name);
 
-        if (RocketMQListener.class.isAssignableFrom(bean.getClass())) {
-            container.setRocketMQListener((RocketMQListener) bean);
-        } else {
-            log.warn("Consumer need implement RocketMQListener. {}", container);
-            throw new RuntimeException("Consumer need implement RocketMQListener");
+        if (annotation.deduplication() != DeduplicationKey.NONE) {
+            RocketMQProperties.Dedup dedup = rocketMQProperties.getConsumer().getDedup();
+            container.setDeduplicator(new MessageDeduplicator(container.getConsumerGroup(), annotation.deduplication(),
+                dedup.getCapacity(), dedup.getTtl(), dedup.getShards(),
+                applicationContext.getBeanProvider(DeduplicationStore.class).getIfAvailable()));
         }
-        container.setName(name);
-        return container;
+    }
+
+    private Integer resolveInteger(String expression, Integer defaultValue) {
+        String value = environment.resolvePlaceholders(expression);
+        return StringUtils.hasText(value) ? Integer.valueOf(value.trim()) : defaultValue;
+    }
+
+    private Type resolvePayloadType(Object bean) {
+        Class<?> clazz = AopProxyUtils.ultimateTargetClass(bean);
+        ResolvableType payloadType = ResolvableType.forClass(clazz).as(RocketMQTypedListener.class).getGeneric(0);
+        if (payloadType.resolve() == null) {
+            throw new IllegalStateException("Cannot resolve the message type of " + clazz.getName()
+                + ", implement RocketMQTypedListener with a concrete type argument");
+        }
+        return payloadType.getType();
     }
 
 }
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.xbd.rocketmq.client.autoconfigure;
+
+import com.xbd.rocketmq.client.actuate.ContainerActivityMonitor;
+import com.xbd.rocketmq.client.actuate.RocketMQEndpoint;
+import com.xbd.rocketmq.client.actuate.RocketMQHealthIndicator;
+import com.xbd.rocketmq.client.support.RocketMQListenerContainerRegistry;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnClass(name = "org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint")
+public class RocketMQActuatorConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ContainerActivityMonitor containerActivityMonitor(RocketMQProperties rocketMQProperties) {
+        RocketMQProperties.Actuator actuator = rocketMQProperties.getActuator();
+        return new ContainerActivityMonitor(actuator.getThroughputWindow(), actuator.getStuckThreshold());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnAvailableEndpoint(endpoint = RocketMQEndpoint.class)
+    public RocketMQEndpoint rocketMQEndpoint(ListableBeanFactory beanFactory, ContainerActivityMonitor containerActivityMonitor,
+                                             RocketMQListenerContainerRegistry rocketMQListenerContainerRegistry) {
+        return new RocketMQEndpoint(beanFactory, containerActivityMonitor, rocketMQListenerContainerRegistry);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "rocketmqHealthIndicator")
+    @ConditionalOnEnabledHealthIndicator("rocketmq")
+    public RocketMQHealthIndicator rocketmqHealthIndicator(ListableBeanFactory beanFactory, ContainerActivityMonitor containerActivityMonitor) {
+        return new RocketMQHealthIndicator(beanFactory, containerActivityMonitor);
+    }
+
+}
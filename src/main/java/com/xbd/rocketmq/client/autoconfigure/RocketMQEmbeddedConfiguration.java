@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.xbd.rocketmq.client.autoconfigure;
+
+import com.xbd.rocketmq.client.embedded.EmbeddedBroker;
+import com.xbd.rocketmq.client.embedded.EmbeddedClientServiceProvider;
+import com.xbd.rocketmq.client.support.RocketMQClientRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the client registry with one whose clients talk to an in-process {@link EmbeddedBroker}.
+ * Imported ahead of the auto-configuration's own registry, which then backs off.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rocketmq.embedded", name = "enabled", havingValue = "true")
+@Slf4j
+public class RocketMQEmbeddedConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public EmbeddedBroker embeddedBroker(RocketMQProperties rocketMQProperties) {
+        log.warn("RocketMQ embedded broker enabled, no message leaves this process");
+        RocketMQProperties.Embedded embedded = rocketMQProperties.getEmbedded();
+        EmbeddedBroker broker = new EmbeddedBroker();
+        broker.setSendLatency(embedded.getSendLatency());
+        broker.setSendFailureRate(embedded.getSendFailureRate());
+        broker.setAckFailureRate(embedded.getAckFailureRate());
+        broker.setMaxDeliveryAttempts(embedded.getMaxDeliveryAttempts());
+        broker.setRedeliveryDelay(embedded.getRedeliveryDelay());
+        broker.setTransactionCheckDelay(embedded.getTransactionCheckDelay());
+        return broker;
+    }
+
+    @Bean
+    public RocketMQClientRegistry rocketMQClientRegistry(EmbeddedBroker embeddedBroker, RocketMQProperties rocketMQProperties) {
+        return new RocketMQClientRegistry(new EmbeddedClientServiceProvider(embeddedBroker), rocketMQProperties.getMaxClientsPerEndpoint());
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.xbd.rocketmq.client.autoconfigure;
+
+import com.xbd.rocketmq.client.metrics.LatencySink;
+import com.xbd.rocketmq.client.metrics.MicrometerLatencySink;
+import com.xbd.rocketmq.client.metrics.MicrometerRocketMQMetrics;
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import com.xbd.rocketmq.client.metrics.Slf4jLatencySink;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class RocketMQMetricsConfiguration {
+
+    /**
+     * The MeterRegistry is resolved when this bean is created rather than matched with @ConditionalOnBean, all bean
+     * definitions are registered by then, so the ordering against the actuator metrics auto-configuration does not matter.
+     */
+    @Bean
+    @ConditionalOnMissingBean(RocketMQMetrics.class)
+    public RocketMQMetrics rocketMQMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfUnique();
+        return registry == null ? RocketMQMetrics.NOOP : new MicrometerRocketMQMetrics(registry);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(LatencySink.class)
+    @ConditionalOnProperty(prefix = "rocketmq.consumer.latency", name = "enabled", havingValue = "true")
+    public LatencySink rocketMQLatencySink(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfUnique();
+        return registry == null ? new Slf4jLatencySink() : new MicrometerLatencySink(registry);
+    }
+
+}
@@ -1,8 +1,17 @@
 package com.xbd.rocketmq.client.autoconfigure;
 
+import com.xbd.rocketmq.client.compression.CompressionType;
+import com.xbd.rocketmq.client.core.SendPolicy;
+import com.xbd.rocketmq.client.support.AbstractRocketMQListenerContainer;
+import com.xbd.rocketmq.client.support.StartupFailurePolicy;
+import com.xbd.rocketmq.client.support.TransactionProducerScope;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author vertee
  * @version 1.0
@@ -39,4 +48,451 @@ public class RocketMQProperties {
      */
     private Integer requestTimeout = 3;
 
+    /**
+     * 每个访问端点允许创建的最大客户端(producer/consumer)数，每个客户端独占自己的grpc连接，小于等于0表示不限制
+     */
+    private int maxClientsPerEndpoint = 0;
+
+    /**
+     * 生产者相关配置
+     */
+    private Producer producer = new Producer();
+
+    /**
+     * 消费者全局默认配置，可被@RocketMQMessageListener上的配置覆盖
+     */
+    private Consumer consumer = new Consumer();
+
+    /**
+     * 监听容器启动配置
+     */
+    private Startup startup = new Startup();
+
+    /**
+     * 监听容器停止配置
+     */
+    private Shutdown shutdown = new Shutdown();
+
+    /**
+     * 事务消息配置
+     */
+    private Transaction transaction = new Transaction();
+
+    /**
+     * 内嵌内存broker配置，仅用于测试和本地压测
+     */
+    private Embedded embedded = new Embedded();
+
+    /**
+     * Reactor响应式模板配置，仅在classpath存在reactor-core时生效
+     */
+    private Reactive reactive = new Reactive();
+
+    /**
+     * actuator端点(/actuator/rocketmq)和健康检查配置，仅在classpath存在spring-boot-actuator时生效
+     */
+    private Actuator actuator = new Actuator();
+
+    @Data
+    public static class Producer {
+
+        /**
+         * 异步发送最大在途请求数，超过后新的异步发送直接失败，小于等于0表示不限制
+         */
+        private int asyncMaxInFlight = 10000;
+
+        /**
+         * 批量发送配置
+         */
+        private Batch batch = new Batch();
+
+        /**
+         * 所有topic默认的发送重试、对冲发送和熔断策略，默认只发送一次
+         */
+        private SendPolicy policy = new SendPolicy();
+
+        /**
+         * 按topic配置的发送策略，配置后完整替换该topic的默认策略
+         */
+        private Map<String, SendPolicy> topicPolicies = new HashMap<>();
+
+        /**
+         * 本地outbox配置，开启后broker不可用或异步发送超限的消息写入本地文件，恢复后后台重发。
+         * 带messageGroup的FIFO消息不写入outbox，发送失败直接返回异常，以免重发打乱分组内的顺序
+         */
+        private Outbox outbox = new Outbox();
+
+        /**
+         * 消息体压缩配置，消费端根据消息属性自动解压
+         */
+        private Compression compression = new Compression();
+
+        /**
+         * 是否在消息属性中写入微秒级发送时间戳，供消费端统计端到端投递延迟
+         */
+        private boolean sendTimestamp = true;
+
+    }
+
+    @Data
+    public static class Compression {
+
+        /**
+         * 是否开启消息体压缩
+         */
+        private boolean enabled = false;
+
+        /**
+         * 压缩算法，GZIP无需额外依赖，LZ4需要org.lz4:lz4-java，ZSTD需要com.github.luben:zstd-jni
+         */
+        private CompressionType type = CompressionType.GZIP;
+
+        /**
+         * 压缩级别，不大于0时使用算法默认级别
+         */
+        private int level = 0;
+
+        /**
+         * 消息体达到该字节数时压缩
+         */
+        private int threshold = 4096;
+
+        /**
+         * 按topic配置的压缩阈值，覆盖默认阈值，小于0表示该topic不压缩
+         */
+        private Map<String, Integer> topicThresholds = new HashMap<>();
+
+    }
+
+    @Data
+    public static class Outbox {
+
+        /**
+         * 是否开启本地outbox
+         */
+        private boolean enabled = false;
+
+        /**
+         * outbox文件目录
+         */
+        private String directory = "rocketmq-outbox";
+
+        /**
+         * 单个segment文件的字节数，写满后创建新文件，单条消息不能超过该大小
+         */
+        private int segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * 每次写入后是否强制刷盘，关闭时依赖操作系统刷盘，进程崩溃不丢消息但机器掉电可能丢失
+         */
+        private boolean syncWrites = false;
+
+        /**
+         * 后台重发时最大并发发送数
+         */
+        private int drainConcurrency = 16;
+
+        /**
+         * 重发失败后首次重试的间隔，之后每次翻倍
+         */
+        private Duration retryInterval = Duration.ofSeconds(1);
+
+        /**
+         * 重发失败后重试的最大间隔
+         */
+        private Duration maxRetryInterval = Duration.ofSeconds(30);
+
+        /**
+         * 关闭时等待重发中消息完成的最长时间
+         */
+        private Duration closeTimeout = Duration.ofSeconds(5);
+
+    }
+
+    @Data
+    public static class Consumer {
+
+        /**
+         * push consumer消费线程数，不配置使用客户端默认值
+         */
+        private Integer consumptionThreadCount;
+
+        /**
+         * 每个队列本地缓存的最大消息条数，不配置使用客户端默认值
+         */
+        private Integer maxCacheMessageCount;
+
+        /**
+         * 每个队列本地缓存的最大消息字节数，不配置使用客户端默认值
+         */
+        private Integer maxCacheMessageSizeInBytes;
+
+        /**
+         * EXECUTOR和ORDERLY消费模式下同时处理中的最大消息数
+         */
+        private Integer maxInFlight = 1024;
+
+        /**
+         * ORDERLY消费模式的线程(分片)数，同一messageGroup的消息总在同一分片内顺序消费，不配置默认为CPU核数
+         */
+        private Integer stripes;
+
+        /**
+         * ORDERLY消费模式下每个分片排队的最大消息数，分片满时暂停拉取
+         */
+        private Integer stripeQueueCapacity = 256;
+
+        /**
+         * 消息去重配置，监听器通过@RocketMQMessageListener(deduplication = ...)开启
+         */
+        private Dedup dedup = new Dedup();
+
+        /**
+         * 消费流控配置
+         */
+        private FlowControl flowControl = new FlowControl();
+
+        /**
+         * 投递延迟统计配置
+         */
+        private Latency latency = new Latency();
+
+    }
+
+    @Data
+    public static class Latency {
+
+        /**
+         * 是否统计投递延迟，按发送端、broker、本地排队、监听器执行和端到端分段统计
+         */
+        private boolean enabled = false;
+
+        /**
+         * 采样比例，取值0到1
+         */
+        private double sampleRate = 0.1;
+
+        /**
+         * 统计结果的发布间隔，每次发布后重新统计
+         */
+        private Duration publishInterval = Duration.ofMinutes(1);
+
+    }
+
+    @Data
+    public static class FlowControl {
+
+        /**
+         * 每个监听器每秒最多消费的消息数，不配置或不大于0时不限速，超出时暂停拉取消息
+         */
+        private Double rateLimit;
+
+        /**
+         * 是否根据监听器的失败率和耗时自适应调整并发数(AIMD)
+         */
+        private boolean adaptiveConcurrency = false;
+
+        /**
+         * 自适应并发数的下限
+         */
+        private int minConcurrency = 1;
+
+        /**
+         * 并发数上限，不配置时PUSH模式使用消费线程数，其他模式使用maxInFlight
+         */
+        private Integer maxConcurrency;
+
+        /**
+         * 监听器耗时超过该值时按失败处理并降低并发数，不配置时只根据失败降低
+         */
+        private Duration latencyThreshold;
+
+        /**
+         * 降低并发数时乘以的系数
+         */
+        private double backoffRatio = 0.5;
+
+    }
+
+    @Data
+    public static class Dedup {
+
+        /**
+         * 每个监听容器本地缓存的最大消息key数，超出后淘汰最久未访问的key
+         */
+        private int capacity = 100000;
+
+        /**
+         * 已消费消息key的保留时间
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 本地缓存的分片数，分片之间互不加锁
+         */
+        private int shards = 16;
+
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * 是否开启批量发送，开启后sendNormalBatched按topic缓冲消息后批量发送
+         */
+        private boolean enabled = false;
+
+        /**
+         * 单个topic缓冲的最大消息条数，达到后立即发送
+         */
+        private int maxCount = 64;
+
+        /**
+         * 单个topic缓冲的最大消息体字节数，达到后立即发送
+         */
+        private int maxBytes = 256 * 1024;
+
+        /**
+         * 消息在缓冲区中的最长停留时间
+         */
+        private Duration linger = Duration.ofMillis(5);
+
+        /**
+         * 关闭时等待缓冲消息发送完成的最长时间
+         */
+        private Duration closeTimeout = Duration.ofSeconds(5);
+
+    }
+
+    @Data
+    public static class Startup {
+
+        /**
+         * 并行启动监听容器的最大线程数
+         */
+        private int parallelism = 8;
+
+        /**
+         * 所有监听容器启动的总超时时间
+         */
+        private Duration timeout = Duration.ofSeconds(60);
+
+        /**
+         * 容器启动失败或超时的处理策略，FAIL_FAST：应用启动失败，DEGRADE：记录错误后跳过失败的容器
+         */
+        private StartupFailurePolicy failurePolicy = StartupFailurePolicy.FAIL_FAST;
+
+    }
+
+    @Data
+    public static class Shutdown {
+
+        /**
+         * 容器停止时先停止拉取，等待已拉取消息消费并ack完成的最长时间，超时未完成的消息在不可见时间后重新投递，
+         * 应不大于spring.lifecycle.timeout-per-shutdown-phase(默认30秒)
+         */
+        private Duration timeout = Duration.ofSeconds(20);
+
+        /**
+         * 容器所在的SmartLifecycle阶段，同一阶段的容器并行停止，默认先于默认阶段的bean停止，producer在所有阶段停止后才关闭
+         */
+        private int phase = AbstractRocketMQListenerContainer.DEFAULT_PHASE;
+
+    }
+
+    @Data
+    public static class Embedded {
+
+        /**
+         * 是否使用内嵌内存broker代替proxy，开启后所有producer和consumer都连接到进程内broker，endpoints等配置仍需填写，可为任意值
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每次发送注入的延迟
+         */
+        private Duration sendLatency = Duration.ZERO;
+
+        /**
+         * 发送失败注入比例，取值0到1
+         */
+        private double sendFailureRate = 0;
+
+        /**
+         * ack失败注入比例，取值0到1
+         */
+        private double ackFailureRate = 0;
+
+        /**
+         * 最大投递次数，超过后消息进入死信
+         */
+        private int maxDeliveryAttempts = 16;
+
+        /**
+         * push消费失败后重新投递的延迟
+         */
+        private Duration redeliveryDelay = Duration.ofSeconds(1);
+
+        /**
+         * 事务半消息未提交或回滚时，发起事务回查的延迟
+         */
+        private Duration transactionCheckDelay = Duration.ofSeconds(5);
+
+    }
+
+    @Data
+    public static class Actuator {
+
+        /**
+         * 监听器吞吐量的统计窗口，吞吐量按最近一到两个窗口平均
+         */
+        private Duration throughputWindow = Duration.ofSeconds(10);
+
+        /**
+         * 监听器有在途消息但超过该时间没有消费完成任何消息时，判定为卡住，健康检查返回DOWN
+         */
+        private Duration stuckThreshold = Duration.ofMinutes(5);
+
+    }
+
+    @Data
+    public static class Reactive {
+
+        /**
+         * 批量发送(sendNormalMany等)时单个流最多同时在途的发送数，不超过producer.asyncMaxInFlight
+         */
+        private int concurrency = 256;
+
+        /**
+         * Flux消费每次receive最多拉取的消息数，实际拉取数不超过下游需求
+         */
+        private int receiveBatchSize = 16;
+
+        /**
+         * Flux消费拉取到的消息的不可见时间，超时未ack将重新投递
+         */
+        private Duration invisibleDuration = Duration.ofSeconds(30);
+
+        /**
+         * Flux消费长轮询等待时间
+         */
+        private Duration awaitDuration = Duration.ofSeconds(20);
+
+    }
+
+    @Data
+    public static class Transaction {
+
+        /**
+         * 事务producer共享范围，TOPIC：同一topic的事务监听共享producer，ENDPOINT：同一接入点的事务监听共享producer
+         */
+        private TransactionProducerScope producerScope = TransactionProducerScope.TOPIC;
+
+        /**
+         * 每个共享范围内的事务producer数量，事务按producer分散提交
+         */
+        private int producerPoolSize = 1;
+
+    }
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.xbd.rocketmq.client.autoconfigure;
+
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.reactive.ReactiveRocketMQTemplate;
+import com.xbd.rocketmq.client.support.RocketMQClientRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnClass(name = "reactor.core.publisher.Flux")
+public class RocketMQReactiveConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ReactiveRocketMQTemplate reactiveRocketMQTemplate(RocketMQTemplate rocketMQTemplate, RocketMQClientRegistry rocketMQClientRegistry,
+                                                             RocketMQProperties rocketMQProperties) {
+        RocketMQProperties.Reactive reactive = rocketMQProperties.getReactive();
+        ReactiveRocketMQTemplate template = new ReactiveRocketMQTemplate(rocketMQTemplate);
+        // more in flight than the template allows would only fail sends
+        int asyncMaxInFlight = rocketMQTemplate.getAsyncMaxInFlight();
+        template.setConcurrency(asyncMaxInFlight > 0 ? Math.min(reactive.getConcurrency(), asyncMaxInFlight) : reactive.getConcurrency());
+        template.setClientRegistry(rocketMQClientRegistry);
+        template.setEndpoints(rocketMQProperties.getEndpoints());
+        template.setClientConfiguration(rocketMQClientRegistry.getClientConfiguration(rocketMQProperties.getEndpoints(),
+                rocketMQProperties.getAccessKey(), rocketMQProperties.getSecretKey(), Duration.ofSeconds(rocketMQProperties.getRequestTimeout())));
+        template.setReceiveBatchSize(reactive.getReceiveBatchSize());
+        template.setInvisibleDuration(reactive.getInvisibleDuration());
+        template.setAwaitDuration(reactive.getAwaitDuration());
+        return template;
+    }
+
+}
@@ -2,6 +2,9 @@ package com.xbd.rocketmq.client.autoconfigure;
 
 import com.xbd.rocketmq.client.annotation.RocketMQTransactionListener;
 import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.support.RocketMQClientRegistry;
+import com.xbd.rocketmq.client.support.TransactionCheckerRouter;
+import com.xbd.rocketmq.client.support.TransactionProducerScope;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.client.apis.*;
 import org.apache.rocketmq.client.apis.producer.Producer;
@@ -16,7 +19,12 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.ConfigurableEnvironment;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Configuration
@@ -25,10 +33,11 @@ public class RocketMQTransactionConfiguration implements ApplicationContextAware
 
     private ConfigurableApplicationContext applicationContext;
     private final ConfigurableEnvironment environment;
-    final ClientServiceProvider provider = ClientServiceProvider.loadService();
+    private final RocketMQProperties rocketMQProperties;
 
-    public RocketMQTransactionConfiguration(ConfigurableEnvironment environment) {
+    public RocketMQTransactionConfiguration(ConfigurableEnvironment environment, RocketMQProperties rocketMQProperties) {
         this.environment = environment;
+        this.rocketMQProperties = rocketMQProperties;
     }
 
     @Override
@@ -42,43 +51,133 @@ public class RocketMQTransactionConfiguration implements ApplicationContextAware
             .entrySet().stream().filter(entry -> !ScopedProxyUtils.isScopedTarget(entry.getKey()))
             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
-        beans.forEach(this::registerTransactionListener);
+        Map<ProducerGroupKey, List<Registration>> groups = new LinkedHashMap<>();
+        beans.forEach((beanName, bean) -> {
+            Registration registration = toRegistration(beanName, bean);
+            groups.computeIfAbsent(registration.groupKey, key -> new ArrayList<>()).add(registration);
+        });
+        groups.forEach(this::registerTransactionProducers);
     }
 
-    private void registerTransactionListener(String beanName, Object bean) {
+    private Registration toRegistration(String beanName, Object bean) {
         Class<?> clazz = AopProxyUtils.ultimateTargetClass(bean);
 
         if (!TransactionChecker.class.isAssignableFrom(bean.getClass())) {
             throw new IllegalStateException(clazz + " is not instance of " + TransactionChecker.class.getName());
         }
         RocketMQTransactionListener annotation = clazz.getAnnotation(RocketMQTransactionListener.class);
-        String topic = annotation.topic();
-        String tag = annotation.tag();
-        String producerKey = String.format("%s_%s", topic, tag);
-        RocketMQTemplate rocketMQTemplate = (RocketMQTemplate) applicationContext.getBean(annotation.rocketMQTemplateBeanName());
-        if (rocketMQTemplate.transactionBeanIsExist(producerKey)) {
-            throw new IllegalStateException(annotation.rocketMQTemplateBeanName() + " already exists RocketMQLocalTransactionListener");
-        } else {
-            String accessKey = environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.accessKey()));
-            String secretKey = environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.secretKey()));
-            String endpoints = environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.endpoints()));
-            SessionCredentialsProvider sessionCredentialsProvider = new StaticSessionCredentialsProvider(accessKey, secretKey);
-            ClientConfiguration clientConfiguration = ClientConfiguration.newBuilder()
-                    .setEndpoints(endpoints)
-                    .setCredentialProvider(sessionCredentialsProvider)
-                    .build();
-            try {
-                Producer producer = provider.newProducerBuilder()
+        String accessKey = environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.accessKey()));
+        String secretKey = environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.secretKey()));
+        String endpoints = environment.resolvePlaceholders(environment.resolvePlaceholders(annotation.endpoints()));
+        String sharedTopic = rocketMQProperties.getTransaction().getProducerScope() == TransactionProducerScope.TOPIC ? annotation.topic() : null;
+        ProducerGroupKey groupKey = new ProducerGroupKey(annotation.rocketMQTemplateBeanName(), endpoints, accessKey, secretKey, sharedTopic);
+        return new Registration(beanName, (TransactionChecker) bean, annotation.topic(), annotation.tag(), groupKey);
+    }
+
+    /**
+     * One pool of producers serves all the listeners of the group, its checker hands the checks to them by topic and tag.
+     */
+    private void registerTransactionProducers(ProducerGroupKey groupKey, List<Registration> registrations) {
+        RocketMQTemplate rocketMQTemplate = (RocketMQTemplate) applicationContext.getBean(groupKey.templateBeanName);
+        Map<String, Map<String, TransactionChecker>> checkers = new HashMap<>();
+        for (Registration registration : registrations) {
+            Map<String, TransactionChecker> byTag = checkers.computeIfAbsent(registration.topic, topic -> new HashMap<>());
+            if (byTag.containsKey(registration.tag) || rocketMQTemplate.transactionProducerExists(registration.topic, registration.tag)) {
+                throw new IllegalStateException(groupKey.templateBeanName + " already exists RocketMQLocalTransactionListener");
+            }
+            byTag.put(registration.tag, registration.checker);
+        }
+        TransactionCheckerRouter checker = new TransactionCheckerRouter(checkers);
+        String[] topics = checkers.keySet().toArray(new String[0]);
+
+        RocketMQClientRegistry clientRegistry = applicationContext.getBean(RocketMQClientRegistry.class);
+        if (rocketMQTemplate.getClientRegistry() == RocketMQClientRegistry.getDefault()) {
+            // the template closes the producers, through the registry they count against
+            rocketMQTemplate.setClientRegistry(clientRegistry);
+        }
+        ClientConfiguration clientConfiguration = clientRegistry.getClientConfiguration(groupKey.endpoints, groupKey.accessKey, groupKey.secretKey, null);
+        Producer[] producers = new Producer[Math.max(1, rocketMQProperties.getTransaction().getProducerPoolSize())];
+        try {
+            for (int i = 0; i < producers.length; i++) {
+                producers[i] = clientRegistry.createClient(groupKey.endpoints, provider -> provider.newProducerBuilder()
                         .setClientConfiguration(clientConfiguration)
-                        .setTopics(topic)
-                        .setTransactionChecker((TransactionChecker)bean)
-                        .build();
-                rocketMQTemplate.addTransactionBean(producerKey, producer);
-            } catch (ClientException e) {
-                log.error("Build rocketmq transaction producer failed, beanName={}", beanName, e);
-                throw new IllegalStateException(beanName + "Build rocketmq transaction producer failed");
+                        .setTopics(topics)
+                        .setTransactionChecker(checker)
+                        .build());
             }
+        } catch (ClientException e) {
+            log.error("Build rocketmq transaction producer failed, beanNames={}", registrations, e);
+            throw new IllegalStateException(registrations + "Build rocketmq transaction producer failed");
+        }
+        for (Registration registration : registrations) {
+            rocketMQTemplate.addTransactionProducer(registration.topic, registration.tag, producers);
+            log.debug("RocketMQLocalTransactionListener {} register to {} success", registration.beanName, groupKey.templateBeanName);
+        }
+    }
+
+    private static final class Registration {
+
+        private final String beanName;
+
+        private final TransactionChecker checker;
+
+        private final String topic;
+
+        private final String tag;
+
+        private final ProducerGroupKey groupKey;
+
+        private Registration(String beanName, TransactionChecker checker, String topic, String tag, ProducerGroupKey groupKey) {
+            this.beanName = beanName;
+            this.checker = checker;
+            this.topic = topic;
+            this.tag = tag;
+            this.groupKey = groupKey;
+        }
+
+        @Override
+        public String toString() {
+            return beanName;
+        }
+    }
+
+    private static final class ProducerGroupKey {
+
+        private final String templateBeanName;
+
+        private final String endpoints;
+
+        private final String accessKey;
+
+        private final String secretKey;
+
+        private final String topic;
+
+        private ProducerGroupKey(String templateBeanName, String endpoints, String accessKey, String secretKey, String topic) {
+            this.templateBeanName = templateBeanName;
+            this.endpoints = endpoints;
+            this.accessKey = accessKey;
+            this.secretKey = secretKey;
+            this.topic = topic;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProducerGroupKey)) {
+                return false;
+            }
+            ProducerGroupKey that = (ProducerGroupKey) o;
+            return templateBeanName.equals(that.templateBeanName) && Objects.equals(endpoints, that.endpoints)
+                && Objects.equals(accessKey, that.accessKey) && Objects.equals(secretKey, that.secretKey)
+                && Objects.equals(topic, that.topic);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(templateBeanName, endpoints, accessKey, secretKey, topic);
         }
-        log.debug("RocketMQLocalTransactionListener {} register to {} success", clazz.getName(), annotation.rocketMQTemplateBeanName());
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.compression;
+
+public enum CompressionType {
+
+    /**
+     * JDK deflate in the gzip format, always available.
+     */
+    GZIP("gzip", null),
+
+    /**
+     * Fastest, needs org.lz4:lz4-java.
+     */
+    LZ4("lz4", "net.jpountz.lz4.LZ4Factory"),
+
+    /**
+     * Best ratio for its speed, needs com.github.luben:zstd-jni.
+     */
+    ZSTD("zstd", "com.github.luben.zstd.Zstd");
+
+    private final String encoding;
+
+    private final String requiredClass;
+
+    CompressionType(String encoding, String requiredClass) {
+        this.encoding = encoding;
+        this.requiredClass = requiredClass;
+    }
+
+    /**
+     * Value of the content encoding property of the messages compressed with this type.
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    String getRequiredClass() {
+        return requiredClass;
+    }
+
+    public static CompressionType fromEncoding(String encoding) {
+        for (CompressionType type : values()) {
+            if (type.encoding.equals(encoding)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.compression;
+
+import org.apache.rocketmq.client.apis.message.MessageId;
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Hands the decompressed body to the listener, everything else comes from the received view, which is also the
+ * one to ack.
+ */
+public class DecompressedMessageView implements MessageView {
+
+    private final MessageView delegate;
+
+    private final ByteBuffer body;
+
+    DecompressedMessageView(MessageView delegate, ByteBuffer body) {
+        this.delegate = delegate;
+        this.body = body;
+    }
+
+    public MessageView getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public MessageId getMessageId() {
+        return delegate.getMessageId();
+    }
+
+    @Override
+    public String getTopic() {
+        return delegate.getTopic();
+    }
+
+    @Override
+    public ByteBuffer getBody() {
+        return body.duplicate();
+    }
+
+    @Override
+    public Map<String, String> getProperties() {
+        return delegate.getProperties();
+    }
+
+    @Override
+    public Optional<String> getTag() {
+        return delegate.getTag();
+    }
+
+    @Override
+    public Collection<String> getKeys() {
+        return delegate.getKeys();
+    }
+
+    @Override
+    public Optional<String> getMessageGroup() {
+        return delegate.getMessageGroup();
+    }
+
+    @Override
+    public Optional<Long> getDeliveryTimestamp() {
+        return delegate.getDeliveryTimestamp();
+    }
+
+    @Override
+    public String getBornHost() {
+        return delegate.getBornHost();
+    }
+
+    @Override
+    public long getBornTimestamp() {
+        return delegate.getBornTimestamp();
+    }
+
+    @Override
+    public int getDeliveryAttempt() {
+        return delegate.getDeliveryAttempt();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.compression;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Writes the gzip member format (RFC 1952) around raw deflate with a Deflater and Inflater reused per thread,
+ * GZIPOutputStream would allocate both, and their native buffers, per message.
+ */
+final class GzipCompressor implements Compressor {
+
+    private static final int HEADER_LENGTH = 10;
+
+    private static final int TRAILER_LENGTH = 8;
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final ThreadLocal<Deflater> deflaters;
+
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    GzipCompressor(int level) {
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level, true));
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        // the conservative deflateBound of zlib
+        return HEADER_LENGTH + length + ((length + 7) >> 3) + ((length + 63) >> 6) + 11 + TRAILER_LENGTH;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset, int dstLength) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(src, srcOffset, length);
+        deflater.finish();
+        System.arraycopy(HEADER, 0, dst, dstOffset, HEADER_LENGTH);
+        int position = dstOffset + HEADER_LENGTH;
+        int end = dstOffset + dstLength - TRAILER_LENGTH;
+        while (!deflater.finished()) {
+            if (position >= end) {
+                throw new IllegalStateException("Compressed data does not fit the buffer");
+            }
+            position += deflater.deflate(dst, position, end - position);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(src, srcOffset, length);
+        writeIntLE(dst, position, (int) crc.getValue());
+        writeIntLE(dst, position + 4, length);
+        return position + TRAILER_LENGTH - dstOffset;
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOffset, int length, byte[] dst, int originalLength) {
+        if (length < HEADER_LENGTH + TRAILER_LENGTH || src[srcOffset] != HEADER[0] || src[srcOffset + 1] != HEADER[1]
+                || src[srcOffset + 3] != 0) {
+            throw new IllegalStateException("Not a gzip body written by MessageCompression");
+        }
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(src, srcOffset + HEADER_LENGTH, length - HEADER_LENGTH - TRAILER_LENGTH);
+        try {
+            int position = 0;
+            while (position < originalLength && !inflater.finished()) {
+                int inflated = inflater.inflate(dst, position, originalLength - position);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                position += inflated;
+            }
+            if (position != originalLength) {
+                throw new IllegalStateException("Gzip body inflated to " + position + " bytes, expected " + originalLength);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt gzip body", e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(dst, 0, originalLength);
+        if ((int) crc.getValue() != readIntLE(src, srcOffset + length - TRAILER_LENGTH)) {
+            throw new IllegalStateException("Gzip body checksum mismatch");
+        }
+    }
+
+    private static void writeIntLE(byte[] dst, int offset, int value) {
+        dst[offset] = (byte) value;
+        dst[offset + 1] = (byte) (value >>> 8);
+        dst[offset + 2] = (byte) (value >>> 16);
+        dst[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static int readIntLE(byte[] src, int offset) {
+        return (src[offset] & 0xff) | (src[offset + 1] & 0xff) << 8 | (src[offset + 2] & 0xff) << 16 | (src[offset + 3] & 0xff) << 24;
+    }
+
+}
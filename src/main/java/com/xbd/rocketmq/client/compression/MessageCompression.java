@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.compression;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.springframework.util.ClassUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compresses message bodies above the size threshold of their topic and marks them with the
+ * {@link #CONTENT_ENCODING_PROPERTY} and {@link #ORIGINAL_LENGTH_PROPERTY} user properties. Consumers decompress
+ * every known encoding they find, whatever the producer side configuration, and pass bodies of unknown encodings
+ * on as they are. Compression runs in a scratch buffer kept per thread, only the exact size body retained by the
+ * message is allocated.
+ */
+@Slf4j
+public class MessageCompression {
+
+    /**
+     * Namespaced like {@link com.xbd.rocketmq.client.converter.MessageConverter#CONTENT_TYPE_PROPERTY}, so it does
+     * not clash with a property other producers may set on the same topic.
+     */
+    public static final String CONTENT_ENCODING_PROPERTY = "rocketmq.contentEncoding";
+
+    public static final String ORIGINAL_LENGTH_PROPERTY = "rocketmq.originalLength";
+
+    /**
+     * larger scratch buffers are not kept after use
+     */
+    private static final int MAX_RETAINED_SCRATCH = 8 * 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<>();
+
+    private static final Map<CompressionType, Compressor> DECOMPRESSORS = Collections.synchronizedMap(new EnumMap<>(CompressionType.class));
+
+    private final CompressionType type;
+
+    private final Compressor compressor;
+
+    private final int threshold;
+
+    private final Map<String, Integer> topicThresholds;
+
+    /**
+     * @param level codec specific level, the codec default if not positive
+     * @param threshold bodies of at least this many bytes are compressed
+     * @param topicThresholds thresholds by topic overriding the default one, a negative threshold turns compression off
+     */
+    public MessageCompression(CompressionType type, int level, int threshold, Map<String, Integer> topicThresholds) {
+        checkAvailable(type);
+        this.type = type;
+        this.compressor = newCompressor(type, level);
+        this.threshold = threshold;
+        this.topicThresholds = Collections.unmodifiableMap(new HashMap<>(topicThresholds));
+    }
+
+    /**
+     * @return the compressed body, null if the body stays as is because it is under the threshold of the topic
+     * or does not get smaller
+     */
+    public byte[] compress(String topic, byte[] body) {
+        int topicThreshold = topicThresholds.isEmpty() ? threshold : topicThresholds.getOrDefault(topic, threshold);
+        if (topicThreshold < 0 || body.length < topicThreshold) {
+            return null;
+        }
+        int maxLength = compressor.maxCompressedLength(body.length);
+        byte[] scratch = scratch(maxLength);
+        int length = compressor.compress(body, 0, body.length, scratch, 0, maxLength);
+        if (length >= body.length) {
+            return null;
+        }
+        return Arrays.copyOf(scratch, length);
+    }
+
+    public CompressionType getType() {
+        return type;
+    }
+
+    /**
+     * The view itself if its body is not compressed or its encoding is unknown, otherwise a view of the
+     * decompressed body.
+     */
+    public static MessageView decompress(MessageView messageView) {
+        Map<String, String> properties = messageView.getProperties();
+        String encoding = properties.get(CONTENT_ENCODING_PROPERTY);
+        if (encoding == null) {
+            return messageView;
+        }
+        if (CompressionType.fromEncoding(encoding) == null) {
+            log.debug("Pass on message of unknown content encoding {} undecoded, messageId={}", encoding, messageView.getMessageId());
+            return messageView;
+        }
+        String originalLength = properties.get(ORIGINAL_LENGTH_PROPERTY);
+        if (originalLength == null) {
+            throw new IllegalStateException("Compressed message without " + ORIGINAL_LENGTH_PROPERTY + " property, messageId="
+                    + messageView.getMessageId());
+        }
+        return new DecompressedMessageView(messageView, decompress(encoding, messageView.getBody(), Integer.parseInt(originalLength)));
+    }
+
+    public static ByteBuffer decompress(String encoding, ByteBuffer body, int originalLength) {
+        CompressionType type = CompressionType.fromEncoding(encoding);
+        if (type == null) {
+            throw new IllegalStateException("Unknown message content encoding " + encoding);
+        }
+        Compressor decompressor = DECOMPRESSORS.computeIfAbsent(type, t -> {
+            checkAvailable(t);
+            return newCompressor(t, 0);
+        });
+        byte[] src;
+        int offset;
+        int length = body.remaining();
+        if (body.hasArray()) {
+            src = body.array();
+            offset = body.arrayOffset() + body.position();
+        } else {
+            src = scratch(length);
+            offset = 0;
+            body.duplicate().get(src, 0, length);
+        }
+        byte[] original = new byte[originalLength];
+        decompressor.decompress(src, offset, length, original, originalLength);
+        return ByteBuffer.wrap(original).asReadOnlyBuffer();
+    }
+
+    private static byte[] scratch(int length) {
+        byte[] scratch = SCRATCH.get();
+        if (scratch != null && scratch.length >= length) {
+            return scratch;
+        }
+        scratch = new byte[length];
+        if (length <= MAX_RETAINED_SCRATCH) {
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+
+    private static void checkAvailable(CompressionType type) {
+        if (type.getRequiredClass() != null && !ClassUtils.isPresent(type.getRequiredClass(), MessageCompression.class.getClassLoader())) {
+            throw new IllegalStateException(type + " compression needs " + type.getRequiredClass() + " on the classpath");
+        }
+    }
+
+    private static Compressor newCompressor(CompressionType type, int level) {
+        switch (type) {
+            case LZ4:
+                return new Lz4Compressor(level);
+            case ZSTD:
+                return new ZstdCompressor(level);
+            default:
+                return new GzipCompressor(level > 0 ? level : -1);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+
+/**
+ * Zstd frames written and read through native contexts reused per thread.
+ */
+final class ZstdCompressor implements Compressor {
+
+    private static final int DEFAULT_LEVEL = 3;
+
+    private final ThreadLocal<ZstdCompressCtx> compressContexts;
+
+    private final ThreadLocal<ZstdDecompressCtx> decompressContexts = ThreadLocal.withInitial(ZstdDecompressCtx::new);
+
+    ZstdCompressor(int level) {
+        int effectiveLevel = level > 0 ? level : DEFAULT_LEVEL;
+        this.compressContexts = ThreadLocal.withInitial(() -> new ZstdCompressCtx().setLevel(effectiveLevel));
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return (int) Zstd.compressBound(length);
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset, int dstLength) {
+        return compressContexts.get().compressByteArray(dst, dstOffset, dstLength, src, srcOffset, length);
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOffset, int length, byte[] dst, int originalLength) {
+        int written = decompressContexts.get().decompressByteArray(dst, 0, originalLength, src, srcOffset, length);
+        if (written != originalLength) {
+            throw new IllegalStateException("Zstd body decompressed to " + written + " bytes, expected " + originalLength);
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.converter;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for converters that parse from a byte array. Bodies of received messages are
+ * read-only buffers without an accessible array, so they are copied into a per-thread scratch
+ * array instead of a new byte[] per message.
+ */
+public abstract class AbstractMessageConverter implements MessageConverter {
+
+    private static final int MAX_CACHED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> SCRATCH_BUFFER = ThreadLocal.withInitial(() -> new byte[8 * 1024]);
+
+    @Override
+    public Object fromMessageBody(ByteBuffer body, Type targetType) {
+        return readBody(body, (bytes, offset, length) -> read(bytes, offset, length, targetType));
+    }
+
+    /**
+     * Implementations must not keep a reference to the given array, it is reused for the next message.
+     */
+    protected abstract Object read(byte[] bytes, int offset, int length, Type targetType);
+
+    protected static Object readBody(ByteBuffer body, BodyReader reader) {
+        int length = body.remaining();
+        if (body.hasArray()) {
+            return reader.read(body.array(), body.arrayOffset() + body.position(), length);
+        }
+        byte[] buffer = scratchBuffer(length);
+        body.duplicate().get(buffer, 0, length);
+        return reader.read(buffer, 0, length);
+    }
+
+    private static byte[] scratchBuffer(int length) {
+        if (length > MAX_CACHED_BUFFER_SIZE) {
+            return new byte[length];
+        }
+        byte[] buffer = SCRATCH_BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.min(MAX_CACHED_BUFFER_SIZE, Math.max(length, buffer.length * 2))];
+            SCRATCH_BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
+    @FunctionalInterface
+    protected interface BodyReader {
+        Object read(byte[] bytes, int offset, int length);
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.converter;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+/**
+ * Raw bodies, accepts byte[] and ByteBuffer payloads. Decoding to ByteBuffer hands out a
+ * read-only view of the received body without copying it.
+ */
+public class ByteBufferMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean supports(Object payload) {
+        return payload instanceof byte[] || payload instanceof ByteBuffer;
+    }
+
+    @Override
+    public byte[] toMessageBody(Object payload) {
+        if (payload instanceof byte[]) {
+            return (byte[]) payload;
+        }
+        ByteBuffer buffer = ((ByteBuffer) payload).duplicate();
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public Object fromMessageBody(ByteBuffer body, Type targetType) {
+        if (targetType == ByteBuffer.class || targetType == Object.class) {
+            return body.asReadOnlyBuffer();
+        }
+        if (targetType == byte[].class) {
+            byte[] bytes = new byte[body.remaining()];
+            body.duplicate().get(bytes);
+            return bytes;
+        }
+        throw new MessageConversionException("Cannot convert " + CONTENT_TYPE + " body to " + targetType.getTypeName());
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.converter;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializeConfig;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.reader.ObjectReader;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON text bodies, the default wire format of the starter.
+ */
+public class JsonMessageConverter extends AbstractMessageConverter {
+
+    public static final String CONTENT_TYPE = "application/json";
+
+    private final JSONWriter.Context writeContext = JSON.createWriteContext(SerializeConfig.global, JSON.DEFAULT_GENERATE_FEATURE);
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean supports(Object payload) {
+        return payload != null;
+    }
+
+    /**
+     * Writes like {@link JSON#toJSONBytes(Object)} with the write context created once. The writer serializes into
+     * the byte buffer fastjson2 caches per thread, the body is the one copy taken out of it.
+     */
+    @Override
+    public byte[] toMessageBody(Object payload) {
+        try (JSONWriter writer = JSONWriter.ofUTF8(writeContext)) {
+            writer.setRootObject(payload);
+            writeContext.getObjectWriter(payload.getClass(), payload.getClass()).write(writer, payload, null, null, 0);
+            return writer.getBytes();
+        } catch (JSONException e) {
+            throw new MessageConversionException("Cannot write " + payload.getClass().getName() + " as " + CONTENT_TYPE, e);
+        }
+    }
+
+    @Override
+    protected Object read(byte[] bytes, int offset, int length, Type targetType) {
+        return JSON.parseObject(bytes, offset, length, StandardCharsets.UTF_8, targetType);
+    }
+
+    /**
+     * Parses like {@link JSON#parseObject(byte[], int, int, java.nio.charset.Charset, Type, com.alibaba.fastjson.parser.Feature...)}
+     * with the read context and the object reader of the type created once instead of per message.
+     */
+    @Override
+    public MessageBodyDecoder decoderFor(Type targetType) {
+        JSONReader.Context readContext = JSON.createReadContext(JSON.DEFAULT_PARSER_FEATURE);
+        ObjectReader<?> objectReader = readContext.getObjectReader(targetType);
+        BodyReader bodyReader = (bytes, offset, length) -> {
+            try (JSONReader reader = JSONReader.of(bytes, offset, length, StandardCharsets.UTF_8, readContext)) {
+                Object object = objectReader.readObject(reader, targetType, null, 0);
+                if (object != null) {
+                    reader.handleResolveTasks(object);
+                }
+                return object;
+            }
+        };
+        return body -> readBody(body, bodyReader);
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.converter;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts payloads to message bodies and back. The content type of the converter is written
+ * to the {@link #CONTENT_TYPE_PROPERTY} user property, so consumers can pick the matching converter.
+ */
+public interface MessageConverter {
+
+    /**
+     * Namespaced so it does not clash with a generic property other producers may set on the same topic.
+     */
+    String CONTENT_TYPE_PROPERTY = "rocketmq.contentType";
+
+    String getContentType();
+
+    boolean supports(Object payload);
+
+    byte[] toMessageBody(Object payload);
+
+    Object fromMessageBody(ByteBuffer body, Type targetType);
+
+    /**
+     * A decoder bound to the target type, converters override it to resolve type metadata once.
+     */
+    default MessageBodyDecoder decoderFor(Type targetType) {
+        return body -> fromMessageBody(body, targetType);
+    }
+
+}
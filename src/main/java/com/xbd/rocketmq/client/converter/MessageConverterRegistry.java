@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.converter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converters by content type, used to pick the decoder of a received message from its
+ * {@link MessageConverter#CONTENT_TYPE_PROPERTY} user property.
+ */
+@Slf4j
+public class MessageConverterRegistry {
+
+    private static final boolean PROTOBUF_PRESENT = ClassUtils.isPresent("com.google.protobuf.MessageLite", MessageConverterRegistry.class.getClassLoader());
+
+    private final Map<String, MessageConverter> converters;
+
+    public MessageConverterRegistry(Collection<? extends MessageConverter> converters) {
+        Map<String, MessageConverter> map = new LinkedHashMap<>();
+        for (MessageConverter converter : converters) {
+            map.put(converter.getContentType(), converter);
+        }
+        this.converters = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Built-in converters, overridden by the given ones with the same content type.
+     */
+    public static MessageConverterRegistry withDefaults(Collection<? extends MessageConverter> converters) {
+        List<MessageConverter> all = new ArrayList<>();
+        all.add(new StringMessageConverter());
+        all.add(new ByteBufferMessageConverter());
+        all.add(new JsonMessageConverter());
+        all.add(new JsonbMessageConverter());
+        if (PROTOBUF_PRESENT) {
+            all.add(new ProtobufMessageConverter());
+        }
+        all.addAll(converters);
+        return new MessageConverterRegistry(all);
+    }
+
+    public MessageConverter getConverter(String contentType) {
+        return contentType == null ? null : converters.get(contentType);
+    }
+
+    public Collection<MessageConverter> getConverters() {
+        return converters.values();
+    }
+
+    /**
+     * The converter matching the content type of the message, or the fallback if the message has none or one
+     * without a registered converter.
+     */
+    public MessageConverter resolve(MessageView messageView, MessageConverter fallback) {
+        String contentType = messageView.getProperties().get(MessageConverter.CONTENT_TYPE_PROPERTY);
+        if (contentType == null) {
+            return fallback;
+        }
+        MessageConverter converter = converters.get(contentType);
+        if (converter == null) {
+            log.debug("No converter registered for content type {}, using {}", contentType, fallback.getContentType());
+            return fallback;
+        }
+        return converter;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T fromMessage(MessageView messageView, Type targetType, MessageConverter fallback) {
+        return (T) resolve(messageView, fallback).fromMessageBody(messageView.getBody(), targetType);
+    }
+
+}
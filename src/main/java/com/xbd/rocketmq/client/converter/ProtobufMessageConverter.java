@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.converter;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protobuf bodies, the parser of every message class is looked up once and cached.
+ */
+public class ProtobufMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-protobuf";
+
+    private final Map<Class<?>, Parser<?>> parsers = new ConcurrentHashMap<>();
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean supports(Object payload) {
+        return payload instanceof MessageLite;
+    }
+
+    @Override
+    public byte[] toMessageBody(Object payload) {
+        return ((MessageLite) payload).toByteArray();
+    }
+
+    @Override
+    public Object fromMessageBody(ByteBuffer body, Type targetType) {
+        try {
+            return getParser(ResolvableType.forType(targetType).resolve(Object.class)).parseFrom(body.duplicate());
+        } catch (InvalidProtocolBufferException e) {
+            throw new MessageConversionException("Invalid protobuf body for " + targetType.getTypeName(), e);
+        }
+    }
+
+    @Override
+    public MessageBodyDecoder decoderFor(Type targetType) {
+        Class<?> messageClass = ResolvableType.forType(targetType).resolve(Object.class);
+        if (!MessageLite.class.isAssignableFrom(messageClass)) {
+            return body -> {
+                throw new MessageConversionException("Cannot convert " + CONTENT_TYPE + " body to " + targetType.getTypeName());
+            };
+        }
+        Parser<?> parser = getParser(messageClass);
+        return body -> {
+            try {
+                return parser.parseFrom(body.duplicate());
+            } catch (InvalidProtocolBufferException e) {
+                throw new MessageConversionException("Invalid protobuf body for " + targetType.getTypeName(), e);
+            }
+        };
+    }
+
+    public Parser<?> getParser(Class<?> messageClass) {
+        return parsers.computeIfAbsent(messageClass, clazz -> {
+            if (!MessageLite.class.isAssignableFrom(clazz)) {
+                throw new MessageConversionException(clazz.getName() + " is not a protobuf message");
+            }
+            try {
+                return ((MessageLite) clazz.getMethod("getDefaultInstance").invoke(null)).getParserForType();
+            } catch (ReflectiveOperationException e) {
+                throw new MessageConversionException("Cannot resolve protobuf parser of " + clazz.getName(), e);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.converter;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class StringMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = "text/plain";
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean supports(Object payload) {
+        return payload instanceof String;
+    }
+
+    @Override
+    public byte[] toMessageBody(Object payload) {
+        return ((String) payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Object fromMessageBody(ByteBuffer body, Type targetType) {
+        if (targetType != String.class && targetType != Object.class) {
+            throw new MessageConversionException("Cannot convert " + CONTENT_TYPE + " body to " + targetType.getTypeName());
+        }
+        return StandardCharsets.UTF_8.decode(body.duplicate()).toString();
+    }
+
+}
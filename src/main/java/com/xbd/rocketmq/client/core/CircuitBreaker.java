@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+/**
+ * Count based circuit breaker: opens once the failure ratio of the last sends crosses the threshold, fails fast
+ * while open, then lets a single probe through and closes again if the probe succeeds.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final long openNanos;
+
+    private final boolean[] window;
+
+    private int index;
+
+    private int calls;
+
+    private int failures;
+
+    private State state = State.CLOSED;
+
+    private long openUntilNanos;
+
+    private boolean probing;
+
+    /**
+     * Bumped on every state change, results of sends acquired under an earlier state are ignored.
+     */
+    private long generation;
+
+    public CircuitBreaker(SendPolicy policy) {
+        this.failureRateThreshold = policy.getFailureRateThreshold();
+        this.window = new boolean[Math.max(1, policy.getSlidingWindowSize())];
+        this.minimumCalls = Math.min(Math.max(1, policy.getMinimumCalls()), window.length);
+        this.openNanos = policy.getOpenDuration().toNanos();
+    }
+
+    /**
+     * Null if the send must fail fast. In the half open state only one caller at a time gets a permit, the probe.
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                return null;
+            }
+            transition(State.HALF_OPEN);
+            probing = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                return null;
+            }
+            probing = true;
+        }
+        return new Permit(generation);
+    }
+
+    /**
+     * Records the outcome of a send acquired with the permit.
+     *
+     * @return the new state if the outcome changed it, null otherwise
+     */
+    public synchronized State onResult(Permit permit, boolean failure) {
+        if (permit.generation != generation) {
+            // a send acquired before the state changed, e.g. before the breaker opened
+            return null;
+        }
+        if (state == State.HALF_OPEN) {
+            probing = false;
+            if (failure) {
+                return open();
+            }
+            transition(State.CLOSED);
+            reset();
+            return State.CLOSED;
+        }
+        if (calls == window.length) {
+            if (window[index]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % window.length;
+        if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+            return open();
+        }
+        return null;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private State open() {
+        transition(State.OPEN);
+        openUntilNanos = System.nanoTime() + openNanos;
+        reset();
+        return State.OPEN;
+    }
+
+    private void transition(State state) {
+        this.state = state;
+        generation++;
+    }
+
+    private void reset() {
+        index = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    /**
+     * Ties the result of a send to the state it was acquired under.
+     */
+    public static final class Permit {
+
+        private final long generation;
+
+        private Permit(long generation) {
+            this.generation = generation;
+        }
+    }
+
+}
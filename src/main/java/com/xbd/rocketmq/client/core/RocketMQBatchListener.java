@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.util.List;
+
+/**
+ * Listener receiving the messages of one receive call as a batch, consumed through a SimpleConsumer.
+ */
+public interface RocketMQBatchListener {
+
+    /**
+     * Messages can be acked one by one through the acknowledgment. Returning SUCCESS acks the rest of
+     * the batch, FAILURE leaves them to be redelivered once their invisible duration expires.
+     */
+    ConsumeResult consume(List<MessageView> messages, BatchAcknowledgment acknowledgment);
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Buffers messages per topic and publishes them as a pipelined burst of async sends
+ * once the count, size or linger threshold of the topic buffer is reached.
+ * Every caller gets its own future, completed by the send of its own message.
+ */
+@Slf4j
+public class RocketMQBatchPublisher {
+
+    private final RocketMQTemplate rocketMQTemplate;
+
+    private final int maxBatchCount;
+
+    private final int maxBatchBytes;
+
+    private final long lingerNanos;
+
+    private final Map<String, TopicBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService lingerScheduler;
+
+    private volatile boolean closed;
+
+    public RocketMQBatchPublisher(RocketMQTemplate rocketMQTemplate, int maxBatchCount, int maxBatchBytes, Duration linger) {
+        this.rocketMQTemplate = rocketMQTemplate;
+        this.maxBatchCount = Math.max(1, maxBatchCount);
+        this.maxBatchBytes = Math.max(1, maxBatchBytes);
+        this.lingerNanos = linger.toNanos();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "RocketMQBatchPublisher-linger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.lingerScheduler = scheduler;
+    }
+
+    public CompletableFuture<SendReceipt> publish(Message message) {
+        CompletableFuture<SendReceipt> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException("RocketMQBatchPublisher is closed"));
+            return future;
+        }
+        TopicBuffer buffer = buffers.computeIfAbsent(message.getTopic(), topic -> new TopicBuffer());
+        List<PendingMessage> batch = buffer.add(new PendingMessage(message, future));
+        if (batch == null && closed) {
+            // raced with close(), do not leave the message behind in the buffer
+            batch = buffer.drain();
+        }
+        if (batch != null) {
+            send(batch);
+        }
+        return future;
+    }
+
+    /**
+     * Sends everything buffered so far, the returned future completes once all of those sends have completed.
+     */
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<SendReceipt>> sends = new ArrayList<>();
+        for (TopicBuffer buffer : buffers.values()) {
+            List<PendingMessage> batch = buffer.drain();
+            if (batch != null) {
+                send(batch);
+                batch.forEach(pending -> sends.add(pending.future));
+            }
+        }
+        return CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Stops accepting messages and waits up to the given timeout for the buffered ones to be sent.
+     */
+    public void close(Duration timeout) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        lingerScheduler.shutdownNow();
+        try {
+            flush().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out flushing buffered messages after {}", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Some buffered messages failed to send on close", e);
+        }
+    }
+
+    private void send(List<PendingMessage> batch) {
+        for (PendingMessage pending : batch) {
+            rocketMQTemplate.sendMessageAsync(pending.message).whenComplete((receipt, t) -> {
+                if (t != null) {
+                    pending.future.completeExceptionally(t);
+                } else {
+                    pending.future.complete(receipt);
+                }
+            });
+        }
+    }
+
+    private void scheduleLinger(TopicBuffer buffer) {
+        try {
+            buffer.lingerTask = lingerScheduler.schedule(() -> {
+                List<PendingMessage> batch = buffer.drain();
+                if (batch != null) {
+                    send(batch);
+                }
+            }, lingerNanos, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            // scheduler already shut down by close(), the final flush picks the messages up
+            log.debug("Linger flush not scheduled", e);
+        }
+    }
+
+    private final class TopicBuffer {
+
+        private List<PendingMessage> pending = new ArrayList<>();
+
+        private int bytes;
+
+        private ScheduledFuture<?> lingerTask;
+
+        synchronized List<PendingMessage> add(PendingMessage message) {
+            pending.add(message);
+            bytes += message.message.getBody().remaining();
+            if (pending.size() >= maxBatchCount || bytes >= maxBatchBytes) {
+                return drain();
+            }
+            if (pending.size() == 1) {
+                scheduleLinger(this);
+            }
+            return null;
+        }
+
+        synchronized List<PendingMessage> drain() {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            if (lingerTask != null) {
+                lingerTask.cancel(false);
+                lingerTask = null;
+            }
+            List<PendingMessage> batch = pending;
+            pending = new ArrayList<>(Math.min(batch.size(), maxBatchCount));
+            bytes = 0;
+            return batch;
+        }
+    }
+
+    private static final class PendingMessage {
+
+        private final Message message;
+
+        private final CompletableFuture<SendReceipt> future;
+
+        private PendingMessage(Message message, CompletableFuture<SendReceipt> future) {
+            this.message = message;
+            this.future = future;
+        }
+    }
+
+}
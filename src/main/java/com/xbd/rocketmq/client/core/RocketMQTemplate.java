@@ -18,9 +18,18 @@
 package com.xbd.rocketmq.client.core;
 
 
+import com.xbd.rocketmq.client.compression.MessageCompression;
+import com.xbd.rocketmq.client.converter.MessageConverter;
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import com.xbd.rocketmq.client.metrics.SendDecision;
+import com.xbd.rocketmq.client.metrics.SendType;
+import com.xbd.rocketmq.client.outbox.OutboxSendReceipt;
+import com.xbd.rocketmq.client.outbox.RocketMQOutbox;
+import com.xbd.rocketmq.client.support.RocketMQClientRegistry;
 import com.xbd.rocketmq.client.support.RocketMQUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.message.Message;
 import org.apache.rocketmq.client.apis.producer.Producer;
 import org.apache.rocketmq.client.apis.producer.SendReceipt;
 import org.apache.rocketmq.client.apis.producer.Transaction;
@@ -28,8 +37,25 @@ import org.springframework.beans.factory.DisposableBean;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 @Slf4j
 public class RocketMQTemplate implements DisposableBean {
@@ -40,94 +66,525 @@ public class RocketMQTemplate implements DisposableBean {
     private Producer producer;
 
     /**
-     * transaction producer map
+     * converter for payloads other than String, byte[] and ByteBuffer
      */
-    private final static Map<String, Producer> TRANSACTION_PRODUCER_MAP = new ConcurrentHashMap<>();
+    private MessageConverter messageConverter = RocketMQUtil.DEFAULT_MESSAGE_CONVERTER;
+
+    /**
+     * pooled transaction producers by topic then tag, replaced as a whole on registration so lookups need no locking
+     */
+    private volatile Map<String, Map<String, Producer[]>> transactionProducers = Collections.emptyMap();
+
+    /**
+     * executor the async send futures are completed on, null means the client callback thread
+     */
+    private Executor asyncSendExecutor;
+
+    /**
+     * max in-flight async sends, no limit if less than or equal to 0
+     */
+    private int asyncMaxInFlight;
+
+    private Semaphore asyncSendPermits;
+
+    /**
+     * the client has no async transactional send, so it runs here when no asyncSendExecutor is set
+     */
+    private volatile ExecutorService transactionSendExecutor;
+
+    /**
+     * batching publisher for sendNormalBatched, null if batching is disabled
+     */
+    private RocketMQBatchPublisher batchPublisher;
+
+    private Duration batchCloseTimeout = Duration.ofSeconds(5);
+
+    private RocketMQMetrics metrics = RocketMQMetrics.NOOP;
+
+    /**
+     * retry, hedging and circuit breaking of the non transactional sends, null if no send policy is configured
+     */
+    private SendPolicyExecutor sendPolicyExecutor;
+
+    /**
+     * compression of large bodies, null if disabled
+     */
+    private MessageCompression compression;
+
+    /**
+     * takes the non transactional messages without message group the broker could not, null if the outbox is disabled
+     */
+    private RocketMQOutbox outbox;
+
+    private Duration outboxCloseTimeout = Duration.ofSeconds(5);
+
+    private final LongAdder sendSuccessCount = new LongAdder();
+
+    private final LongAdder sendFailureCount = new LongAdder();
+
+    /**
+     * stamps the send timestamp property the consumer side delivery latency is measured from
+     */
+    private boolean sendTimestamp = true;
+
+    /**
+     * registry the producers were created with, they are closed through it so their client slots are given back
+     */
+    private RocketMQClientRegistry clientRegistry = RocketMQClientRegistry.getDefault();
 
     public <T> SendReceipt sendNormal(String topic, T payload) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, null, null, null));
+        return doSend(SendType.NORMAL, null, toMessage(topic, payload, null, null, null));
     }
 
     public <T> SendReceipt sendNormal(String topic, T payload, String tag) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, null, null, tag));
+        return doSend(SendType.NORMAL, tag, toMessage(topic, payload, null, null, tag));
     }
 
     public <T> SendReceipt sendNormal(String topic, T payload, String tag, String... keys) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, null, null, tag, keys));
+        return doSend(SendType.NORMAL, tag, toMessage(topic, payload, null, null, tag, keys));
     }
 
     public <T> SendReceipt sendDelay(String topic, T payload, Duration delay) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, null, delay, null));
+        return doSend(SendType.DELAY, null, toMessage(topic, payload, null, delay, null));
     }
 
     public <T> SendReceipt sendDelay(String topic, T payload, Duration delay, String tag) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, null, delay, tag));
+        return doSend(SendType.DELAY, tag, toMessage(topic, payload, null, delay, tag));
     }
 
     public <T> SendReceipt sendDelay(String topic, T payload, Duration delay, String tag, String... keys) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, null, delay, tag, keys));
+        return doSend(SendType.DELAY, tag, toMessage(topic, payload, null, delay, tag, keys));
     }
 
     public <T> SendReceipt sendFifo(String topic, T payload, String messageGroup) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, messageGroup, null, null));
+        return doSend(SendType.FIFO, null, toMessage(topic, payload, messageGroup, null, null));
     }
 
     public <T> SendReceipt sendFifo(String topic, T payload, String messageGroup, String tag) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, messageGroup, null, tag));
+        return doSend(SendType.FIFO, tag, toMessage(topic, payload, messageGroup, null, tag));
     }
 
     public <T> SendReceipt sendFifo(String topic, T payload, String messageGroup, String tag, String... keys) throws ClientException {
-        return producer.send(RocketMQUtil.convertToRocketMessage(topic, payload, messageGroup, null, tag, keys));
+        return doSend(SendType.FIFO, tag, toMessage(topic, payload, messageGroup, null, tag, keys));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendNormalAsync(String topic, T payload) {
+        return doSendAsync(SendType.NORMAL, null, () -> toMessage(topic, payload, null, null, null));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendNormalAsync(String topic, T payload, String tag) {
+        return doSendAsync(SendType.NORMAL, tag, () -> toMessage(topic, payload, null, null, tag));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendNormalAsync(String topic, T payload, String tag, String... keys) {
+        return doSendAsync(SendType.NORMAL, tag, () -> toMessage(topic, payload, null, null, tag, keys));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendDelayAsync(String topic, T payload, Duration delay) {
+        return doSendAsync(SendType.DELAY, null, () -> toMessage(topic, payload, null, delay, null));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendDelayAsync(String topic, T payload, Duration delay, String tag) {
+        return doSendAsync(SendType.DELAY, tag, () -> toMessage(topic, payload, null, delay, tag));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendDelayAsync(String topic, T payload, Duration delay, String tag, String... keys) {
+        return doSendAsync(SendType.DELAY, tag, () -> toMessage(topic, payload, null, delay, tag, keys));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendFifoAsync(String topic, T payload, String messageGroup) {
+        return doSendAsync(SendType.FIFO, null, () -> toMessage(topic, payload, messageGroup, null, null));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendFifoAsync(String topic, T payload, String messageGroup, String tag) {
+        return doSendAsync(SendType.FIFO, tag, () -> toMessage(topic, payload, messageGroup, null, tag));
     }
 
-    public boolean transactionBeanIsExist(String name) {
-        return TRANSACTION_PRODUCER_MAP.containsKey(name);
+    public <T> CompletableFuture<SendReceipt> sendFifoAsync(String topic, T payload, String messageGroup, String tag, String... keys) {
+        return doSendAsync(SendType.FIFO, tag, () -> toMessage(topic, payload, messageGroup, null, tag, keys));
     }
 
-    public void addTransactionBean(String name, Producer producer) {
-        TRANSACTION_PRODUCER_MAP.put(name, producer);
+    public <T> CompletableFuture<SendReceipt> sendNormalBatched(String topic, T payload) {
+        return doSendBatched(null, () -> toMessage(topic, payload, null, null, null));
     }
 
+    public <T> CompletableFuture<SendReceipt> sendNormalBatched(String topic, T payload, String tag) {
+        return doSendBatched(tag, () -> toMessage(topic, payload, null, null, tag));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendNormalBatched(String topic, T payload, String tag, String... keys) {
+        return doSendBatched(tag, () -> toMessage(topic, payload, null, null, tag, keys));
+    }
+
+    public boolean transactionProducerExists(String topic, String tag) {
+        return getTransactionProducer(topic, tag) != null;
+    }
+
+    /**
+     * Registrations happen at startup only, each one copies the routing table. Several producers form a pool,
+     * every transaction is begun on one of them.
+     */
+    public synchronized void addTransactionProducer(String topic, String tag, Producer... producers) {
+        if (producers.length == 0) {
+            throw new IllegalArgumentException("At least one transaction producer is required");
+        }
+        Map<String, Map<String, Producer[]>> table = new HashMap<>(transactionProducers);
+        Map<String, Producer[]> byTag = new HashMap<>(table.getOrDefault(topic, Collections.emptyMap()));
+        byTag.put(tag, producers.clone());
+        table.put(topic, Collections.unmodifiableMap(byTag));
+        this.transactionProducers = Collections.unmodifiableMap(table);
+    }
+
+    /**
+     * @return one of the pooled producers, null if no transaction listener is registered for the topic and tag
+     */
+    public Producer getTransactionProducer(String topic, String tag) {
+        Map<String, Producer[]> byTag = transactionProducers.get(topic);
+        Producer[] producers = byTag == null ? null : byTag.get(tag);
+        if (producers == null) {
+            return null;
+        }
+        return producers.length == 1 ? producers[0] : producers[ThreadLocalRandom.current().nextInt(producers.length)];
+    }
+
+    /**
+     * The returned transaction is bound to the producer it was begun on, pass it back to sendTransaction as is.
+     */
     public Transaction beginTransaction(String topic, String tag) throws ClientException {
-        String key = String.format("%s_%s", topic, tag);
-        if (TRANSACTION_PRODUCER_MAP.containsKey(key)) {
-            return TRANSACTION_PRODUCER_MAP.get(key).beginTransaction();
-        } else {
+        Producer transactionProducer = getTransactionProducer(topic, tag);
+        if (transactionProducer == null) {
             throw new ClientException("Transaction bean is not exist, please check annotation RocketMQTransactionListener");
         }
+        return new RocketMQTransaction(transactionProducer, transactionProducer.beginTransaction());
     }
 
     public <T> SendReceipt sendTransaction(Transaction transaction, String topic, T payload, String tag) throws ClientException {
-        String key = String.format("%s_%s", topic, tag);
-        if (TRANSACTION_PRODUCER_MAP.containsKey(key)) {
-            return TRANSACTION_PRODUCER_MAP.get(key).send(RocketMQUtil.convertToRocketMessage(topic, payload, null, null, tag), transaction);
-        } else {
-            throw new ClientException("Transaction producer is not register, please check your configuration");
-        }
+        return sendTransactionMessage(transaction, topic, tag, toMessage(topic, payload, null, null, tag));
     }
 
     public <T> SendReceipt sendTransaction(Transaction transaction, String topic, T payload, String tag, String... keys) throws ClientException {
-        String key = String.format("%s_%s", topic, tag);
-        if (TRANSACTION_PRODUCER_MAP.containsKey(key)) {
-            return TRANSACTION_PRODUCER_MAP.get(key).send(RocketMQUtil.convertToRocketMessage(topic, payload, null, null, tag, keys), transaction);
-        } else {
+        return sendTransactionMessage(transaction, topic, tag, toMessage(topic, payload, null, null, tag, keys));
+    }
+
+    private SendReceipt sendTransactionMessage(Transaction transaction, String topic, String tag, Message message) throws ClientException {
+        if (transaction instanceof RocketMQTransaction) {
+            RocketMQTransaction rocketMQTransaction = (RocketMQTransaction) transaction;
+            return doSendTransaction(rocketMQTransaction.getProducer(), rocketMQTransaction.getDelegate(), tag, message);
+        }
+        Producer transactionProducer = getTransactionProducer(topic, tag);
+        if (transactionProducer == null) {
             throw new ClientException("Transaction producer is not register, please check your configuration");
         }
+        return doSendTransaction(transactionProducer, transaction, tag, message);
     }
 
-    @Override
-    public void destroy() throws Exception {
-        if (producer != null) {
-            producer.close();
+    public <T> CompletableFuture<SendReceipt> sendTransactionAsync(Transaction transaction, String topic, T payload, String tag) {
+        return doSendTransactionAsync(() -> sendTransaction(transaction, topic, payload, tag));
+    }
+
+    public <T> CompletableFuture<SendReceipt> sendTransactionAsync(Transaction transaction, String topic, T payload, String tag, String... keys) {
+        return doSendTransactionAsync(() -> sendTransaction(transaction, topic, payload, tag, keys));
+    }
+
+    /**
+     * Sends the broker accepted since the template was created, async and transactional ones included.
+     */
+    public long getSendSuccessCount() {
+        return sendSuccessCount.sum();
+    }
+
+    /**
+     * Sends that failed since the template was created, including the ones that were written to the outbox afterwards.
+     */
+    public long getSendFailureCount() {
+        return sendFailureCount.sum();
+    }
+
+    /**
+     * Pool size of the registered transaction producers by topic then tag.
+     */
+    public Map<String, Map<String, Integer>> getTransactionProducerPools() {
+        Map<String, Map<String, Integer>> pools = new HashMap<>();
+        transactionProducers.forEach((topic, byTag) -> {
+            Map<String, Integer> sizes = new HashMap<>();
+            byTag.forEach((tag, producers) -> sizes.put(tag, producers.length));
+            pools.put(topic, sizes);
+        });
+        return pools;
+    }
+
+    /**
+     * number of async sends currently waiting for the broker
+     */
+    public int getAsyncInFlight() {
+        Semaphore permits = this.asyncSendPermits;
+        return permits == null ? 0 : asyncMaxInFlight - permits.availablePermits();
+    }
+
+    private Message toMessage(String topic, Object payload, String messageGroup, Duration delay, String tag, String... keys) {
+        return RocketMQUtil.convertToRocketMessage(messageConverter, compression, sendTimestamp, topic, payload, messageGroup, delay, tag, keys);
+    }
+
+    CompletableFuture<SendReceipt> sendMessageAsync(Message message) {
+        return doSendAsync(SendType.NORMAL, message.getTag().orElse(null), () -> message);
+    }
+
+    private SendReceipt doSend(SendType sendType, String tag, Message message) throws ClientException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            SendReceipt receipt = sendPolicyExecutor == null ? producer.send(message)
+                    : awaitReceipt(sendPolicyExecutor.execute(message, producer::sendAsync));
+            success = true;
+            return receipt;
+        } catch (ClientException e) {
+            if (outbox != null && SendPolicyExecutor.isRetryable(e)) {
+                return spill(message, e);
+            }
+            throw e;
+        } finally {
+            recordSend(sendType, tag, message, start, success);
         }
-        if (!TRANSACTION_PRODUCER_MAP.isEmpty()) {
-            TRANSACTION_PRODUCER_MAP.values().forEach(p -> {
+    }
+
+    private SendReceipt doSendTransaction(Producer transactionProducer, Transaction transaction, String tag, Message message) throws ClientException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            SendReceipt receipt = transactionProducer.send(message, transaction);
+            success = true;
+            return receipt;
+        } finally {
+            recordSend(SendType.TRANSACTION, tag, message, start, success);
+        }
+    }
+
+    private static SendReceipt awaitReceipt(CompletableFuture<SendReceipt> future) throws ClientException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for the send receipt", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof ClientException) {
+                throw (ClientException) cause;
+            }
+            throw new ClientException(String.valueOf(cause.getMessage()), cause);
+        }
+    }
+
+    private void recordSend(SendType sendType, String tag, Message message, long start, boolean success) {
+        (success ? sendSuccessCount : sendFailureCount).increment();
+        RocketMQMetrics metrics = this.metrics;
+        if (metrics != RocketMQMetrics.NOOP) {
+            metrics.recordSend(message.getTopic(), tag, sendType, System.nanoTime() - start, success, message.getBody().remaining());
+        }
+    }
+
+    private CompletableFuture<SendReceipt> doSendBatched(String tag, Supplier<Message> messageSupplier) {
+        RocketMQBatchPublisher publisher = this.batchPublisher;
+        if (publisher == null) {
+            return doSendAsync(SendType.NORMAL, tag, messageSupplier);
+        }
+        Message message;
+        try {
+            message = messageSupplier.get();
+        } catch (Throwable t) {
+            return failedFuture(t);
+        }
+        return publisher.publish(message);
+    }
+
+    private CompletableFuture<SendReceipt> doSendAsync(SendType sendType, String tag, Supplier<Message> messageSupplier) {
+        Semaphore permits = this.asyncSendPermits;
+        if (permits != null && !permits.tryAcquire()) {
+            ClientException overflow = new ClientException("Too many in-flight async sends, asyncMaxInFlight=" + asyncMaxInFlight);
+            if (outbox == null) {
+                return failedFuture(overflow);
+            }
+            try {
+                return CompletableFuture.completedFuture(spill(messageSupplier.get(), overflow));
+            } catch (Throwable t) {
+                return failedFuture(t);
+            }
+        }
+        CompletableFuture<SendReceipt> future;
+        Message message;
+        long start = System.nanoTime();
+        try {
+            message = messageSupplier.get();
+            future = sendPolicyExecutor == null ? producer.sendAsync(message) : sendPolicyExecutor.execute(message, producer::sendAsync);
+        } catch (Throwable t) {
+            if (permits != null) {
+                permits.release();
+            }
+            return failedFuture(t);
+        }
+        future = future.whenComplete((receipt, t) -> {
+            if (permits != null) {
+                permits.release();
+            }
+            recordSend(sendType, tag, message, start, t == null);
+        });
+        if (outbox != null) {
+            future = future.handle((receipt, t) -> {
+                if (t == null) {
+                    return receipt;
+                }
+                if (!SendPolicyExecutor.isRetryable(t)) {
+                    throw t instanceof CompletionException ? (CompletionException) t : new CompletionException(t);
+                }
+                try {
+                    return spill(message, t);
+                } catch (ClientException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        }
+        return completeOnExecutor(future);
+    }
+
+    /**
+     * Writes the message to the outbox, the returned receipt is an {@link OutboxSendReceipt}.
+     * FIFO messages are not spilled, their send fails with the original cause so the order of the group is kept.
+     */
+    private SendReceipt spill(Message message, Throwable cause) throws ClientException {
+        if (message.getMessageGroup().isPresent()) {
+            Throwable failure = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+            throw failure instanceof ClientException ? (ClientException) failure
+                    : new ClientException(String.valueOf(failure.getMessage()), failure);
+        }
+        try {
+            SendReceipt receipt = outbox.append(message);
+            RocketMQMetrics metrics = this.metrics;
+            if (metrics != RocketMQMetrics.NOOP) {
+                metrics.recordSendDecision(message.getTopic(), SendDecision.SPILLED);
+            }
+            log.debug("Send failed, message written to the outbox, topic={}, cause={}", message.getTopic(), cause.toString());
+            return receipt;
+        } catch (IOException e) {
+            ClientException failure = new ClientException("Send failed and the message could not be written to the outbox", cause);
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+
+    private CompletableFuture<SendReceipt> doSendTransactionAsync(TransactionSend send) {
+        Semaphore permits = this.asyncSendPermits;
+        if (permits != null && !permits.tryAcquire()) {
+            return failedFuture(new ClientException("Too many in-flight async sends, asyncMaxInFlight=" + asyncMaxInFlight));
+        }
+        CompletableFuture<SendReceipt> future = new CompletableFuture<>();
+        try {
+            transactionSendExecutor().execute(() -> {
                 try {
-                    p.close();
-                } catch (IOException e) {
-                    log.warn("Transaction producer close failed...");
+                    future.complete(send.send());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    if (permits != null) {
+                        permits.release();
+                    }
                 }
             });
+        } catch (Throwable t) {
+            if (permits != null) {
+                permits.release();
+            }
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    private CompletableFuture<SendReceipt> completeOnExecutor(CompletableFuture<SendReceipt> future) {
+        Executor executor = this.asyncSendExecutor;
+        if (executor == null) {
+            return future;
+        }
+        CompletableFuture<SendReceipt> result = new CompletableFuture<>();
+        future.whenComplete((receipt, t) -> {
+            Runnable completion = () -> {
+                if (t != null) {
+                    result.completeExceptionally(t);
+                } else {
+                    result.complete(receipt);
+                }
+            };
+            try {
+                executor.execute(completion);
+            } catch (RejectedExecutionException e) {
+                log.warn("Async send executor rejected the callback, completing on the client thread");
+                completion.run();
+            }
+        });
+        return result;
+    }
+
+    private Executor transactionSendExecutor() {
+        if (asyncSendExecutor != null) {
+            return asyncSendExecutor;
+        }
+        ExecutorService executor = this.transactionSendExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.transactionSendExecutor;
+                if (executor == null) {
+                    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+                    AtomicInteger index = new AtomicInteger();
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "RocketMQTransactionSender-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    pool.allowCoreThreadTimeOut(true);
+                    this.transactionSendExecutor = executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static <R> CompletableFuture<R> failedFuture(Throwable t) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
+    @FunctionalInterface
+    private interface TransactionSend {
+        SendReceipt send() throws ClientException;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (batchPublisher != null) {
+            batchPublisher.close(batchCloseTimeout);
+        }
+        if (sendPolicyExecutor != null) {
+            sendPolicyExecutor.shutdown();
+        }
+        if (outbox != null) {
+            outbox.close(outboxCloseTimeout);
+        }
+        if (producer != null) {
+            clientRegistry.close(producer);
+        }
+        if (transactionSendExecutor != null) {
+            transactionSendExecutor.shutdown();
+        }
+        // shared producers are registered under several tags, close each one once
+        Set<Producer> closing = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map<String, Producer[]> byTag : transactionProducers.values()) {
+            byTag.values().forEach(producers -> Collections.addAll(closing, producers));
+        }
+        for (Producer p : closing) {
+            try {
+                clientRegistry.close(p);
+            } catch (IOException e) {
+                log.warn("Transaction producer close failed...");
+            }
         }
     }
 
@@ -139,4 +596,101 @@ public class RocketMQTemplate implements DisposableBean {
         this.producer = producer;
     }
 
+    public RocketMQMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(RocketMQMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SendPolicyExecutor getSendPolicyExecutor() {
+        return sendPolicyExecutor;
+    }
+
+    public void setSendPolicyExecutor(SendPolicyExecutor sendPolicyExecutor) {
+        this.sendPolicyExecutor = sendPolicyExecutor;
+    }
+
+    public MessageCompression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(MessageCompression compression) {
+        this.compression = compression;
+    }
+
+    public boolean isSendTimestamp() {
+        return sendTimestamp;
+    }
+
+    public void setSendTimestamp(boolean sendTimestamp) {
+        this.sendTimestamp = sendTimestamp;
+    }
+
+    public RocketMQClientRegistry getClientRegistry() {
+        return clientRegistry;
+    }
+
+    public void setClientRegistry(RocketMQClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
+    public RocketMQOutbox getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(RocketMQOutbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public Duration getOutboxCloseTimeout() {
+        return outboxCloseTimeout;
+    }
+
+    public void setOutboxCloseTimeout(Duration outboxCloseTimeout) {
+        this.outboxCloseTimeout = outboxCloseTimeout;
+    }
+
+    public MessageConverter getMessageConverter() {
+        return messageConverter;
+    }
+
+    public void setMessageConverter(MessageConverter messageConverter) {
+        this.messageConverter = messageConverter;
+    }
+
+    public Executor getAsyncSendExecutor() {
+        return asyncSendExecutor;
+    }
+
+    public void setAsyncSendExecutor(Executor asyncSendExecutor) {
+        this.asyncSendExecutor = asyncSendExecutor;
+    }
+
+    public RocketMQBatchPublisher getBatchPublisher() {
+        return batchPublisher;
+    }
+
+    public void setBatchPublisher(RocketMQBatchPublisher batchPublisher) {
+        this.batchPublisher = batchPublisher;
+    }
+
+    public Duration getBatchCloseTimeout() {
+        return batchCloseTimeout;
+    }
+
+    public void setBatchCloseTimeout(Duration batchCloseTimeout) {
+        this.batchCloseTimeout = batchCloseTimeout;
+    }
+
+    public int getAsyncMaxInFlight() {
+        return asyncMaxInFlight;
+    }
+
+    public void setAsyncMaxInFlight(int asyncMaxInFlight) {
+        this.asyncMaxInFlight = asyncMaxInFlight;
+        this.asyncSendPermits = asyncMaxInFlight > 0 ? new Semaphore(asyncMaxInFlight) : null;
+    }
+
 }
\ No newline at end of file
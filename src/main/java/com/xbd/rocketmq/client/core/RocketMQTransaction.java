@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.producer.Producer;
+import org.apache.rocketmq.client.apis.producer.Transaction;
+
+/**
+ * A transaction begun by {@link RocketMQTemplate}, it remembers the pooled producer it was begun on
+ * because its messages have to be sent through that same producer.
+ */
+public class RocketMQTransaction implements Transaction {
+
+    private final Producer producer;
+
+    private final Transaction delegate;
+
+    public RocketMQTransaction(Producer producer, Transaction delegate) {
+        this.producer = producer;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void commit() throws ClientException {
+        delegate.commit();
+    }
+
+    @Override
+    public void rollback() throws ClientException {
+        delegate.rollback();
+    }
+
+    public Producer getProducer() {
+        return producer;
+    }
+
+    public Transaction getDelegate() {
+        return delegate;
+    }
+
+}
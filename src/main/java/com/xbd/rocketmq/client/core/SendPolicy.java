@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import java.time.Duration;
+
+/**
+ * Retry, hedging and circuit breaking settings of the sends to a topic. The defaults send once, without
+ * deadline, hedging or circuit breaker.
+ */
+public class SendPolicy {
+
+    /**
+     * attempts per send including the first one
+     */
+    private int maxAttempts = 1;
+
+    /**
+     * backoff before the second attempt, multiplied by backoffMultiplier for every further attempt
+     */
+    private Duration initialBackoff = Duration.ofMillis(100);
+
+    private Duration maxBackoff = Duration.ofSeconds(2);
+
+    private double backoffMultiplier = 2;
+
+    /**
+     * fraction of the backoff randomly taken off, 0 for a fixed backoff
+     */
+    private double jitter = 0.5;
+
+    /**
+     * total time a send including its retries may take, no deadline if null
+     */
+    private Duration deadline;
+
+    /**
+     * delay after which a still pending attempt gets a duplicate send, the first receipt wins, no hedging if null.
+     * Never used for FIFO messages. Hedged messages may be delivered twice.
+     */
+    private Duration hedgeDelay;
+
+    private boolean circuitBreakerEnabled = false;
+
+    /**
+     * failure ratio among the last slidingWindowSize sends that opens the circuit breaker
+     */
+    private double failureRateThreshold = 0.5;
+
+    private int slidingWindowSize = 100;
+
+    /**
+     * sends needed in the window before the failure ratio is evaluated
+     */
+    private int minimumCalls = 20;
+
+    /**
+     * time the open circuit breaker fails sends fast before it lets a probe through
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * false if the policy is the plain single send
+     */
+    public boolean isEnabled() {
+        return maxAttempts > 1 || deadline != null || hedgeDelay != null || circuitBreakerEnabled;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    public void setBackoffMultiplier(double backoffMultiplier) {
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(double jitter) {
+        this.jitter = jitter;
+    }
+
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Duration deadline) {
+        this.deadline = deadline;
+    }
+
+    public Duration getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public void setHedgeDelay(Duration hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+
+    public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(Duration openDuration) {
+        this.openDuration = openDuration;
+    }
+
+}
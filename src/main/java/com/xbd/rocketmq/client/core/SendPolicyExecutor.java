@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import com.xbd.rocketmq.client.metrics.SendDecision;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.apache.rocketmq.client.java.exception.BadRequestException;
+import org.apache.rocketmq.client.java.exception.ForbiddenException;
+import org.apache.rocketmq.client.java.exception.NotFoundException;
+import org.apache.rocketmq.client.java.exception.PayloadTooLargeException;
+import org.apache.rocketmq.client.java.exception.PaymentRequiredException;
+import org.apache.rocketmq.client.java.exception.RequestHeaderFieldsTooLargeException;
+import org.apache.rocketmq.client.java.exception.UnauthorizedException;
+import org.apache.rocketmq.client.java.exception.UnsupportedException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Applies the {@link SendPolicy} of the message topic on top of an async send: retries with exponential backoff
+ * and jitter under the deadline, hedged sends and the circuit breaker of the topic. Backoffs, hedges and deadlines
+ * are timers, no thread waits for them. Failures caused by the request itself (bad request, auth, not found,
+ * payload too large...) are neither retried nor counted by the circuit breaker.
+ */
+@Slf4j
+public class SendPolicyExecutor {
+
+    private static final List<Class<? extends Throwable>> NON_RETRYABLE = Arrays.asList(BadRequestException.class,
+            UnauthorizedException.class, ForbiddenException.class, NotFoundException.class, PayloadTooLargeException.class,
+            PaymentRequiredException.class, RequestHeaderFieldsTooLargeException.class, UnsupportedException.class);
+
+    private final SendPolicy defaultPolicy;
+
+    private final Map<String, SendPolicy> topicPolicies;
+
+    private final Map<String, TopicPolicy> resolved = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final RocketMQMetrics metrics;
+
+    /**
+     * @param defaultPolicy policy of the topics without their own one, may be null
+     * @param topicPolicies policies by topic
+     */
+    public SendPolicyExecutor(SendPolicy defaultPolicy, Map<String, SendPolicy> topicPolicies, RocketMQMetrics metrics) {
+        this.defaultPolicy = defaultPolicy != null && defaultPolicy.isEnabled() ? defaultPolicy : null;
+        this.topicPolicies = Collections.unmodifiableMap(new HashMap<>(topicPolicies));
+        this.metrics = metrics;
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "RocketMQSendPolicy-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.scheduler = scheduler;
+    }
+
+    public CompletableFuture<SendReceipt> execute(Message message, Function<Message, CompletableFuture<SendReceipt>> sender) {
+        TopicPolicy topicPolicy = policyOf(message.getTopic());
+        if (topicPolicy == null) {
+            return sender.apply(message);
+        }
+        return new Send(topicPolicy, message, sender).start();
+    }
+
+    /**
+     * Null if sends to the topic have no policy.
+     */
+    public CircuitBreaker.State getCircuitBreakerState(String topic) {
+        TopicPolicy topicPolicy = policyOf(topic);
+        return topicPolicy == null || topicPolicy.circuitBreaker == null ? null : topicPolicy.circuitBreaker.getState();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private TopicPolicy policyOf(String topic) {
+        TopicPolicy topicPolicy = resolved.get(topic);
+        if (topicPolicy != null) {
+            return topicPolicy.policy == null ? null : topicPolicy;
+        }
+        SendPolicy policy = topicPolicies.getOrDefault(topic, defaultPolicy);
+        topicPolicy = resolved.computeIfAbsent(topic, t -> new TopicPolicy(policy == null || !policy.isEnabled() ? null : policy));
+        return topicPolicy.policy == null ? null : topicPolicy;
+    }
+
+    private void record(String topic, SendDecision decision) {
+        RocketMQMetrics metrics = this.metrics;
+        if (metrics != RocketMQMetrics.NOOP) {
+            metrics.recordSendDecision(topic, decision);
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    /**
+     * False for failures caused by the request itself, sending it again gives the same result.
+     */
+    public static boolean isRetryable(Throwable t) {
+        t = unwrap(t);
+        for (Class<? extends Throwable> type : NON_RETRYABLE) {
+            if (type.isInstance(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class TopicPolicy {
+
+        private final SendPolicy policy;
+
+        private final CircuitBreaker circuitBreaker;
+
+        private TopicPolicy(SendPolicy policy) {
+            this.policy = policy;
+            this.circuitBreaker = policy != null && policy.isCircuitBreakerEnabled() ? new CircuitBreaker(policy) : null;
+        }
+    }
+
+    /**
+     * One logical send, its attempts run one after another, each attempt possibly hedged.
+     */
+    private final class Send {
+
+        private final SendPolicy policy;
+
+        private final CircuitBreaker circuitBreaker;
+
+        private final Message message;
+
+        private final String topic;
+
+        private final Function<Message, CompletableFuture<SendReceipt>> sender;
+
+        private final CompletableFuture<SendReceipt> result = new CompletableFuture<>();
+
+        private final long deadlineNanos;
+
+        private int attempts;
+
+        private Send(TopicPolicy topicPolicy, Message message, Function<Message, CompletableFuture<SendReceipt>> sender) {
+            this.policy = topicPolicy.policy;
+            this.circuitBreaker = topicPolicy.circuitBreaker;
+            this.message = message;
+            this.topic = message.getTopic();
+            this.sender = sender;
+            this.deadlineNanos = policy.getDeadline() == null ? 0 : System.nanoTime() + policy.getDeadline().toNanos();
+        }
+
+        private CompletableFuture<SendReceipt> start() {
+            Duration deadline = policy.getDeadline();
+            if (deadline != null) {
+                ScheduledFuture<?> deadlineTask = schedule(() -> {
+                    if (result.completeExceptionally(new ClientException("Send deadline of " + deadline + " exceeded, topic=" + topic))) {
+                        record(topic, SendDecision.DEADLINE_EXCEEDED);
+                    }
+                }, deadline.toNanos());
+                if (deadlineTask != null) {
+                    result.whenComplete((receipt, t) -> deadlineTask.cancel(false));
+                }
+            }
+            attempt();
+            return result;
+        }
+
+        private void attempt() {
+            if (result.isDone()) {
+                return;
+            }
+            attempts++;
+            CircuitBreaker.Permit permit = circuitBreaker == null ? null : circuitBreaker.tryAcquire();
+            if (circuitBreaker != null && permit == null) {
+                record(topic, SendDecision.REJECTED);
+                result.completeExceptionally(new ClientException("Circuit breaker of topic " + topic + " is open"));
+                return;
+            }
+            AtomicInteger outstanding = new AtomicInteger(1);
+            ScheduledFuture<?> hedgeTask = null;
+            Duration hedgeDelay = policy.getHedgeDelay();
+            if (hedgeDelay != null && !message.getMessageGroup().isPresent()) {
+                hedgeTask = schedule(() -> hedge(outstanding), hedgeDelay.toNanos());
+            }
+            send(outstanding, hedgeTask, permit);
+        }
+
+        private void hedge(AtomicInteger outstanding) {
+            int current;
+            do {
+                current = outstanding.get();
+                if (current == 0 || result.isDone()) {
+                    return;
+                }
+            } while (!outstanding.compareAndSet(current, current + 1));
+            CircuitBreaker.Permit permit = circuitBreaker == null ? null : circuitBreaker.tryAcquire();
+            if (circuitBreaker != null && permit == null) {
+                outstanding.decrementAndGet();
+                return;
+            }
+            record(topic, SendDecision.HEDGE);
+            send(outstanding, null, permit);
+        }
+
+        /**
+         * @param permit circuit breaker permit of the send, null without circuit breaker
+         */
+        private void send(AtomicInteger outstanding, ScheduledFuture<?> hedgeTask, CircuitBreaker.Permit permit) {
+            CompletableFuture<SendReceipt> future;
+            try {
+                future = sender.apply(message);
+            } catch (Throwable t) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(t);
+            }
+            future.whenComplete((receipt, t) -> {
+                Throwable cause = t == null ? null : unwrap(t);
+                boolean retryable = cause != null && isRetryable(cause);
+                if (circuitBreaker != null) {
+                    CircuitBreaker.State state = circuitBreaker.onResult(permit, retryable);
+                    if (state == CircuitBreaker.State.OPEN) {
+                        log.warn("Circuit breaker of topic {} opened", topic);
+                        record(topic, SendDecision.CIRCUIT_OPENED);
+                    } else if (state == CircuitBreaker.State.CLOSED) {
+                        log.info("Circuit breaker of topic {} closed", topic);
+                        record(topic, SendDecision.CIRCUIT_CLOSED);
+                    }
+                }
+                if (cause == null) {
+                    if (hedgeTask != null) {
+                        hedgeTask.cancel(false);
+                    }
+                    result.complete(receipt);
+                    return;
+                }
+                if (outstanding.decrementAndGet() == 0) {
+                    if (hedgeTask != null) {
+                        hedgeTask.cancel(false);
+                    }
+                    retryOrFail(cause, retryable);
+                }
+            });
+        }
+
+        private void retryOrFail(Throwable cause, boolean retryable) {
+            if (result.isDone()) {
+                return;
+            }
+            if (!retryable) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (attempts >= policy.getMaxAttempts()) {
+                if (policy.getMaxAttempts() > 1) {
+                    record(topic, SendDecision.EXHAUSTED);
+                }
+                result.completeExceptionally(cause);
+                return;
+            }
+            long backoffNanos = backoffNanos();
+            if (deadlineNanos != 0 && System.nanoTime() + backoffNanos - deadlineNanos >= 0) {
+                if (result.completeExceptionally(cause)) {
+                    record(topic, SendDecision.DEADLINE_EXCEEDED);
+                }
+                return;
+            }
+            record(topic, SendDecision.RETRY);
+            if (schedule(this::attempt, backoffNanos) == null) {
+                result.completeExceptionally(cause);
+            }
+        }
+
+        private long backoffNanos() {
+            double backoff = policy.getInitialBackoff().toNanos() * Math.pow(policy.getBackoffMultiplier(), attempts - 1);
+            backoff = Math.min(backoff, policy.getMaxBackoff().toNanos());
+            return (long) (backoff * (1 - policy.getJitter() * ThreadLocalRandom.current().nextDouble()));
+        }
+
+        /**
+         * Null once the executor is shut down.
+         */
+        private ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+            try {
+                return scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                log.debug("Send policy timer not scheduled", e);
+                return null;
+            }
+        }
+    }
+
+}
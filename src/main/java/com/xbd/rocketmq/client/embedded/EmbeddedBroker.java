@@ -0,0 +1,542 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.embedded;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.consumer.FilterExpression;
+import org.apache.rocketmq.client.apis.consumer.FilterExpressionType;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory stand-in for a RocketMQ 5 proxy, for tests and local load simulation.
+ * <p>
+ * Every consumer group subscribed to a topic gets its own copy of the messages sent after it subscribed,
+ * consumers of the same group share it. Supports tag filtering, FIFO message groups (one message of a group
+ * in flight at a time), delayed delivery, invisible durations with redelivery, transaction half messages with
+ * checks, a dead letter queue after {@code maxDeliveryAttempts}, and send latency and failure injection.
+ */
+@Slf4j
+public class EmbeddedBroker implements Closeable {
+
+    private static final long EXPIRE_SCAN_MILLIS = 100;
+
+    private static final int MAX_TRANSACTION_CHECKS = 15;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, GroupQueue>> subscriptions = new ConcurrentHashMap<>();
+
+    private final Queue<MessageView> deadLetters = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService asyncExecutor;
+
+    private Duration sendLatency = Duration.ZERO;
+
+    private double sendFailureRate;
+
+    private double ackFailureRate;
+
+    private int maxDeliveryAttempts = 16;
+
+    private Duration redeliveryDelay = Duration.ofSeconds(1);
+
+    private Duration transactionCheckDelay = Duration.ofSeconds(5);
+
+    private volatile boolean closed;
+
+    public EmbeddedBroker() {
+        AtomicInteger index = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "EmbeddedBroker-scheduler-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.asyncExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "EmbeddedBroker-async-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::expireInvisible, EXPIRE_SCAN_MILLIS, EXPIRE_SCAN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the injected failure and latency of a synchronous send.
+     */
+    void beforeSend() throws ClientException {
+        checkOpen();
+        long latencyNanos = sendLatency.toNanos();
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        if (shouldFail(sendFailureRate)) {
+            throw new ClientException("Injected send failure");
+        }
+    }
+
+    void beforeAck() throws ClientException {
+        checkOpen();
+        if (shouldFail(ackFailureRate)) {
+            throw new ClientException("Injected ack failure");
+        }
+    }
+
+    EmbeddedMessage store(Message message) {
+        return new EmbeddedMessage(String.format("01EMBEDDED%022X", sequence.incrementAndGet()), message);
+    }
+
+    void publish(EmbeddedMessage message) {
+        Long deliveryTimestamp = message.getDeliveryTimestamp();
+        long delayMillis = deliveryTimestamp == null ? 0 : deliveryTimestamp - System.currentTimeMillis();
+        if (delayMillis > 0) {
+            scheduler.schedule(() -> enqueue(message), delayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            enqueue(message);
+        }
+    }
+
+    private void enqueue(EmbeddedMessage message) {
+        Map<String, GroupQueue> groups = subscriptions.get(message.getTopic());
+        if (groups == null) {
+            return;
+        }
+        for (GroupQueue queue : groups.values()) {
+            if (queue.matches(message.getTag())) {
+                queue.offer(new EmbeddedMessageView(message, 1));
+            }
+        }
+    }
+
+    GroupQueue subscribe(String topic, String consumerGroup, FilterExpression filterExpression) {
+        TagFilter filter = TagFilter.of(filterExpression);
+        GroupQueue queue = subscriptions.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+            .computeIfAbsent(consumerGroup, group -> new GroupQueue(topic, group));
+        queue.filter = filter;
+        return queue;
+    }
+
+    /**
+     * Half messages are checked with the checker of their producer once the transaction stays open for
+     * {@code transactionCheckDelay}, the resolution of the first half message applies to the whole transaction.
+     */
+    void scheduleTransactionCheck(EmbeddedTransaction transaction, int checks) {
+        if (closed) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            if (!transaction.isOpen()) {
+                return;
+            }
+            if (checks >= MAX_TRANSACTION_CHECKS) {
+                log.warn("Transaction still unknown after {} checks, rolling back {}", checks, transaction);
+                transaction.resolve(false);
+                return;
+            }
+            if (!transaction.check()) {
+                scheduleTransactionCheck(transaction, checks + 1);
+            }
+        }, transactionCheckDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void expireInvisible() {
+        long now = System.nanoTime();
+        for (Map<String, GroupQueue> groups : subscriptions.values()) {
+            for (GroupQueue queue : groups.values()) {
+                try {
+                    queue.expire(now);
+                } catch (Throwable t) {
+                    log.warn("Expiring invisible messages failed, topic={}, group={}", queue.topic, queue.consumerGroup, t);
+                }
+            }
+        }
+    }
+
+    private static boolean shouldFail(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    void checkOpen() throws ClientException {
+        if (closed) {
+            throw new ClientException("Embedded broker is closed");
+        }
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    ExecutorService getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Messages waiting for, or being consumed by, the consumer group.
+     */
+    public int getBacklog(String topic, String consumerGroup) {
+        Map<String, GroupQueue> groups = subscriptions.get(topic);
+        GroupQueue queue = groups == null ? null : groups.get(consumerGroup);
+        return queue == null ? 0 : queue.backlog();
+    }
+
+    /**
+     * Deliveries dropped after {@code maxDeliveryAttempts} failed attempts.
+     */
+    public Collection<MessageView> getDeadLetters() {
+        return Collections.unmodifiableCollection(deadLetters);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        asyncExecutor.shutdownNow();
+    }
+
+    public Duration getSendLatency() {
+        return sendLatency;
+    }
+
+    public void setSendLatency(Duration sendLatency) {
+        this.sendLatency = sendLatency;
+    }
+
+    public double getSendFailureRate() {
+        return sendFailureRate;
+    }
+
+    public void setSendFailureRate(double sendFailureRate) {
+        this.sendFailureRate = sendFailureRate;
+    }
+
+    public double getAckFailureRate() {
+        return ackFailureRate;
+    }
+
+    public void setAckFailureRate(double ackFailureRate) {
+        this.ackFailureRate = ackFailureRate;
+    }
+
+    public int getMaxDeliveryAttempts() {
+        return maxDeliveryAttempts;
+    }
+
+    public void setMaxDeliveryAttempts(int maxDeliveryAttempts) {
+        this.maxDeliveryAttempts = maxDeliveryAttempts;
+    }
+
+    public Duration getRedeliveryDelay() {
+        return redeliveryDelay;
+    }
+
+    public void setRedeliveryDelay(Duration redeliveryDelay) {
+        this.redeliveryDelay = redeliveryDelay;
+    }
+
+    public Duration getTransactionCheckDelay() {
+        return transactionCheckDelay;
+    }
+
+    public void setTransactionCheckDelay(Duration transactionCheckDelay) {
+        this.transactionCheckDelay = transactionCheckDelay;
+    }
+
+    private static final class TagFilter {
+
+        private static final TagFilter ALL = new TagFilter(null);
+
+        private final Set<String> tags;
+
+        private TagFilter(Set<String> tags) {
+            this.tags = tags;
+        }
+
+        static TagFilter of(FilterExpression filterExpression) {
+            if (filterExpression.getFilterExpressionType() != FilterExpressionType.TAG) {
+                throw new IllegalArgumentException("Embedded broker only supports TAG filter expressions, got " + filterExpression.getExpression());
+            }
+            String expression = filterExpression.getExpression();
+            if (expression == null || "*".equals(expression.trim())) {
+                return ALL;
+            }
+            Set<String> tags = new HashSet<>();
+            for (String tag : expression.split("\\|\\|")) {
+                tags.add(tag.trim());
+            }
+            return new TagFilter(tags);
+        }
+
+        boolean matches(String tag) {
+            return tags == null || (tag != null && tags.contains(tag));
+        }
+    }
+
+    /**
+     * The messages of one consumer group on one topic. A FIFO message group is locked from the moment one of its
+     * messages is ready until that message is consumed, its next messages wait in {@code blockedGroups}.
+     */
+    final class GroupQueue {
+
+        private final String topic;
+
+        private final String consumerGroup;
+
+        private volatile TagFilter filter = TagFilter.ALL;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition notEmpty = lock.newCondition();
+
+        private final ArrayDeque<EmbeddedMessageView> ready = new ArrayDeque<>();
+
+        private final Map<String, ArrayDeque<EmbeddedMessageView>> blockedGroups = new HashMap<>();
+
+        private final Map<EmbeddedMessageView, Long> invisibleDeadlines = new HashMap<>();
+
+        private GroupQueue(String topic, String consumerGroup) {
+            this.topic = topic;
+            this.consumerGroup = consumerGroup;
+        }
+
+        boolean matches(String tag) {
+            return filter.matches(tag);
+        }
+
+        void offer(EmbeddedMessageView delivery) {
+            String messageGroup = delivery.getMessage().getMessageGroup();
+            lock.lock();
+            try {
+                if (messageGroup != null) {
+                    ArrayDeque<EmbeddedMessageView> blocked = blockedGroups.get(messageGroup);
+                    if (blocked != null) {
+                        blocked.add(delivery);
+                        return;
+                    }
+                    blockedGroups.put(messageGroup, new ArrayDeque<>());
+                }
+                ready.add(delivery);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @param invisibleNanos less than or equal to 0 for deliveries completed by the caller, e.g. push consumers
+         */
+        List<EmbeddedMessageView> poll(int maxMessages, long timeoutNanos, long invisibleNanos) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                long nanos = timeoutNanos;
+                while (ready.isEmpty()) {
+                    if (nanos <= 0) {
+                        return Collections.emptyList();
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                int count = Math.min(maxMessages, ready.size());
+                List<EmbeddedMessageView> deliveries = new ArrayList<>(count);
+                long deadline = System.nanoTime() + invisibleNanos;
+                for (int i = 0; i < count; i++) {
+                    EmbeddedMessageView delivery = ready.poll();
+                    deliveries.add(delivery);
+                    if (invisibleNanos > 0) {
+                        invisibleDeadlines.put(delivery, deadline);
+                    }
+                }
+                if (!ready.isEmpty()) {
+                    notEmpty.signal();
+                }
+                return deliveries;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return false if the delivery is not in flight anymore, its invisible duration expired
+         */
+        boolean ack(EmbeddedMessageView delivery) {
+            lock.lock();
+            try {
+                if (invisibleDeadlines.remove(delivery) == null) {
+                    return false;
+                }
+                release(delivery);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean changeInvisibleDuration(EmbeddedMessageView delivery, Duration invisibleDuration) {
+            lock.lock();
+            try {
+                return invisibleDeadlines.replace(delivery, System.nanoTime() + invisibleDuration.toNanos()) != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Completes a delivery handed out without invisible duration.
+         */
+        void complete(EmbeddedMessageView delivery, boolean success) {
+            if (success) {
+                lock.lock();
+                try {
+                    release(delivery);
+                } finally {
+                    lock.unlock();
+                }
+            } else {
+                retry(delivery, redeliveryDelay.toMillis());
+            }
+        }
+
+        /**
+         * Puts a delivery back without counting the attempt, like a broker whose client went away before it
+         * reported a result.
+         */
+        void abandon(EmbeddedMessageView delivery) {
+            lock.lock();
+            try {
+                ready.add(delivery);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void retry(EmbeddedMessageView delivery, long delayMillis) {
+            if (delivery.getDeliveryAttempt() >= maxDeliveryAttempts) {
+                log.warn("Message moved to dead letters after {} attempts, topic={}, group={}, messageId={}",
+                    delivery.getDeliveryAttempt(), topic, consumerGroup, delivery.getMessageId());
+                deadLetters.add(delivery);
+                lock.lock();
+                try {
+                    release(delivery);
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            EmbeddedMessageView next = new EmbeddedMessageView(delivery.getMessage(), delivery.getDeliveryAttempt() + 1);
+            // a retried FIFO message keeps its group locked, so it is put back without going through offer()
+            Runnable requeue = () -> {
+                lock.lock();
+                try {
+                    ready.add(next);
+                    notEmpty.signal();
+                } finally {
+                    lock.unlock();
+                }
+            };
+            if (delayMillis > 0 && !closed) {
+                scheduler.schedule(requeue, delayMillis, TimeUnit.MILLISECONDS);
+            } else {
+                requeue.run();
+            }
+        }
+
+        private void release(EmbeddedMessageView delivery) {
+            String messageGroup = delivery.getMessage().getMessageGroup();
+            if (messageGroup == null) {
+                return;
+            }
+            ArrayDeque<EmbeddedMessageView> blocked = blockedGroups.get(messageGroup);
+            EmbeddedMessageView next = blocked == null ? null : blocked.poll();
+            if (next == null) {
+                blockedGroups.remove(messageGroup);
+            } else {
+                ready.add(next);
+                notEmpty.signal();
+            }
+        }
+
+        void expire(long now) {
+            List<EmbeddedMessageView> expired = null;
+            lock.lock();
+            try {
+                Iterator<Map.Entry<EmbeddedMessageView, Long>> iterator = invisibleDeadlines.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<EmbeddedMessageView, Long> entry = iterator.next();
+                    if (now - entry.getValue() >= 0) {
+                        iterator.remove();
+                        if (expired == null) {
+                            expired = new ArrayList<>();
+                        }
+                        expired.add(entry.getKey());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (expired != null) {
+                expired.forEach(delivery -> retry(delivery, 0));
+            }
+        }
+
+        int backlog() {
+            lock.lock();
+            try {
+                int blocked = 0;
+                for (ArrayDeque<EmbeddedMessageView> deque : blockedGroups.values()) {
+                    blocked += deque.size();
+                }
+                return ready.size() + blocked + invisibleDeadlines.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        String getTopic() {
+            return topic;
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.embedded;
+
+import org.apache.rocketmq.client.apis.ClientConfiguration;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.ClientServiceProvider;
+import org.apache.rocketmq.client.apis.consumer.FilterExpression;
+import org.apache.rocketmq.client.apis.consumer.MessageListener;
+import org.apache.rocketmq.client.apis.consumer.PushConsumer;
+import org.apache.rocketmq.client.apis.consumer.PushConsumerBuilder;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumerBuilder;
+import org.apache.rocketmq.client.apis.message.MessageBuilder;
+import org.apache.rocketmq.client.apis.producer.Producer;
+import org.apache.rocketmq.client.apis.producer.ProducerBuilder;
+import org.apache.rocketmq.client.apis.producer.TransactionChecker;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds producers and consumers connected to an {@link EmbeddedBroker} instead of a proxy,
+ * the client configuration is accepted and ignored.
+ */
+public class EmbeddedClientServiceProvider implements ClientServiceProvider {
+
+    private static final int DEFAULT_CONSUMPTION_THREAD_COUNT = 20;
+
+    private final ClientServiceProvider messageProvider = ClientServiceProvider.loadService();
+
+    private final EmbeddedBroker broker;
+
+    public EmbeddedClientServiceProvider(EmbeddedBroker broker) {
+        this.broker = Objects.requireNonNull(broker, "broker");
+    }
+
+    public EmbeddedBroker getBroker() {
+        return broker;
+    }
+
+    @Override
+    public ProducerBuilder newProducerBuilder() {
+        return new ProducerBuilder() {
+            private TransactionChecker checker;
+
+            @Override
+            public ProducerBuilder setClientConfiguration(ClientConfiguration clientConfiguration) {
+                return this;
+            }
+
+            @Override
+            public ProducerBuilder setTopics(String... topics) {
+                return this;
+            }
+
+            @Override
+            public ProducerBuilder setMaxAttempts(int maxAttempts) {
+                return this;
+            }
+
+            @Override
+            public ProducerBuilder setTransactionChecker(TransactionChecker checker) {
+                this.checker = checker;
+                return this;
+            }
+
+            @Override
+            public Producer build() throws ClientException {
+                broker.checkOpen();
+                return new EmbeddedProducer(broker, checker);
+            }
+        };
+    }
+
+    @Override
+    public MessageBuilder newMessageBuilder() {
+        return messageProvider.newMessageBuilder();
+    }
+
+    @Override
+    public PushConsumerBuilder newPushConsumerBuilder() {
+        return new PushConsumerBuilder() {
+            private String consumerGroup;
+
+            private Map<String, FilterExpression> subscriptionExpressions = Collections.emptyMap();
+
+            private MessageListener messageListener;
+
+            private int consumptionThreadCount = DEFAULT_CONSUMPTION_THREAD_COUNT;
+
+            @Override
+            public PushConsumerBuilder setClientConfiguration(ClientConfiguration clientConfiguration) {
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setConsumerGroup(String consumerGroup) {
+                this.consumerGroup = consumerGroup;
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setSubscriptionExpressions(Map<String, FilterExpression> subscriptionExpressions) {
+                this.subscriptionExpressions = subscriptionExpressions;
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setMessageListener(MessageListener listener) {
+                this.messageListener = listener;
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setMaxCacheMessageCount(int maxCachedMessageCount) {
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setMaxCacheMessageSizeInBytes(int maxCacheMessageSizeInBytes) {
+                return this;
+            }
+
+            @Override
+            public PushConsumerBuilder setConsumptionThreadCount(int consumptionThreadCount) {
+                this.consumptionThreadCount = consumptionThreadCount;
+                return this;
+            }
+
+            @Override
+            public PushConsumer build() throws ClientException {
+                broker.checkOpen();
+                Objects.requireNonNull(consumerGroup, "consumerGroup should not be null");
+                Objects.requireNonNull(messageListener, "messageListener should not be null");
+                try {
+                    return new EmbeddedPushConsumer(broker, consumerGroup, subscriptionExpressions, messageListener, consumptionThreadCount);
+                } catch (IllegalArgumentException e) {
+                    throw new ClientException(e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public SimpleConsumerBuilder newSimpleConsumerBuilder() {
+        return new SimpleConsumerBuilder() {
+            private String consumerGroup;
+
+            private Map<String, FilterExpression> subscriptionExpressions = Collections.emptyMap();
+
+            private Duration awaitDuration = Duration.ofSeconds(30);
+
+            @Override
+            public SimpleConsumerBuilder setClientConfiguration(ClientConfiguration clientConfiguration) {
+                return this;
+            }
+
+            @Override
+            public SimpleConsumerBuilder setConsumerGroup(String consumerGroup) {
+                this.consumerGroup = consumerGroup;
+                return this;
+            }
+
+            @Override
+            public SimpleConsumerBuilder setSubscriptionExpressions(Map<String, FilterExpression> subscriptionExpressions) {
+                this.subscriptionExpressions = subscriptionExpressions;
+                return this;
+            }
+
+            @Override
+            public SimpleConsumerBuilder setAwaitDuration(Duration awaitDuration) {
+                this.awaitDuration = awaitDuration;
+                return this;
+            }
+
+            @Override
+            public SimpleConsumer build() throws ClientException {
+                broker.checkOpen();
+                Objects.requireNonNull(consumerGroup, "consumerGroup should not be null");
+                try {
+                    return new EmbeddedSimpleConsumer(broker, consumerGroup, subscriptionExpressions, awaitDuration);
+                } catch (IllegalArgumentException e) {
+                    throw new ClientException(e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.embedded;
+
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.message.MessageId;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A message stored by the {@link EmbeddedBroker}, immutable once sent.
+ */
+final class EmbeddedMessage implements MessageId, SendReceipt {
+
+    private final String messageId;
+
+    private final String topic;
+
+    private final byte[] body;
+
+    private final Map<String, String> properties;
+
+    private final String tag;
+
+    private final Collection<String> keys;
+
+    private final String messageGroup;
+
+    private final Long deliveryTimestamp;
+
+    private final long bornTimestamp;
+
+    EmbeddedMessage(String messageId, Message message) {
+        this.messageId = messageId;
+        this.topic = message.getTopic();
+        ByteBuffer buffer = message.getBody();
+        this.body = new byte[buffer.remaining()];
+        buffer.duplicate().get(body);
+        this.properties = Collections.unmodifiableMap(message.getProperties());
+        this.tag = message.getTag().orElse(null);
+        this.keys = Collections.unmodifiableCollection(message.getKeys());
+        this.messageGroup = message.getMessageGroup().orElse(null);
+        this.deliveryTimestamp = message.getDeliveryTimestamp().orElse(null);
+        this.bornTimestamp = System.currentTimeMillis();
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    Map<String, String> getProperties() {
+        return properties;
+    }
+
+    String getTag() {
+        return tag;
+    }
+
+    Collection<String> getKeys() {
+        return keys;
+    }
+
+    String getMessageGroup() {
+        return messageGroup;
+    }
+
+    Long getDeliveryTimestamp() {
+        return deliveryTimestamp;
+    }
+
+    long getBornTimestamp() {
+        return bornTimestamp;
+    }
+
+    @Override
+    public MessageId getMessageId() {
+        return this;
+    }
+
+    @Override
+    public String getVersion() {
+        return "V1";
+    }
+
+    @Override
+    public String toString() {
+        return messageId;
+    }
+
+}
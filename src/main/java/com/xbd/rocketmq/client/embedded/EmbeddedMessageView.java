@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.embedded;
+
+import org.apache.rocketmq.client.apis.message.MessageId;
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One delivery of an {@link EmbeddedMessage}, it identifies the delivery to ack.
+ */
+final class EmbeddedMessageView implements MessageView {
+
+    private final EmbeddedMessage message;
+
+    private final int deliveryAttempt;
+
+    EmbeddedMessageView(EmbeddedMessage message, int deliveryAttempt) {
+        this.message = message;
+        this.deliveryAttempt = deliveryAttempt;
+    }
+
+    EmbeddedMessage getMessage() {
+        return message;
+    }
+
+    @Override
+    public MessageId getMessageId() {
+        return message;
+    }
+
+    @Override
+    public String getTopic() {
+        return message.getTopic();
+    }
+
+    @Override
+    public ByteBuffer getBody() {
+        return ByteBuffer.wrap(message.getBody()).asReadOnlyBuffer();
+    }
+
+    @Override
+    public Map<String, String> getProperties() {
+        return new HashMap<>(message.getProperties());
+    }
+
+    @Override
+    public Optional<String> getTag() {
+        return Optional.ofNullable(message.getTag());
+    }
+
+    @Override
+    public Collection<String> getKeys() {
+        return message.getKeys();
+    }
+
+    @Override
+    public Optional<String> getMessageGroup() {
+        return Optional.ofNullable(message.getMessageGroup());
+    }
+
+    @Override
+    public Optional<Long> getDeliveryTimestamp() {
+        return Optional.ofNullable(message.getDeliveryTimestamp());
+    }
+
+    @Override
+    public String getBornHost() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public long getBornTimestamp() {
+        return message.getBornTimestamp();
+    }
+
+    @Override
+    public int getDeliveryAttempt() {
+        return deliveryAttempt;
+    }
+
+    @Override
+    public String toString() {
+        return "EmbeddedMessageView{messageId=" + message + ", topic=" + getTopic() + ", deliveryAttempt=" + deliveryAttempt + "}";
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.embedded;
+
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.Producer;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.apache.rocketmq.client.apis.producer.Transaction;
+import org.apache.rocketmq.client.apis.producer.TransactionChecker;
+
+import java.util.concurrent.CompletableFuture;
+
+final class EmbeddedProducer implements Producer {
+
+    private final EmbeddedBroker broker;
+
+    private final TransactionChecker transactionChecker;
+
+    private volatile boolean closed;
+
+    EmbeddedProducer(EmbeddedBroker broker, TransactionChecker transactionChecker) {
+        this.broker = broker;
+        this.transactionChecker = transactionChecker;
+    }
+
+    TransactionChecker getTransactionChecker() {
+        return transactionChecker;
+    }
+
+    @Override
+    public SendReceipt send(Message message) throws ClientException {
+        checkOpen();
+        broker.beforeSend();
+        EmbeddedMessage stored = broker.store(message);
+        broker.publish(stored);
+        return stored;
+    }
+
+    @Override
+    public SendReceipt send(Message message, Transaction transaction) throws ClientException {
+        checkOpen();
+        if (!(transaction instanceof EmbeddedTransaction) || ((EmbeddedTransaction) transaction).getProducer() != this) {
+            throw new IllegalArgumentException("Transaction was not begun by this producer");
+        }
+        broker.beforeSend();
+        EmbeddedMessage stored = broker.store(message);
+        ((EmbeddedTransaction) transaction).add(stored);
+        return stored;
+    }
+
+    /**
+     * With an injected send latency the send waits on a broker thread instead of the caller.
+     */
+    @Override
+    public CompletableFuture<SendReceipt> sendAsync(Message message) {
+        CompletableFuture<SendReceipt> future = new CompletableFuture<>();
+        long latencyNanos = broker.getSendLatency().toNanos();
+        Runnable send = () -> {
+            try {
+                future.complete(send(message));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+        if (latencyNanos <= 0) {
+            send.run();
+            return future;
+        }
+        try {
+            broker.getAsyncExecutor().execute(send);
+        } catch (Exception e) {
+            future.completeExceptionally(new ClientException("Embedded broker is closed", e));
+        }
+        return future;
+    }
+
+    @Override
+    public Transaction beginTransaction() throws ClientException {
+        checkOpen();
+        EmbeddedTransaction transaction = new EmbeddedTransaction(broker, this);
+        broker.scheduleTransactionCheck(transaction, 0);
+        return transaction;
+    }
+
+    private void checkOpen() throws ClientException {
+        if (closed) {
+            throw new ClientException("Producer is closed");
+        }
+        broker.checkOpen();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.embedded;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.consumer.FilterExpression;
+import org.apache.rocketmq.client.apis.consumer.MessageListener;
+import org.apache.rocketmq.client.apis.consumer.PushConsumer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pulls from the consumer group queues on a dispatcher thread and runs the listener on
+ * {@code consumptionThreadCount} threads, a message is retried unless the listener returns SUCCESS.
+ */
+@Slf4j
+final class EmbeddedPushConsumer implements PushConsumer {
+
+    private static final int MAX_POLL_BATCH = 32;
+
+    private static final long POLL_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final EmbeddedBroker broker;
+
+    private final String consumerGroup;
+
+    private final MessageListener messageListener;
+
+    private final Map<String, FilterExpression> subscriptionExpressions = new ConcurrentHashMap<>();
+
+    private final Map<String, EmbeddedBroker.GroupQueue> queues = new ConcurrentHashMap<>();
+
+    private final ExecutorService consumptionExecutor;
+
+    private final Semaphore permits;
+
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    EmbeddedPushConsumer(EmbeddedBroker broker, String consumerGroup, Map<String, FilterExpression> subscriptionExpressions,
+                         MessageListener messageListener, int consumptionThreadCount) {
+        this.broker = broker;
+        this.consumerGroup = consumerGroup;
+        this.messageListener = messageListener;
+        AtomicInteger index = new AtomicInteger();
+        this.consumptionExecutor = Executors.newFixedThreadPool(consumptionThreadCount, r -> {
+            Thread thread = new Thread(r, "EmbeddedConsumption-" + consumerGroup + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.permits = new Semaphore(consumptionThreadCount);
+        subscriptionExpressions.forEach(this::subscribe);
+        this.dispatcher = new Thread(this::dispatchLoop, "EmbeddedDispatcher-" + consumerGroup);
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                break;
+            }
+            int acquired = 1;
+            while (acquired < MAX_POLL_BATCH && permits.tryAcquire()) {
+                acquired++;
+            }
+            int dispatched = 0;
+            try {
+                for (EmbeddedBroker.GroupQueue queue : queues.values()) {
+                    long timeout = queues.size() == 1 ? POLL_TIMEOUT_NANOS : 0;
+                    List<EmbeddedMessageView> deliveries = queue.poll(acquired - dispatched, timeout, 0);
+                    for (EmbeddedMessageView delivery : deliveries) {
+                        consume(queue, delivery);
+                        dispatched++;
+                    }
+                    if (dispatched == acquired) {
+                        break;
+                    }
+                }
+                if (dispatched == 0 && queues.size() != 1) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                permits.release(acquired - dispatched);
+            }
+        }
+    }
+
+    private void consume(EmbeddedBroker.GroupQueue queue, EmbeddedMessageView delivery) {
+        try {
+            consumptionExecutor.execute(() -> {
+                ConsumeResult result = ConsumeResult.FAILURE;
+                try {
+                    result = messageListener.consume(delivery);
+                } catch (Throwable t) {
+                    log.warn("Message listener failed, group={}, messageId={}", consumerGroup, delivery.getMessageId(), t);
+                } finally {
+                    if (running) {
+                        queue.complete(delivery, result == ConsumeResult.SUCCESS);
+                    } else {
+                        // a closed client no longer reports results
+                        queue.abandon(delivery);
+                    }
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queue.abandon(delivery);
+            permits.release();
+        }
+    }
+
+    @Override
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    @Override
+    public Map<String, FilterExpression> getSubscriptionExpressions() {
+        return Collections.unmodifiableMap(subscriptionExpressions);
+    }
+
+    @Override
+    public PushConsumer subscribe(String topic, FilterExpression filterExpression) {
+        queues.put(topic, broker.subscribe(topic, consumerGroup, filterExpression));
+        subscriptionExpressions.put(topic, filterExpression);
+        return this;
+    }
+
+    @Override
+    public PushConsumer unsubscribe(String topic) {
+        queues.remove(topic);
+        subscriptionExpressions.remove(topic);
+        return this;
+    }
+
+    /**
+     * Stops dispatching and waits for the running listener invocations, their deliveries are put back without
+     * counting the attempt since the results are no longer reported.
+     */
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        consumptionExecutor.shutdown();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(1));
+            if (!consumptionExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Listener invocations still running after close, group={}", consumerGroup);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.embedded;
+
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.consumer.FilterExpression;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+final class EmbeddedSimpleConsumer implements SimpleConsumer {
+
+    private final EmbeddedBroker broker;
+
+    private final String consumerGroup;
+
+    private final Duration awaitDuration;
+
+    private final Map<String, FilterExpression> subscriptionExpressions = new ConcurrentHashMap<>();
+
+    private final Map<String, EmbeddedBroker.GroupQueue> queues = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    EmbeddedSimpleConsumer(EmbeddedBroker broker, String consumerGroup, Map<String, FilterExpression> subscriptionExpressions,
+                           Duration awaitDuration) {
+        this.broker = broker;
+        this.consumerGroup = consumerGroup;
+        this.awaitDuration = awaitDuration;
+        subscriptionExpressions.forEach(this::subscribe);
+    }
+
+    @Override
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    @Override
+    public SimpleConsumer subscribe(String topic, FilterExpression filterExpression) {
+        queues.put(topic, broker.subscribe(topic, consumerGroup, filterExpression));
+        subscriptionExpressions.put(topic, filterExpression);
+        return this;
+    }
+
+    @Override
+    public SimpleConsumer unsubscribe(String topic) {
+        queues.remove(topic);
+        subscriptionExpressions.remove(topic);
+        return this;
+    }
+
+    @Override
+    public Map<String, FilterExpression> getSubscriptionExpressions() {
+        return Collections.unmodifiableMap(subscriptionExpressions);
+    }
+
+    /**
+     * Waits up to the await duration for messages, like a long polling receive.
+     */
+    @Override
+    public List<MessageView> receive(int maxMessageNum, Duration invisibleDuration) throws ClientException {
+        checkOpen();
+        if (queues.isEmpty()) {
+            throw new ClientException("No subscription of consumer group " + consumerGroup);
+        }
+        long deadline = System.nanoTime() + awaitDuration.toNanos();
+        try {
+            while (true) {
+                List<MessageView> messages = new ArrayList<>();
+                for (EmbeddedBroker.GroupQueue queue : queues.values()) {
+                    long timeout = queues.size() == 1 ? deadline - System.nanoTime() : 0;
+                    messages.addAll(queue.poll(maxMessageNum - messages.size(), timeout, invisibleDuration.toNanos()));
+                    if (messages.size() == maxMessageNum) {
+                        break;
+                    }
+                }
+                if (!messages.isEmpty() || closed || deadline - System.nanoTime() <= 0) {
+                    return messages;
+                }
+                if (queues.size() != 1) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while receiving messages", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<MessageView>> receiveAsync(int maxMessageNum, Duration invisibleDuration) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return receive(maxMessageNum, invisibleDuration);
+            } catch (ClientException e) {
+                throw new IllegalStateException(e);
+            }
+        }, broker.getAsyncExecutor());
+    }
+
+    @Override
+    public void ack(MessageView messageView) throws ClientException {
+        checkOpen();
+        broker.beforeAck();
+        if (!queueOf(messageView).ack((EmbeddedMessageView) messageView)) {
+            throw new ClientException("Invisible duration of message " + messageView.getMessageId() + " has expired");
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> ackAsync(MessageView messageView) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            ack(messageView);
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    @Override
+    public void changeInvisibleDuration(MessageView messageView, Duration invisibleDuration) throws ClientException {
+        checkOpen();
+        if (!queueOf(messageView).changeInvisibleDuration((EmbeddedMessageView) messageView, invisibleDuration)) {
+            throw new ClientException("Invisible duration of message " + messageView.getMessageId() + " has expired");
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> changeInvisibleDurationAsync(MessageView messageView, Duration invisibleDuration) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            changeInvisibleDuration(messageView, invisibleDuration);
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    private EmbeddedBroker.GroupQueue queueOf(MessageView messageView) throws ClientException {
+        EmbeddedBroker.GroupQueue queue = queues.get(messageView.getTopic());
+        if (queue == null || !(messageView instanceof EmbeddedMessageView)) {
+            throw new ClientException("Message " + messageView.getMessageId() + " was not received by this consumer");
+        }
+        return queue;
+    }
+
+    private void checkOpen() throws ClientException {
+        if (closed) {
+            throw new ClientException("SimpleConsumer is closed");
+        }
+        broker.checkOpen();
+    }
+
+    /**
+     * Messages received but not acked become visible again once their invisible duration expires.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+}
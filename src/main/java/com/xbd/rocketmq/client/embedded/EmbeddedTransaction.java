@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.embedded;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.producer.Transaction;
+import org.apache.rocketmq.client.apis.producer.TransactionChecker;
+import org.apache.rocketmq.client.apis.producer.TransactionResolution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds its half messages until it is committed, rolled back, or resolved by a transaction check.
+ */
+@Slf4j
+final class EmbeddedTransaction implements Transaction {
+
+    private final EmbeddedBroker broker;
+
+    private final EmbeddedProducer producer;
+
+    private final List<EmbeddedMessage> halfMessages = new ArrayList<>();
+
+    private boolean open = true;
+
+    EmbeddedTransaction(EmbeddedBroker broker, EmbeddedProducer producer) {
+        this.broker = broker;
+        this.producer = producer;
+    }
+
+    EmbeddedProducer getProducer() {
+        return producer;
+    }
+
+    synchronized void add(EmbeddedMessage message) throws ClientException {
+        if (!open) {
+            throw new ClientException("Transaction has been resolved already");
+        }
+        halfMessages.add(message);
+    }
+
+    synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void commit() throws ClientException {
+        if (!resolve(true)) {
+            throw new ClientException("Transaction has been resolved already");
+        }
+    }
+
+    @Override
+    public void rollback() throws ClientException {
+        if (!resolve(false)) {
+            throw new ClientException("Transaction has been resolved already");
+        }
+    }
+
+    boolean resolve(boolean commit) {
+        List<EmbeddedMessage> messages;
+        synchronized (this) {
+            if (!open) {
+                return false;
+            }
+            open = false;
+            messages = new ArrayList<>(halfMessages);
+            halfMessages.clear();
+        }
+        if (commit) {
+            messages.forEach(broker::publish);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the check resolved the transaction
+     */
+    boolean check() {
+        TransactionChecker checker = producer.getTransactionChecker();
+        EmbeddedMessage first;
+        synchronized (this) {
+            if (checker == null || halfMessages.isEmpty()) {
+                return false;
+            }
+            first = halfMessages.get(0);
+        }
+        TransactionResolution resolution;
+        try {
+            resolution = checker.check(new EmbeddedMessageView(first, 1));
+        } catch (Throwable t) {
+            log.warn("Transaction check failed, messageId={}", first, t);
+            return false;
+        }
+        if (resolution == TransactionResolution.COMMIT || resolution == TransactionResolution.ROLLBACK) {
+            resolve(resolution == TransactionResolution.COMMIT);
+            return true;
+        }
+        return false;
+    }
+
+}
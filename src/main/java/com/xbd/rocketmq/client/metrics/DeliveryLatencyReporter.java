@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out the {@link DeliveryLatencyTracker} of every listener container and publishes the histograms
+ * of all of them to the sink once per interval, resetting them for the next interval.
+ */
+@Slf4j
+public class DeliveryLatencyReporter {
+
+    private final LatencySink sink;
+
+    private final double sampleRate;
+
+    private final Map<String, DeliveryLatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    public DeliveryLatencyReporter(LatencySink sink, double sampleRate, Duration publishInterval) {
+        this.sink = sink;
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "RocketMQLatencyReporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = publishInterval.toMillis();
+        scheduler.scheduleAtFixedRate(this::publish, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The tracker of the consumer group and topic, containers restarted with the same group and topic share it.
+     */
+    public DeliveryLatencyTracker tracker(String consumerGroup, String topic) {
+        return trackers.computeIfAbsent(consumerGroup + '\n' + topic, key -> new DeliveryLatencyTracker(consumerGroup, topic, sampleRate));
+    }
+
+    public void publish() {
+        for (DeliveryLatencyTracker tracker : trackers.values()) {
+            for (LatencyStage stage : LatencyStage.values()) {
+                try {
+                    sink.publish(tracker.getConsumerGroup(), tracker.getTopic(), stage, tracker.getHistogram(stage).snapshotAndReset());
+                } catch (Exception e) {
+                    log.warn("Latency sink failed, consumerGroup={}, stage={}", tracker.getConsumerGroup(), stage, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes the last partial interval and stops.
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        publish();
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.metrics;
+
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Splits the delivery latency of the messages of one listener container into {@link LatencyStage stages},
+ * recorded in microseconds. Stages spanning two hosts are subject to their clock skew.
+ */
+public class DeliveryLatencyTracker {
+
+    /**
+     * user property holding the epoch microseconds the template built the message at, namespaced like
+     * {@link com.xbd.rocketmq.client.converter.MessageConverter#CONTENT_TYPE_PROPERTY} so a value set by other
+     * producers does not end up in the histograms
+     */
+    public static final String SEND_TIMESTAMP_PROPERTY = "rocketmq.sendTimestamp";
+
+    private static volatile long epochMicrosOffset = calibrate();
+
+    private final String consumerGroup;
+
+    private final String topic;
+
+    private final double sampleRate;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[LatencyStage.values().length];
+
+    public DeliveryLatencyTracker(String consumerGroup, String topic, double sampleRate) {
+        this.consumerGroup = consumerGroup;
+        this.topic = topic;
+        this.sampleRate = sampleRate;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Epoch time in microseconds, System.currentTimeMillis() has millisecond resolution only on Java 8.
+     * Follows System.nanoTime() and recalibrates once it drifts more than a millisecond from the wall clock.
+     */
+    public static long currentTimeMicros() {
+        long micros = epochMicrosOffset + System.nanoTime() / 1000;
+        long millis = System.currentTimeMillis();
+        if (Math.abs(micros / 1000 - millis) > 1) {
+            epochMicrosOffset = calibrate();
+            micros = epochMicrosOffset + System.nanoTime() / 1000;
+        }
+        return micros;
+    }
+
+    private static long calibrate() {
+        return System.currentTimeMillis() * 1000 - System.nanoTime() / 1000;
+    }
+
+    /**
+     * Records the message if it is sampled, called once the listener returned.
+     *
+     * @param receivedNanos System.nanoTime() the message was received at, 0 if unknown
+     * @param startNanos    System.nanoTime() the listener was called at
+     */
+    public void record(MessageView messageView, long receivedNanos, long startNanos, long executionNanos) {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        long endMicros = currentTimeMicros();
+        long startMicros = endMicros - executionNanos / 1000;
+        long receivedMicros = receivedNanos == 0 ? startMicros : startMicros - (startNanos - receivedNanos) / 1000;
+        long bornMicros = messageView.getBornTimestamp() * 1000;
+        long deliveryMicros = messageView.getDeliveryTimestamp().orElse(0L) * 1000;
+        long sentMicros = parseSendTimestamp(messageView.getProperties().get(SEND_TIMESTAMP_PROPERTY));
+        if (sentMicros > 0) {
+            histograms[LatencyStage.PRODUCER.ordinal()].record(bornMicros - sentMicros);
+        }
+        histograms[LatencyStage.BROKER.ordinal()].record(receivedMicros - Math.max(bornMicros, deliveryMicros));
+        if (receivedNanos != 0) {
+            histograms[LatencyStage.QUEUE.ordinal()].record(startMicros - receivedMicros);
+        }
+        histograms[LatencyStage.EXECUTION.ordinal()].record(executionNanos / 1000);
+        long originMicros = sentMicros > 0 ? sentMicros : bornMicros;
+        histograms[LatencyStage.END_TO_END.ordinal()].record(endMicros - Math.max(originMicros, deliveryMicros));
+    }
+
+    private static long parseSendTimestamp(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public LatencyHistogram getHistogram(LatencyStage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.metrics;
+
+/**
+ * The legs of the way a message takes from the producer into the listener.
+ */
+public enum LatencyStage {
+
+    /**
+     * send timestamp stamped by the template to the born timestamp, time spent in the producer before the send
+     */
+    PRODUCER,
+
+    /**
+     * born timestamp, or delivery timestamp of delay messages, to the receive, storage and delivery lag of the broker
+     */
+    BROKER,
+
+    /**
+     * receive to listener start, local queueing in the container, not recorded in PUSH mode
+     */
+    QUEUE,
+
+    /**
+     * listener execution
+     */
+    EXECUTION,
+
+    /**
+     * send timestamp, or born timestamp if the message has none, to the end of the listener execution
+     */
+    END_TO_END
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the last interval of every container and stage as gauges, the percentiles of the interval
+ * under the quantile tag and the number of samples as {@value #LATENCY_SAMPLES_METRIC}.
+ */
+public class MicrometerLatencySink implements LatencySink {
+
+    public static final String LATENCY_METRIC = "rocketmq.consume.latency";
+    public static final String LATENCY_SAMPLES_METRIC = "rocketmq.consume.latency.samples";
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+
+    private final MeterRegistry registry;
+
+    private final Map<String, AtomicReference<LatencySnapshot>> lastSnapshots = new ConcurrentHashMap<>();
+
+    public MicrometerLatencySink(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void publish(String consumerGroup, String topic, LatencyStage stage, LatencySnapshot snapshot) {
+        AtomicReference<LatencySnapshot> holder = lastSnapshots.computeIfAbsent(consumerGroup + '\n' + topic + '\n' + stage, key -> {
+            AtomicReference<LatencySnapshot> h = new AtomicReference<>();
+            for (double percentile : PERCENTILES) {
+                Gauge.builder(LATENCY_METRIC, h, s -> s.get() == null ? 0 : s.get().getValueAtPercentile(percentile) / 1e6)
+                    .baseUnit("seconds")
+                    .tag("consumerGroup", consumerGroup)
+                    .tag("topic", topic)
+                    .tag("stage", stage.name())
+                    .tag("quantile", percentile == 100 ? "max" : Double.toString(percentile / 100))
+                    .register(registry);
+            }
+            Gauge.builder(LATENCY_SAMPLES_METRIC, h, s -> s.get() == null ? 0 : s.get().getCount())
+                .tag("consumerGroup", consumerGroup)
+                .tag("topic", topic)
+                .tag("stage", stage.name())
+                .register(registry);
+            return h;
+        });
+        holder.set(snapshot);
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.metrics;
+
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.outbox.RocketMQOutbox;
+import com.xbd.rocketmq.client.support.AbstractRocketMQListenerContainer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters are created on first use and cached in topic -> tag -> send type lookups,
+ * so recording needs neither string concatenation nor tag arrays.
+ */
+public class MicrometerRocketMQMetrics implements RocketMQMetrics {
+
+    public static final String SEND_METRIC = "rocketmq.send";
+    public static final String SEND_PAYLOAD_METRIC = "rocketmq.send.payload";
+    public static final String SEND_IN_FLIGHT_METRIC = "rocketmq.send.in.flight";
+    public static final String SEND_DECISION_METRIC = "rocketmq.send.decision";
+    public static final String OUTBOX_BACKLOG_METRIC = "rocketmq.outbox.backlog";
+    public static final String CONSUME_METRIC = "rocketmq.consume";
+    public static final String CONSUME_PAYLOAD_METRIC = "rocketmq.consume.payload";
+    public static final String CONSUME_IN_FLIGHT_METRIC = "rocketmq.consume.in.flight";
+
+    private static final String NO_TAG = "none";
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, SendMeters[]>> sendMeters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Counter[]> sendDecisionCounters = new ConcurrentHashMap<>();
+
+    public MicrometerRocketMQMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordSend(String topic, String tag, SendType sendType, long latencyNanos, boolean success, int payloadBytes) {
+        SendMeters meters = sendMeters(topic, tag == null ? NO_TAG : tag, sendType);
+        (success ? meters.success : meters.failure).record(latencyNanos, TimeUnit.NANOSECONDS);
+        meters.payload.record(payloadBytes);
+    }
+
+    private SendMeters sendMeters(String topic, String tag, SendType sendType) {
+        ConcurrentMap<String, SendMeters[]> byTag = sendMeters.get(topic);
+        if (byTag == null) {
+            byTag = sendMeters.computeIfAbsent(topic, t -> new ConcurrentHashMap<>());
+        }
+        SendMeters[] byType = byTag.get(tag);
+        if (byType == null) {
+            byType = byTag.computeIfAbsent(tag, t -> new SendMeters[SendType.values().length]);
+        }
+        SendMeters meters = byType[sendType.ordinal()];
+        if (meters == null) {
+            synchronized (byType) {
+                meters = byType[sendType.ordinal()];
+                if (meters == null) {
+                    meters = new SendMeters(registry, topic, tag, sendType);
+                    byType[sendType.ordinal()] = meters;
+                }
+            }
+        }
+        return meters;
+    }
+
+    @Override
+    public void recordSendDecision(String topic, SendDecision decision) {
+        Counter[] counters = sendDecisionCounters.get(topic);
+        if (counters == null) {
+            counters = sendDecisionCounters.computeIfAbsent(topic, t -> {
+                Counter[] byDecision = new Counter[SendDecision.values().length];
+                for (SendDecision d : SendDecision.values()) {
+                    byDecision[d.ordinal()] = Counter.builder(SEND_DECISION_METRIC)
+                        .tag("topic", t)
+                        .tag("decision", d.name())
+                        .register(registry);
+                }
+                return byDecision;
+            });
+        }
+        counters[decision.ordinal()].increment();
+    }
+
+    @Override
+    public ConsumeRecorder consumeRecorder(String consumerGroup, String topic) {
+        Timer success = consumeTimer(consumerGroup, topic, ConsumeResult.SUCCESS);
+        Timer failure = consumeTimer(consumerGroup, topic, ConsumeResult.FAILURE);
+        DistributionSummary payload = DistributionSummary.builder(CONSUME_PAYLOAD_METRIC)
+            .baseUnit("bytes")
+            .tag("consumerGroup", consumerGroup)
+            .tag("topic", topic)
+            .publishPercentileHistogram()
+            .register(registry);
+        return (latencyNanos, result, payloadBytes) -> {
+            (result == ConsumeResult.SUCCESS ? success : failure).record(latencyNanos, TimeUnit.NANOSECONDS);
+            payload.record(payloadBytes);
+        };
+    }
+
+    private Timer consumeTimer(String consumerGroup, String topic, ConsumeResult result) {
+        return Timer.builder(CONSUME_METRIC)
+            .tag("consumerGroup", consumerGroup)
+            .tag("topic", topic)
+            .tag("result", result.name())
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    @Override
+    public void bindTemplate(String name, RocketMQTemplate template) {
+        Gauge.builder(SEND_IN_FLIGHT_METRIC, template, RocketMQTemplate::getAsyncInFlight)
+            .tag("template", name)
+            .register(registry);
+    }
+
+    @Override
+    public void bindOutboxBacklog(String topic, RocketMQOutbox outbox) {
+        Gauge.builder(OUTBOX_BACKLOG_METRIC, outbox, o -> o.getBacklog(topic))
+            .tag("topic", topic)
+            .register(registry);
+    }
+
+    @Override
+    public void bindContainer(AbstractRocketMQListenerContainer container) {
+        Gauge.builder(CONSUME_IN_FLIGHT_METRIC, container, AbstractRocketMQListenerContainer::getInFlight)
+            .tag("consumerGroup", container.getConsumerGroup())
+            .tag("topic", container.getTopic())
+            .register(registry);
+    }
+
+    private static final class SendMeters {
+
+        private final Timer success;
+
+        private final Timer failure;
+
+        private final DistributionSummary payload;
+
+        private SendMeters(MeterRegistry registry, String topic, String tag, SendType sendType) {
+            this.success = sendTimer(registry, topic, tag, sendType, "success");
+            this.failure = sendTimer(registry, topic, tag, sendType, "failure");
+            this.payload = DistributionSummary.builder(SEND_PAYLOAD_METRIC)
+                .baseUnit("bytes")
+                .tag("topic", topic)
+                .tag("tag", tag)
+                .tag("type", sendType.name())
+                .publishPercentileHistogram()
+                .register(registry);
+        }
+
+        private static Timer sendTimer(MeterRegistry registry, String topic, String tag, SendType sendType, String result) {
+            return Timer.builder(SEND_METRIC)
+                .tag("topic", topic)
+                .tag("tag", tag)
+                .tag("type", sendType.name())
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.metrics;
+
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.outbox.RocketMQOutbox;
+import com.xbd.rocketmq.client.support.AbstractRocketMQListenerContainer;
+
+/**
+ * Hooks called from the producer and consumer hot paths, implementations must not allocate per call.
+ */
+public interface RocketMQMetrics {
+
+    RocketMQMetrics NOOP = new RocketMQMetrics() {
+    };
+
+    default void recordSend(String topic, String tag, SendType sendType, long latencyNanos, boolean success, int payloadBytes) {
+    }
+
+    default void recordSendDecision(String topic, SendDecision decision) {
+    }
+
+    default ConsumeRecorder consumeRecorder(String consumerGroup, String topic) {
+        return ConsumeRecorder.NOOP;
+    }
+
+    default void bindTemplate(String name, RocketMQTemplate template) {
+    }
+
+    default void bindOutboxBacklog(String topic, RocketMQOutbox outbox) {
+    }
+
+    default void bindContainer(AbstractRocketMQListenerContainer container) {
+    }
+
+}
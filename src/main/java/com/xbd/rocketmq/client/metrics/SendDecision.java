@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.metrics;
+
+/**
+ * Decisions taken by the send policies of a topic.
+ */
+public enum SendDecision {
+
+    /**
+     * a failed attempt is retried after its backoff
+     */
+    RETRY,
+
+    /**
+     * a slow attempt got a hedged duplicate send
+     */
+    HEDGE,
+
+    /**
+     * a send failed fast because the circuit breaker of the topic is open
+     */
+    REJECTED,
+
+    /**
+     * a send failed because its deadline passed or would pass before the next attempt
+     */
+    DEADLINE_EXCEEDED,
+
+    /**
+     * a send failed after using up its attempts
+     */
+    EXHAUSTED,
+
+    /**
+     * the circuit breaker of the topic opened
+     */
+    CIRCUIT_OPENED,
+
+    /**
+     * the circuit breaker of the topic closed after a successful probe
+     */
+    CIRCUIT_CLOSED,
+
+    /**
+     * a failed or overflowing send was written to the outbox to be replayed later
+     */
+    SPILLED
+
+}
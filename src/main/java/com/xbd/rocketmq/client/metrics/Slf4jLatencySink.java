@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Locale;
+
+/**
+ * Logs one line per container and stage, the sink used when there is neither a sink bean nor a MeterRegistry.
+ */
+@Slf4j
+public class Slf4jLatencySink implements LatencySink {
+
+    @Override
+    public void publish(String consumerGroup, String topic, LatencyStage stage, LatencySnapshot snapshot) {
+        if (snapshot.getCount() == 0) {
+            return;
+        }
+        log.info("Delivery latency consumerGroup={}, topic={}, stage={}, count={}, mean={}ms, p50={}ms, p99={}ms, p999={}ms, max={}ms",
+            consumerGroup, topic, stage, snapshot.getCount(), millis(snapshot.getMean()), millis(snapshot.getValueAtPercentile(50)),
+            millis(snapshot.getValueAtPercentile(99)), millis(snapshot.getValueAtPercentile(99.9)), millis(snapshot.getMax()));
+    }
+
+    private static String millis(double micros) {
+        return String.format(Locale.ROOT, "%.3f", micros / 1000);
+    }
+
+}
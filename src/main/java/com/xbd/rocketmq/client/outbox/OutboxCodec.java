@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.outbox;
+
+import org.apache.rocketmq.client.apis.ClientServiceProvider;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.message.MessageBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Serializes everything a message is rebuilt from: topic, tag, keys, message group, delivery timestamp,
+ * properties and body. The topic comes first so recovery can count the backlog without decoding the rest.
+ */
+final class OutboxCodec {
+
+    private OutboxCodec() {
+    }
+
+    static byte[] encode(Message message) throws IOException {
+        ByteBuffer body = message.getBody().duplicate();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.remaining() + 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, message.getTopic());
+        writeString(out, message.getTag().orElse(null));
+        Collection<String> keys = message.getKeys();
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            writeString(out, key);
+        }
+        writeString(out, message.getMessageGroup().orElse(null));
+        out.writeLong(message.getDeliveryTimestamp().orElse(-1L));
+        Map<String, String> properties = message.getProperties();
+        out.writeInt(properties.size());
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            writeString(out, property.getKey());
+            writeString(out, property.getValue());
+        }
+        out.writeInt(body.remaining());
+        byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+        out.write(payload);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static String decodeTopic(byte[] record) {
+        return readString(ByteBuffer.wrap(record));
+    }
+
+    static Message decode(ClientServiceProvider provider, byte[] record) {
+        ByteBuffer in = ByteBuffer.wrap(record);
+        MessageBuilder builder = provider.newMessageBuilder().setTopic(readString(in));
+        String tag = readString(in);
+        if (tag != null) {
+            builder.setTag(tag);
+        }
+        int keyCount = in.getInt();
+        if (keyCount > 0) {
+            String[] keys = new String[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keys[i] = readString(in);
+            }
+            builder.setKeys(keys);
+        }
+        String messageGroup = readString(in);
+        if (messageGroup != null) {
+            builder.setMessageGroup(messageGroup);
+        }
+        long deliveryTimestamp = in.getLong();
+        if (deliveryTimestamp >= 0) {
+            builder.setDeliveryTimestamp(deliveryTimestamp);
+        }
+        int propertyCount = in.getInt();
+        for (int i = 0; i < propertyCount; i++) {
+            builder.addProperty(readString(in), readString(in));
+        }
+        byte[] body = new byte[in.getInt()];
+        in.get(body);
+        return builder.setBody(body).build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.outbox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * A fixed size memory mapped file of records laid out as length, crc32 of the payload, state and payload.
+ * The length is written last, so a record torn by a crash ends the segment on recovery. Replayed records
+ * get their state flipped to DONE in place.
+ */
+final class OutboxSegment {
+
+    static final int HEADER_SIZE = 9;
+
+    private static final byte PENDING = 1;
+
+    private static final byte DONE = 2;
+
+    private final long index;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    /**
+     * end of the records written so far, read by the drainer without taking the append lock
+     */
+    private volatile int writePosition;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private OutboxSegment(long index, Path path, int size) throws IOException {
+        this.index = index;
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    static OutboxSegment create(Path directory, long index, int size) throws IOException {
+        return new OutboxSegment(index, directory.resolve(fileName(index)), size);
+    }
+
+    /**
+     * Maps an existing segment and reports each pending record with its offset.
+     */
+    static OutboxSegment recover(Path path, long index, int size, BiConsumer<Integer, byte[]> pendingRecords) throws IOException {
+        OutboxSegment segment = new OutboxSegment(index, path, size);
+        int position = 0;
+        while (position + HEADER_SIZE <= size) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            byte[] payload = segment.payload(position, length);
+            if (segment.buffer.getInt(position + 4) != crc(payload)) {
+                break;
+            }
+            if (segment.buffer.get(position + 8) == PENDING) {
+                segment.pending.incrementAndGet();
+                pendingRecords.accept(position, payload);
+            }
+            position += HEADER_SIZE + length;
+        }
+        segment.writePosition = position;
+        return segment;
+    }
+
+    static String fileName(long index) {
+        return String.format("%020d.seg", index);
+    }
+
+    /**
+     * Called under the append lock of the outbox.
+     *
+     * @return offset of the record, -1 if the segment has no room left for it
+     */
+    int append(byte[] payload, boolean sync) {
+        int position = writePosition;
+        if (position + HEADER_SIZE + payload.length > buffer.capacity()) {
+            return -1;
+        }
+        ByteBuffer target = buffer.duplicate();
+        target.position(position + 4);
+        target.putInt(crc(payload));
+        target.put(PENDING);
+        target.put(payload);
+        buffer.putInt(position, payload.length);
+        if (sync) {
+            buffer.force();
+        }
+        pending.incrementAndGet();
+        writePosition = position + HEADER_SIZE + payload.length;
+        return position;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    boolean isPending(int position) {
+        return buffer.get(position + 8) == PENDING;
+    }
+
+    int recordLength(int position) {
+        return buffer.getInt(position);
+    }
+
+    byte[] payload(int position, int length) {
+        byte[] payload = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(position + HEADER_SIZE);
+        source.get(payload);
+        return payload;
+    }
+
+    /**
+     * @return the records of the segment still pending
+     */
+    int markDone(int position) {
+        buffer.put(position + 8, DONE);
+        return pending.decrementAndGet();
+    }
+
+    int getPending() {
+        return pending.get();
+    }
+
+    long getIndex() {
+        return index;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+}
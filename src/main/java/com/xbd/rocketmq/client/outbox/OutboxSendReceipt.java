@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.outbox;
+
+import org.apache.rocketmq.client.apis.message.MessageId;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+
+/**
+ * Returned instead of a broker receipt when the message was written to the outbox, the broker assigns the real
+ * message id once the outbox is drained.
+ */
+public class OutboxSendReceipt implements SendReceipt, MessageId {
+
+    public static final String VERSION = "OUTBOX";
+
+    private final String id;
+
+    OutboxSendReceipt(long segment, int offset) {
+        this.id = VERSION + "-" + segment + "-" + offset;
+    }
+
+    @Override
+    public MessageId getMessageId() {
+        return this;
+    }
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+
+}
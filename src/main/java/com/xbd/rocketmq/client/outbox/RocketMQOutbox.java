@@ -0,0 +1,399 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.outbox;
+
+import com.xbd.rocketmq.client.core.SendPolicyExecutor;
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.ClientServiceProvider;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Local write-ahead outbox for messages the broker could not take. Messages are appended to memory mapped segment
+ * files of a fixed size, a new segment is started when the current one is full and a segment is deleted once all
+ * its messages are replayed. A single drainer thread replays the pending messages in append order with at most
+ * drainConcurrency sends in flight; after a failed send it waits for the in-flight ones, backs off exponentially
+ * and starts over from the oldest pending message.
+ * <p>
+ * Delivery is at least once: a message sent but not yet marked as replayed when the process dies is sent again
+ * after the restart. Messages with a message group are refused: replaying them concurrently, and later sends of
+ * the group passing the ones still pending, would break the order of the group.
+ */
+@Slf4j
+public class RocketMQOutbox implements Closeable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final boolean syncWrites;
+
+    private final ClientServiceProvider provider;
+
+    private final RocketMQMetrics metrics;
+
+    private final ConcurrentNavigableMap<Long, OutboxSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> backlog = new ConcurrentHashMap<>();
+
+    private final Object appendLock = new Object();
+
+    private OutboxSegment active;
+
+    private volatile boolean closed;
+
+    private Thread drainer;
+
+    private Function<Message, CompletableFuture<SendReceipt>> sender;
+
+    private Semaphore drainPermits;
+
+    private int drainConcurrency;
+
+    private long retryIntervalNanos;
+
+    private long maxRetryIntervalNanos;
+
+    private volatile Throwable drainFailure;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * Recovers the pending messages of the segments found in the directory.
+     */
+    public RocketMQOutbox(Path directory, int segmentSize, boolean syncWrites, ClientServiceProvider provider,
+                          RocketMQMetrics metrics) throws IOException {
+        if (segmentSize <= OutboxSegment.HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+        this.provider = provider;
+        this.metrics = metrics;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.seg")) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            String name = file.getFileName().toString();
+            long index;
+            try {
+                index = Long.parseLong(name.substring(0, name.length() - ".seg".length()));
+            } catch (NumberFormatException e) {
+                log.warn("Skip unknown file in outbox directory: {}", file);
+                continue;
+            }
+            int size = (int) Math.max(Files.size(file), segmentSize);
+            OutboxSegment segment = OutboxSegment.recover(file, index, size,
+                (position, payload) -> backlogOf(OutboxCodec.decodeTopic(payload)).incrementAndGet());
+            if (segment.getPending() == 0 && i < files.size() - 1) {
+                segment.delete();
+            } else {
+                segments.put(index, segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            active = OutboxSegment.create(directory, 0, segmentSize);
+            segments.put(0L, active);
+        } else {
+            active = segments.lastEntry().getValue();
+            log.info("Recovered {} pending messages from outbox {}", getTotalBacklog(), directory);
+        }
+    }
+
+    /**
+     * Starts replaying the pending messages through the given sender.
+     */
+    public synchronized void start(Function<Message, CompletableFuture<SendReceipt>> sender, int drainConcurrency,
+                                   Duration retryInterval, Duration maxRetryInterval) {
+        if (drainer != null) {
+            return;
+        }
+        this.sender = sender;
+        this.drainConcurrency = Math.max(1, drainConcurrency);
+        this.drainPermits = new Semaphore(this.drainConcurrency);
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.maxRetryIntervalNanos = Math.max(retryIntervalNanos, maxRetryInterval.toNanos());
+        this.drainer = new Thread(this::drainLoop, "RocketMQOutbox-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Appends the message, it is sent by the drainer later on.
+     *
+     * @throws IllegalArgumentException if the message has a message group
+     */
+    public OutboxSendReceipt append(Message message) throws IOException {
+        if (message.getMessageGroup().isPresent()) {
+            throw new IllegalArgumentException("FIFO messages are not taken by the outbox, topic=" + message.getTopic());
+        }
+        byte[] payload = OutboxCodec.encode(message);
+        if (payload.length + OutboxSegment.HEADER_SIZE > segmentSize) {
+            throw new IOException("Message of " + payload.length + " bytes does not fit an outbox segment of " + segmentSize + " bytes");
+        }
+        AtomicLong topicBacklog = backlogOf(message.getTopic());
+        OutboxSendReceipt receipt;
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IOException("Outbox is closed");
+            }
+            // counted before the drainer can see the message
+            topicBacklog.incrementAndGet();
+            int offset = active.append(payload, syncWrites);
+            if (offset < 0) {
+                rotate();
+                offset = active.append(payload, syncWrites);
+            }
+            receipt = new OutboxSendReceipt(active.getIndex(), offset);
+        }
+        Thread drainer = this.drainer;
+        if (drainer != null) {
+            LockSupport.unpark(drainer);
+        }
+        return receipt;
+    }
+
+    private void rotate() throws IOException {
+        OutboxSegment full = active;
+        active = OutboxSegment.create(directory, full.getIndex() + 1, segmentSize);
+        segments.put(active.getIndex(), active);
+        if (full.getPending() == 0 && segments.remove(full.getIndex(), full)) {
+            full.delete();
+        }
+    }
+
+    private void drainLoop() {
+        long segmentIndex = -1;
+        int position = 0;
+        while (!closed) {
+            if (drainFailure != null) {
+                awaitInFlight();
+                backOff();
+                drainFailure = null;
+                segmentIndex = -1;
+                continue;
+            }
+            Map.Entry<Long, OutboxSegment> entry = segmentIndex < 0 ? segments.firstEntry() : segments.ceilingEntry(segmentIndex);
+            if (entry == null) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            if (entry.getKey() != segmentIndex) {
+                segmentIndex = entry.getKey();
+                position = 0;
+            }
+            OutboxSegment segment = entry.getValue();
+            if (position >= segment.getWritePosition()) {
+                if (segmentIndex == segments.lastKey()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                } else {
+                    segmentIndex++;
+                }
+                continue;
+            }
+            int recordPosition = position;
+            int length = segment.recordLength(recordPosition);
+            position += OutboxSegment.HEADER_SIZE + length;
+            if (!segment.isPending(recordPosition)) {
+                continue;
+            }
+            try {
+                drainPermits.acquire();
+            } catch (InterruptedException e) {
+                break;
+            }
+            replay(segment, recordPosition, segment.payload(recordPosition, length));
+        }
+    }
+
+    private void replay(OutboxSegment segment, int position, byte[] payload) {
+        Message message;
+        CompletableFuture<SendReceipt> future;
+        try {
+            message = OutboxCodec.decode(provider, payload);
+            future = sender.apply(message);
+        } catch (Throwable t) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(t);
+            message = null;
+        }
+        String topic = message != null ? message.getTopic() : OutboxCodec.decodeTopic(payload);
+        future.whenComplete((receipt, t) -> {
+            try {
+                if (t == null) {
+                    consecutiveFailures.set(0);
+                    markDone(segment, position, topic);
+                } else if (!SendPolicyExecutor.isRetryable(t)) {
+                    log.error("Drop outbox message the broker refuses, topic={}", topic, t);
+                    markDone(segment, position, topic);
+                } else {
+                    drainFailure = t;
+                }
+            } finally {
+                drainPermits.release();
+            }
+        });
+    }
+
+    private void markDone(OutboxSegment segment, int position, String topic) {
+        int remaining = segment.markDone(position);
+        backlogOf(topic).decrementAndGet();
+        if (remaining == 0) {
+            synchronized (appendLock) {
+                if (segment != active && segment.getPending() == 0 && segments.remove(segment.getIndex(), segment)) {
+                    try {
+                        segment.delete();
+                    } catch (IOException e) {
+                        log.warn("Failed to delete drained outbox segment {}", segment.getIndex(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void awaitInFlight() {
+        drainPermits.acquireUninterruptibly(drainConcurrency);
+        drainPermits.release(drainConcurrency);
+    }
+
+    private void backOff() {
+        int failures = Math.min(consecutiveFailures.incrementAndGet(), 30);
+        long backoff = Math.min(maxRetryIntervalNanos, retryIntervalNanos << Math.min(failures - 1, 20));
+        if (failures == 1) {
+            log.warn("Replaying outbox failed, retrying in {} ms", TimeUnit.NANOSECONDS.toMillis(backoff), drainFailure);
+        }
+        long deadline = System.nanoTime() + backoff;
+        long remaining;
+        while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private AtomicLong backlogOf(String topic) {
+        AtomicLong counter = backlog.get(topic);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = backlog.putIfAbsent(topic, created);
+            if (counter == null) {
+                counter = created;
+                metrics.bindOutboxBacklog(topic, this);
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Pending messages by topic.
+     */
+    public Map<String, Long> getBacklog() {
+        Map<String, Long> snapshot = new HashMap<>();
+        backlog.forEach((topic, count) -> {
+            long value = count.get();
+            if (value > 0) {
+                snapshot.put(topic, value);
+            }
+        });
+        return snapshot;
+    }
+
+    public long getBacklog(String topic) {
+        AtomicLong count = backlog.get(topic);
+        return count == null ? 0 : count.get();
+    }
+
+    public long getTotalBacklog() {
+        long total = 0;
+        for (AtomicLong count : backlog.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stops the drainer, waiting up to the timeout for the sends in flight, and flushes the segments.
+     */
+    public void close(Duration timeout) throws IOException {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        Thread drainer = this.drainer;
+        if (drainer != null) {
+            LockSupport.unpark(drainer);
+            try {
+                drainer.join(timeout.toMillis());
+                if (!drainPermits.tryAcquire(drainConcurrency, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    log.warn("Outbox sends still in flight on close, they are replayed again after the restart");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (OutboxSegment segment : segments.values()) {
+            segment.force();
+            segment.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(Duration.ofSeconds(5));
+    }
+
+}
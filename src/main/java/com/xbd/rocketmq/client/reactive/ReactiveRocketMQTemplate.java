@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.reactive;
+
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.support.RocketMQClientRegistry;
+import org.apache.rocketmq.client.apis.ClientConfiguration;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.consumer.FilterExpression;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * Non-blocking facade of {@link RocketMQTemplate} for Reactor applications. Sends are lazy, nothing is sent
+ * before the returned {@link Mono} is subscribed to, and they go through the async sends of the template, so
+ * the send policies, the outbox, compression and metrics apply as usual.
+ * <p>
+ * The {@code *Many} methods publish a stream of payloads, requesting payloads from upstream only while fewer than
+ * {@code concurrency} sends are in flight or waiting for an earlier receipt. Receipts are emitted in payload order,
+ * the first failed send errors the stream.
+ */
+public class ReactiveRocketMQTemplate {
+
+    private final RocketMQTemplate rocketMQTemplate;
+
+    /**
+     * max in-flight sends of a single {@code *Many} stream
+     */
+    private int concurrency = 256;
+
+    private RocketMQClientRegistry clientRegistry;
+
+    private String endpoints;
+
+    private ClientConfiguration clientConfiguration;
+
+    private int receiveBatchSize = 16;
+
+    private Duration invisibleDuration = Duration.ofSeconds(30);
+
+    private Duration awaitDuration = Duration.ofSeconds(20);
+
+    public ReactiveRocketMQTemplate(RocketMQTemplate rocketMQTemplate) {
+        this.rocketMQTemplate = rocketMQTemplate;
+    }
+
+    public <T> Mono<SendReceipt> sendNormal(String topic, T payload) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendNormalAsync(topic, payload));
+    }
+
+    public <T> Mono<SendReceipt> sendNormal(String topic, T payload, String tag) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendNormalAsync(topic, payload, tag));
+    }
+
+    public <T> Mono<SendReceipt> sendNormal(String topic, T payload, String tag, String... keys) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendNormalAsync(topic, payload, tag, keys));
+    }
+
+    public <T> Mono<SendReceipt> sendDelay(String topic, T payload, Duration delay) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendDelayAsync(topic, payload, delay));
+    }
+
+    public <T> Mono<SendReceipt> sendDelay(String topic, T payload, Duration delay, String tag) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendDelayAsync(topic, payload, delay, tag));
+    }
+
+    public <T> Mono<SendReceipt> sendDelay(String topic, T payload, Duration delay, String tag, String... keys) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendDelayAsync(topic, payload, delay, tag, keys));
+    }
+
+    public <T> Mono<SendReceipt> sendFifo(String topic, T payload, String messageGroup) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendFifoAsync(topic, payload, messageGroup));
+    }
+
+    public <T> Mono<SendReceipt> sendFifo(String topic, T payload, String messageGroup, String tag) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendFifoAsync(topic, payload, messageGroup, tag));
+    }
+
+    public <T> Mono<SendReceipt> sendFifo(String topic, T payload, String messageGroup, String tag, String... keys) {
+        return Mono.fromFuture(() -> rocketMQTemplate.sendFifoAsync(topic, payload, messageGroup, tag, keys));
+    }
+
+    public <T> Flux<SendReceipt> sendNormalMany(String topic, Publisher<T> payloads) {
+        return Flux.from(payloads).flatMapSequential(payload -> sendNormal(topic, payload), concurrency, 1);
+    }
+
+    public <T> Flux<SendReceipt> sendNormalMany(String topic, Publisher<T> payloads, String tag) {
+        return Flux.from(payloads).flatMapSequential(payload -> sendNormal(topic, payload, tag), concurrency, 1);
+    }
+
+    public <T> Flux<SendReceipt> sendDelayMany(String topic, Publisher<T> payloads, Duration delay, String tag) {
+        return Flux.from(payloads).flatMapSequential(payload -> sendDelay(topic, payload, delay, tag), concurrency, 1);
+    }
+
+    /**
+     * Opens a receiver on a new simple consumer of the group, closing the receiver closes the consumer.
+     *
+     * @param tagExpression null or {@code *} for all tags
+     */
+    public RocketMQFluxReceiver receiver(String consumerGroup, String topic, String tagExpression) throws ClientException {
+        if (clientRegistry == null || clientConfiguration == null) {
+            throw new IllegalStateException("No client registry and client configuration set, receivers can not be created");
+        }
+        FilterExpression filterExpression = tagExpression == null ? FilterExpression.SUB_ALL : new FilterExpression(tagExpression);
+        SimpleConsumer simpleConsumer = clientRegistry.createClient(endpoints, provider -> provider.newSimpleConsumerBuilder()
+                .setClientConfiguration(clientConfiguration)
+                .setConsumerGroup(consumerGroup)
+                .setAwaitDuration(awaitDuration)
+                .setSubscriptionExpressions(Collections.singletonMap(topic, filterExpression))
+                .build());
+        return new RocketMQFluxReceiver(simpleConsumer, receiveBatchSize, invisibleDuration, () -> clientRegistry.releaseClient(simpleConsumer));
+    }
+
+    public RocketMQTemplate getRocketMQTemplate() {
+        return rocketMQTemplate;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    public RocketMQClientRegistry getClientRegistry() {
+        return clientRegistry;
+    }
+
+    public void setClientRegistry(RocketMQClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
+    public String getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(String endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public ClientConfiguration getClientConfiguration() {
+        return clientConfiguration;
+    }
+
+    public void setClientConfiguration(ClientConfiguration clientConfiguration) {
+        this.clientConfiguration = clientConfiguration;
+    }
+
+    public int getReceiveBatchSize() {
+        return receiveBatchSize;
+    }
+
+    public void setReceiveBatchSize(int receiveBatchSize) {
+        this.receiveBatchSize = receiveBatchSize;
+    }
+
+    public Duration getInvisibleDuration() {
+        return invisibleDuration;
+    }
+
+    public void setInvisibleDuration(Duration invisibleDuration) {
+        this.invisibleDuration = invisibleDuration;
+    }
+
+    public Duration getAwaitDuration() {
+        return awaitDuration;
+    }
+
+    public void setAwaitDuration(Duration awaitDuration) {
+        this.awaitDuration = awaitDuration;
+    }
+
+}
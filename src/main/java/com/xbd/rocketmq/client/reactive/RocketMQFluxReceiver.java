@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.reactive;
+
+import com.xbd.rocketmq.client.compression.DecompressedMessageView;
+import com.xbd.rocketmq.client.compression.MessageCompression;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * {@link Flux} source over a {@link SimpleConsumer}. A subscription has at most one receive call in flight
+ * and asks for no more messages than the outstanding downstream demand, so nothing is taken from the broker,
+ * and no invisible duration starts ticking, before the subscriber can process it.
+ */
+@Slf4j
+public class RocketMQFluxReceiver implements Closeable {
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final SimpleConsumer simpleConsumer;
+
+    private final int maxMessages;
+
+    private final Duration invisibleDuration;
+
+    private final Runnable onClose;
+
+    private final Set<ReceiveLoop> loops = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
+
+    /**
+     * @param onClose run once after the consumer is closed, may be null
+     */
+    public RocketMQFluxReceiver(SimpleConsumer simpleConsumer, int maxMessages, Duration invisibleDuration, Runnable onClose) {
+        this.simpleConsumer = simpleConsumer;
+        this.maxMessages = Math.max(1, maxMessages);
+        this.invisibleDuration = invisibleDuration;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Received messages, not acked and with their bodies as sent. Every subscription polls on its own,
+     * the stream completes when the receiver is closed, messages of a receive still in flight then come back
+     * after their invisible duration.
+     */
+    public Flux<MessageView> receive() {
+        return Flux.create(sink -> {
+            ReceiveLoop loop = new ReceiveLoop(sink);
+            loops.add(loop);
+            sink.onDispose(() -> loops.remove(loop));
+            if (closed) {
+                sink.complete();
+                return;
+            }
+            sink.onRequest(n -> loop.poll());
+        });
+    }
+
+    /**
+     * Hands every message, decompressed, to the handler and acks it once the handler's publisher completes,
+     * with at most {@code concurrency} messages being handled at a time. Messages whose handler fails are not acked
+     * and come back after the invisible duration. Emits the messages that were handled and acked.
+     */
+    public Flux<MessageView> consume(Function<MessageView, ? extends Publisher<?>> handler, int concurrency) {
+        return receive().flatMap(messageView -> Mono.defer(() -> {
+            MessageView message = MessageCompression.decompress(messageView);
+            return Flux.from(handler.apply(message)).then(ack(messageView)).thenReturn(message);
+        }).onErrorResume(t -> {
+            log.warn("Handling failed, message left for redelivery, messageId={}", messageView.getMessageId(), t);
+            return Mono.empty();
+        }), Math.max(1, concurrency));
+    }
+
+    public Mono<Void> ack(MessageView messageView) {
+        MessageView received = messageView instanceof DecompressedMessageView
+                ? ((DecompressedMessageView) messageView).getDelegate() : messageView;
+        return Mono.fromFuture(() -> simpleConsumer.ackAsync(received));
+    }
+
+    public Mono<Void> changeInvisibleDuration(MessageView messageView, Duration duration) {
+        MessageView received = messageView instanceof DecompressedMessageView
+                ? ((DecompressedMessageView) messageView).getDelegate() : messageView;
+        return Mono.fromFuture(() -> simpleConsumer.changeInvisibleDurationAsync(received, duration));
+    }
+
+    public SimpleConsumer getSimpleConsumer() {
+        return simpleConsumer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // a receive still in flight may never complete once the consumer is closed
+        loops.forEach(loop -> loop.sink.complete());
+        try {
+            simpleConsumer.close();
+        } finally {
+            if (onClose != null) {
+                onClose.run();
+            }
+        }
+    }
+
+    private final class ReceiveLoop {
+
+        private final FluxSink<MessageView> sink;
+
+        private final AtomicBoolean receiving = new AtomicBoolean();
+
+        private ReceiveLoop(FluxSink<MessageView> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Called on every request and after every receive, loops instead of recursing when a receive completes synchronously.
+         */
+        void poll() {
+            while (!sink.isCancelled() && sink.requestedFromDownstream() > 0 && receiving.compareAndSet(false, true)) {
+                if (closed) {
+                    sink.complete();
+                    return;
+                }
+                int max = (int) Math.min(maxMessages, sink.requestedFromDownstream());
+                CompletableFuture<List<MessageView>> received;
+                try {
+                    received = simpleConsumer.receiveAsync(max, invisibleDuration);
+                } catch (Throwable t) {
+                    received = new CompletableFuture<>();
+                    received.completeExceptionally(t);
+                }
+                CompletableFuture<Boolean> done = received.handle(this::onReceived);
+                if (!done.isDone()) {
+                    done.thenAccept(again -> {
+                        if (again) {
+                            poll();
+                        }
+                    });
+                    return;
+                }
+                if (!done.join()) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return whether polling may go on right away, false if a retry got scheduled or the stream ended
+         */
+        private boolean onReceived(List<MessageView> messages, Throwable t) {
+            if (t == null) {
+                messages.forEach(sink::next);
+                receiving.set(false);
+                return true;
+            }
+            if (closed) {
+                sink.complete();
+                return false;
+            }
+            log.warn("Receive failed, retrying in {}ms", RETRY_DELAY_MILLIS, t);
+            Schedulers.parallel().schedule(() -> {
+                receiving.set(false);
+                poll();
+            }, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,644 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import com.xbd.rocketmq.client.annotation.RocketMQMessageListener;
+import com.xbd.rocketmq.client.compression.DecompressedMessageView;
+import com.xbd.rocketmq.client.compression.MessageCompression;
+import com.xbd.rocketmq.client.converter.MessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConverterRegistry;
+import com.xbd.rocketmq.client.metrics.ConsumeRecorder;
+import com.xbd.rocketmq.client.metrics.DeliveryLatencyReporter;
+import com.xbd.rocketmq.client.metrics.DeliveryLatencyTracker;
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.ClientConfiguration;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.consumer.FilterExpression;
+import org.apache.rocketmq.client.apis.consumer.FilterExpressionType;
+import org.apache.rocketmq.client.apis.consumer.MessageListener;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings and client wiring shared by the push and the simple consumer based listener containers.
+ */
+@Slf4j
+public abstract class AbstractRocketMQListenerContainer implements InitializingBean, RocketMQListenerContainer, SmartLifecycle, ApplicationContextAware {
+
+    protected static final long RECEIVE_FAILURE_BACKOFF_MILLIS = 1000;
+
+    /**
+     * Containers stop ahead of SmartLifecycle beans in the default phase, the templates and producers they may send
+     * with are only destroyed after all lifecycle phases have stopped.
+     */
+    public static final int DEFAULT_PHASE = Integer.MAX_VALUE - 1000;
+
+    protected static final long DRAIN_POLL_MILLIS = 10;
+
+    protected ApplicationContext applicationContext;
+    private volatile boolean running;
+    private boolean autoStartup = true;
+    private String name;
+    private String endPoints;
+    private String accessKey;
+    private String secretKey;
+    private Integer requestTimeout;
+    private String consumerGroup;
+    private String topic;
+    private RocketMQMessageListener rocketMQMessageListener;
+    private FilterExpressionType selectorType;
+    private volatile String tag;
+    private String instanceName;
+    private MessageConverter messageConverter;
+    private MessageConverterRegistry messageConverterRegistry;
+    private Duration invisibleDuration = Duration.ofSeconds(30);
+    private Duration awaitDuration = Duration.ofSeconds(10);
+    private RocketMQMetrics metrics = RocketMQMetrics.NOOP;
+    private ConsumeRecorder consumeRecorder = ConsumeRecorder.NOOP;
+    private DeliveryLatencyReporter latencyReporter;
+    private DeliveryLatencyTracker latencyTracker;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder consumedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final AtomicInteger pendingAcks = new AtomicInteger();
+    private int phase = DEFAULT_PHASE;
+    private Duration shutdownTimeout = Duration.ofSeconds(20);
+    private RocketMQClientRegistry clientRegistry = RocketMQClientRegistry.getDefault();
+    private MessageDeduplicator deduplicator;
+    private volatile FlowController flowController;
+    private final Object pauseMonitor = new Object();
+    private volatile boolean paused;
+
+    public void setRocketMQMessageListener(RocketMQMessageListener anno) {
+        this.rocketMQMessageListener = anno;
+        this.consumerGroup = anno.consumerGroup();
+        this.selectorType = anno.selectorType();
+        this.tag = anno.tag();
+        this.instanceName = anno.instanceName();
+        this.topic = anno.topic();
+    }
+
+    protected void checkProperties() {
+        Assert.notNull(consumerGroup, "Property 'consumerGroup' is required");
+        Assert.notNull(endPoints, "Property 'endpoint' is required");
+        Assert.notNull(topic, "Property 'topic' is required");
+    }
+
+    protected ClientConfiguration buildClientConfiguration() {
+        return clientRegistry.getClientConfiguration(endPoints, accessKey, secretKey, Duration.ofSeconds(requestTimeout));
+    }
+
+    /**
+     * Closes a consumer and gives its client slot back to the registry, also if closing fails.
+     */
+    protected void closeClient(Closeable client) throws IOException {
+        clientRegistry.close(client);
+    }
+
+    protected FilterExpression buildFilterExpression() {
+        return new FilterExpression(this.tag, this.selectorType);
+    }
+
+    /**
+     * Binds the metrics of this container, called by subclasses before the consumer is started.
+     */
+    protected void initMetrics() {
+        this.consumeRecorder = metrics.consumeRecorder(consumerGroup, topic);
+        this.latencyTracker = latencyReporter == null ? null : latencyReporter.tracker(consumerGroup, topic);
+        metrics.bindContainer(this);
+    }
+
+    /**
+     * Every listener invocation of the container goes through here, duplicates are reported as consumed
+     * without calling the listener and compressed bodies are decompressed for it.
+     */
+    protected ConsumeResult invokeListener(MessageListener listener, MessageView messageView) {
+        return invokeListener(listener, messageView, 0);
+    }
+
+    /**
+     * @param receivedNanos System.nanoTime() the message was received at, for the queue wait of the delivery latency, 0 if unknown
+     */
+    protected ConsumeResult invokeListener(MessageListener listener, MessageView messageView, long receivedNanos) {
+        MessageDeduplicator deduplicator = this.deduplicator;
+        String deduplicationKey = null;
+        if (deduplicator != null) {
+            deduplicationKey = deduplicator.keyOf(messageView);
+            if (deduplicator.isDuplicate(deduplicationKey)) {
+                log.debug("Skip duplicate message, consumerGroup={}, messageId={}, key={}",
+                        consumerGroup, messageView.getMessageId(), deduplicationKey);
+                return ConsumeResult.SUCCESS;
+            }
+        }
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        ConsumeResult result = ConsumeResult.FAILURE;
+        try {
+            result = listener.consume(MessageCompression.decompress(messageView));
+            if (result == ConsumeResult.SUCCESS && deduplicationKey != null) {
+                deduplicator.record(deduplicationKey);
+            }
+            return result;
+        } finally {
+            inFlight.decrementAndGet();
+            (result == ConsumeResult.SUCCESS ? consumedCount : failedCount).increment();
+            long latencyNanos = System.nanoTime() - start;
+            ConsumeRecorder recorder = this.consumeRecorder;
+            if (recorder != ConsumeRecorder.NOOP) {
+                recorder.record(latencyNanos, result, messageView.getBody().remaining());
+            }
+            FlowController flowController = this.flowController;
+            if (flowController != null) {
+                flowController.onResult(latencyNanos, result);
+            }
+            DeliveryLatencyTracker latencyTracker = this.latencyTracker;
+            if (latencyTracker != null) {
+                latencyTracker.record(messageView, receivedNanos, start, latencyNanos);
+            }
+        }
+    }
+
+    /**
+     * Counts messages consumed outside of {@link #invokeListener}, by batch listeners.
+     */
+    protected void countConsumed(ConsumeResult result, int messages) {
+        (result == ConsumeResult.SUCCESS ? consumedCount : failedCount).add(messages);
+    }
+
+    protected void recordConsume(long latencyNanos, ConsumeResult result, int payloadBytes) {
+        consumeRecorder.record(latencyNanos, result, payloadBytes);
+    }
+
+    protected AtomicInteger inFlightCounter() {
+        return inFlight;
+    }
+
+    protected SimpleConsumer buildSimpleConsumer() throws ClientException {
+        return clientRegistry.createClient(endPoints, provider -> provider.newSimpleConsumerBuilder()
+                .setClientConfiguration(buildClientConfiguration())
+                .setConsumerGroup(consumerGroup)
+                .setSubscriptionExpressions(Collections.singletonMap(topic, buildFilterExpression()))
+                .setAwaitDuration(awaitDuration)
+                .build());
+    }
+
+    protected void ackAsync(SimpleConsumer simpleConsumer, MessageView messageView) {
+        MessageView received = messageView instanceof DecompressedMessageView ? ((DecompressedMessageView) messageView).getDelegate() : messageView;
+        pendingAcks.incrementAndGet();
+        simpleConsumer.ackAsync(received).whenComplete((v, t) -> {
+            pendingAcks.decrementAndGet();
+            if (t != null) {
+                log.warn("Ack message failed, messageId={}", messageView.getMessageId(), t);
+            }
+        });
+    }
+
+    /**
+     * Makes a received message visible again right away instead of after its invisible duration.
+     */
+    protected void releaseAsync(SimpleConsumer simpleConsumer, MessageView messageView) {
+        pendingAcks.incrementAndGet();
+        simpleConsumer.changeInvisibleDurationAsync(messageView, Duration.ZERO).whenComplete((v, t) -> {
+            pendingAcks.decrementAndGet();
+            if (t != null) {
+                log.warn("Release message failed, it is redelivered after its invisible duration, messageId={}",
+                    messageView.getMessageId(), t);
+            }
+        });
+    }
+
+    protected static void sleepQuietly(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Whether no listener invocation and no ack is outstanding.
+     */
+    protected boolean isDrained() {
+        return inFlight.get() == 0 && pendingAcks.get() == 0;
+    }
+
+    /**
+     * Waits until the container is drained, false if the deadline passed first.
+     */
+    protected boolean awaitDrained(long deadlineNanos) {
+        while (!isDrained()) {
+            if (System.nanoTime() - deadlineNanos >= 0 || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            sleepQuietly(DRAIN_POLL_MILLIS);
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the thread ended before the deadline
+     */
+    protected static boolean joinUntil(Thread thread, long deadlineNanos) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remainingMillis > 0) {
+            try {
+                thread.join(remainingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return !thread.isAlive();
+    }
+
+    /**
+     * Stops handing new messages to the listener until {@link #resume()}, the messages in flight are still consumed
+     * and acked. The container stays running, a pause does not survive a stop and restart.
+     */
+    public synchronized void pause() {
+        Assert.state(isRunning(), "container is not running");
+        if (!paused) {
+            paused = true;
+            onPause();
+            log.info("paused container: {}", this);
+        }
+    }
+
+    public synchronized void resume() {
+        Assert.state(isRunning(), "container is not running");
+        if (paused) {
+            onResume();
+            synchronized (pauseMonitor) {
+                paused = false;
+                pauseMonitor.notifyAll();
+            }
+            log.info("resumed container: {}", this);
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Called once the container is marked paused.
+     */
+    protected void onPause() {
+    }
+
+    /**
+     * Called before the container is marked resumed, the container stays paused if this throws.
+     */
+    protected void onResume() {
+    }
+
+    /**
+     * Blocks a receiving thread while the container is paused, false once the container stopped.
+     */
+    protected boolean awaitResumed() {
+        synchronized (pauseMonitor) {
+            while (paused && running) {
+                try {
+                    pauseMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return running;
+    }
+
+    /**
+     * Changes the filter expression of the running container, the messages in flight are still consumed and acked.
+     * The previous expression is kept if the consumer rejects the new one.
+     */
+    public synchronized void changeTag(String tag) {
+        Assert.hasText(tag, "tag must not be empty");
+        String previous = this.tag;
+        this.tag = tag;
+        if (isRunning()) {
+            try {
+                onSubscriptionChanged();
+            } catch (RuntimeException e) {
+                this.tag = previous;
+                throw e;
+            }
+        }
+        log.info("changed tag of container from {} to {}: {}", previous, tag, this);
+    }
+
+    /**
+     * Applies the changed filter expression to the running consumer.
+     */
+    protected void onSubscriptionChanged() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support changing the tag at runtime");
+    }
+
+    /**
+     * How many listener invocations may run at once.
+     */
+    public int getConcurrency() {
+        return 1;
+    }
+
+    public void changeConcurrency(int concurrency) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support changing the concurrency");
+    }
+
+    /**
+     * Drains on a thread of its own, so the lifecycle processor stops all containers of the phase in parallel.
+     */
+    @Override
+    public void stop(Runnable callback) {
+        if (!isRunning()) {
+            callback.run();
+            return;
+        }
+        Thread stopper = new Thread(() -> {
+            try {
+                stop();
+            } catch (Throwable t) {
+                log.error("Stop container failed. {}", this, t);
+            } finally {
+                callback.run();
+            }
+        }, "RocketMQContainerStop-" + consumerGroup);
+        stopper.setDaemon(true);
+        stopper.start();
+    }
+
+    @Override
+    public int getPhase() {
+        return phase;
+    }
+
+    public void setPhase(int phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * How long stop() waits for the received messages to be consumed and acked before closing the consumer.
+     */
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * False for containers started by a {@link RocketMQListenerContainerStarter}.
+     */
+    @Override
+    public boolean isAutoStartup() {
+        return autoStartup;
+    }
+
+    public void setAutoStartup(boolean autoStartup) {
+        this.autoStartup = autoStartup;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
+    public void setRunning(boolean running) {
+        synchronized (pauseMonitor) {
+            this.running = running;
+            this.paused = false;
+            pauseMonitor.notifyAll();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEndPoints() {
+        return endPoints;
+    }
+
+    public void setEndPoints(String endPoints) {
+        this.endPoints = endPoints;
+    }
+
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    public void setAccessKey(String accessKey) {
+        this.accessKey = accessKey;
+    }
+
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    public void setSecretKey(String secretKey) {
+        this.secretKey = secretKey;
+    }
+
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    public void setConsumerGroup(String consumerGroup) {
+        this.consumerGroup = consumerGroup;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public RocketMQMessageListener getRocketMQMessageListener() {
+        return rocketMQMessageListener;
+    }
+
+    public FilterExpressionType getSelectorType() {
+        return selectorType;
+    }
+
+    public void setSelectorType(FilterExpressionType selectorType) {
+        this.selectorType = selectorType;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    public String getInstanceName() {
+        return instanceName;
+    }
+
+    public void setInstanceName(String instanceName) {
+        this.instanceName = instanceName;
+    }
+
+    public Integer getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Integer requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public MessageConverter getMessageConverter() {
+        return messageConverter;
+    }
+
+    public void setMessageConverter(MessageConverter messageConverter) {
+        this.messageConverter = messageConverter;
+    }
+
+    public MessageConverterRegistry getMessageConverterRegistry() {
+        return messageConverterRegistry;
+    }
+
+    public void setMessageConverterRegistry(MessageConverterRegistry messageConverterRegistry) {
+        this.messageConverterRegistry = messageConverterRegistry;
+    }
+
+    /**
+     * Number of listener invocations in progress.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Messages the listener consumed successfully since the container was created, duplicates not included.
+     */
+    public long getConsumedCount() {
+        return consumedCount.sum();
+    }
+
+    /**
+     * Messages the listener failed or threw on since the container was created.
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public RocketMQClientRegistry getClientRegistry() {
+        return clientRegistry;
+    }
+
+    public void setClientRegistry(RocketMQClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
+    /**
+     * The flow controller of the running container, null if the container is not rate or concurrency limited.
+     */
+    public FlowController getFlowController() {
+        return flowController;
+    }
+
+    protected void setFlowController(FlowController flowController) {
+        this.flowController = flowController;
+    }
+
+    public MessageDeduplicator getDeduplicator() {
+        return deduplicator;
+    }
+
+    public void setDeduplicator(MessageDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    public DeliveryLatencyReporter getLatencyReporter() {
+        return latencyReporter;
+    }
+
+    public void setLatencyReporter(DeliveryLatencyReporter latencyReporter) {
+        this.latencyReporter = latencyReporter;
+    }
+
+    /**
+     * The delivery latency of the running container, null if latency tracking is disabled.
+     */
+    public DeliveryLatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    public RocketMQMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(RocketMQMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Duration getInvisibleDuration() {
+        return invisibleDuration;
+    }
+
+    public void setInvisibleDuration(Duration invisibleDuration) {
+        this.invisibleDuration = invisibleDuration;
+    }
+
+    public Duration getAwaitDuration() {
+        return awaitDuration;
+    }
+
+    public void setAwaitDuration(Duration awaitDuration) {
+        this.awaitDuration = awaitDuration;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{name='" + name + "', consumerGroup='" + consumerGroup
+                + "', topic='" + topic + "', tag='" + tag + "', endPoints='" + endPoints + "'}";
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import com.xbd.rocketmq.client.compression.DecompressedMessageView;
+import com.xbd.rocketmq.client.compression.MessageCompression;
+import com.xbd.rocketmq.client.core.BatchAcknowledgment;
+import com.xbd.rocketmq.client.core.RocketMQBatchListener;
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-polls a SimpleConsumer and hands every received batch to a {@link RocketMQBatchListener}.
+ */
+@Slf4j
+public class DefaultRocketMQBatchListenerContainer extends AbstractRocketMQListenerContainer {
+
+    private RocketMQBatchListener rocketMQBatchListener;
+    private SimpleConsumer consumer;
+    private int maxBatchSize = 32;
+    private Thread receiveThread;
+
+    @Override
+    public void start() {
+        if (this.isRunning()) {
+            throw new IllegalStateException("container already running. " + this.toString());
+        }
+        initMetrics();
+        try {
+            this.consumer = buildSimpleConsumer();
+        } catch (ClientException e) {
+            throw new IllegalStateException("Failed to start RocketMQ simple consumer", e);
+        }
+        this.setRunning(true);
+        this.receiveThread = new Thread(this::receiveLoop, "RocketMQBatchReceiver-" + getConsumerGroup());
+        this.receiveThread.setDaemon(true);
+        this.receiveThread.start();
+        log.info("running container: {}", this.toString());
+    }
+
+    private void receiveLoop() {
+        while (isRunning()) {
+            if (!awaitResumed()) {
+                break;
+            }
+            List<MessageView> messages;
+            try {
+                messages = consumer.receive(maxBatchSize, getInvisibleDuration());
+            } catch (Throwable t) {
+                if (!isRunning()) {
+                    break;
+                }
+                log.warn("Receive messages failed, consumerGroup={}, topic={}", getConsumerGroup(), getTopic(), t);
+                sleepQuietly(RECEIVE_FAILURE_BACKOFF_MILLIS);
+                continue;
+            }
+            if (isPaused()) {
+                // paused while receiving, the messages are handed back for redelivery
+                messages.forEach(messageView -> releaseAsync(consumer, messageView));
+            } else if (!messages.isEmpty()) {
+                dispatch(messages);
+            }
+        }
+    }
+
+    private void dispatch(List<MessageView> messages) {
+        MessageDeduplicator deduplicator = getDeduplicator();
+        if (deduplicator != null) {
+            messages = skipDuplicates(deduplicator, messages);
+            if (messages.isEmpty()) {
+                return;
+            }
+        }
+        Set<MessageView> acked = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        // the listener acks the decompressed views, the rest of the batch is acked through the received ones
+        BatchAcknowledgment acknowledgment = messageView -> {
+            MessageView received = messageView instanceof DecompressedMessageView
+                ? ((DecompressedMessageView) messageView).getDelegate() : messageView;
+            if (acked.add(received)) {
+                if (deduplicator != null) {
+                    deduplicator.record(deduplicator.keyOf(received));
+                }
+                ackAsync(consumer, received);
+            }
+        };
+        ConsumeResult result;
+        inFlightCounter().addAndGet(messages.size());
+        long start = System.nanoTime();
+        try {
+            List<MessageView> views = new ArrayList<>(messages.size());
+            for (MessageView messageView : messages) {
+                views.add(MessageCompression.decompress(messageView));
+            }
+            result = rocketMQBatchListener.consume(views, acknowledgment);
+        } catch (Throwable t) {
+            log.error("Consume batch failed, consumerGroup={}, size={}", getConsumerGroup(), messages.size(), t);
+            result = ConsumeResult.FAILURE;
+        } finally {
+            inFlightCounter().addAndGet(-messages.size());
+        }
+        countConsumed(result, messages.size());
+        if (getMetrics() != RocketMQMetrics.NOOP) {
+            int payloadBytes = 0;
+            for (MessageView messageView : messages) {
+                payloadBytes += messageView.getBody().remaining();
+            }
+            recordConsume(System.nanoTime() - start, result, payloadBytes);
+        }
+        if (result == ConsumeResult.SUCCESS) {
+            messages.forEach(acknowledgment::acknowledge);
+        }
+    }
+
+    /**
+     * Acks the duplicates of the batch and returns the remaining messages.
+     */
+    private List<MessageView> skipDuplicates(MessageDeduplicator deduplicator, List<MessageView> messages) {
+        List<MessageView> remaining = new ArrayList<>(messages.size());
+        for (MessageView messageView : messages) {
+            if (deduplicator.isDuplicate(deduplicator.keyOf(messageView))) {
+                log.debug("Skip duplicate message, consumerGroup={}, messageId={}", getConsumerGroup(), messageView.getMessageId());
+                ackAsync(consumer, messageView);
+            } else {
+                remaining.add(messageView);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Stops receiving and waits up to the shutdown timeout for the batch being consumed and its acks before closing
+     * the consumer, so a rolling restart does not leave messages invisible until their invisible duration expires.
+     */
+    @Override
+    public void stop() {
+        if (this.isRunning()) {
+            setRunning(false);
+            long deadline = System.nanoTime() + getShutdownTimeout().toNanos();
+            // the receive thread runs the listener itself, so it ends once the current receive and batch are done
+            if (receiveThread != null) {
+                joinUntil(receiveThread, deadline);
+            }
+            if (!awaitDrained(deadline)) {
+                log.warn("Shutdown timeout {} elapsed with {} messages in flight, they will be redelivered. consumerGroup={}",
+                        getShutdownTimeout(), getInFlight(), getConsumerGroup());
+            }
+            closeConsumer();
+        }
+    }
+
+    private void closeConsumer() {
+        if (Objects.nonNull(consumer)) {
+            try {
+                closeClient(consumer);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        if (receiveThread != null) {
+            try {
+                receiveThread.join(getAwaitDuration().toMillis() + TimeUnit.SECONDS.toMillis(getRequestTimeout()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The consumer takes the new expression with its next receive.
+     */
+    @Override
+    protected void onSubscriptionChanged() {
+        try {
+            consumer.subscribe(getTopic(), buildFilterExpression());
+        } catch (ClientException e) {
+            throw new IllegalStateException("Failed to subscribe " + getTopic() + " with tag " + getTag(), e);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (rocketMQBatchListener == null) {
+            throw new IllegalArgumentException("Property 'rocketMQBatchListener' is required");
+        }
+        checkProperties();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (isRunning()) {
+            setRunning(false);
+            closeConsumer();
+        }
+        log.info("container destroyed, {}", this.toString());
+    }
+
+    public RocketMQBatchListener getRocketMQBatchListener() {
+        return rocketMQBatchListener;
+    }
+
+    public void setRocketMQBatchListener(RocketMQBatchListener rocketMQBatchListener) {
+        this.rocketMQBatchListener = rocketMQBatchListener;
+    }
+
+    public SimpleConsumer getConsumer() {
+        return consumer;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+}
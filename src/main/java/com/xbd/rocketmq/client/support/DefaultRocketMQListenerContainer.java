@@ -17,234 +17,780 @@
 
 package com.xbd.rocketmq.client.support;
 
-import com.xbd.rocketmq.client.annotation.RocketMQMessageListener;
+import com.xbd.rocketmq.client.annotation.ConsumeMode;
 import com.xbd.rocketmq.client.core.RocketMQListener;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.rocketmq.client.apis.*;
-import org.apache.rocketmq.client.apis.consumer.FilterExpression;
-import org.apache.rocketmq.client.apis.consumer.FilterExpressionType;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
 import org.apache.rocketmq.client.apis.consumer.PushConsumer;
-import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.InitializingBean;
-import org.springframework.context.ApplicationContext;
-import org.springframework.context.ApplicationContextAware;
-import org.springframework.context.SmartLifecycle;
+import org.apache.rocketmq.client.apis.consumer.PushConsumerBuilder;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.message.MessageView;
 import org.springframework.util.Assert;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
-public class DefaultRocketMQListenerContainer implements InitializingBean, RocketMQListenerContainer, SmartLifecycle, ApplicationContextAware {
-
-    private ApplicationContext applicationContext;
-    private boolean running;
-    private String name;
-    private String endPoints;
-    private String accessKey;
-    private String secretKey;
-    private Integer requestTimeout;
-    private String consumerGroup;
-    private String topic;
+public class DefaultRocketMQListenerContainer extends AbstractRocketMQListenerContainer {
+
+    private static final int MAX_RECEIVE_BATCH = 32;
+    private static final long ORDERLY_RETRY_BACKOFF_MILLIS = 1000;
+    private static final int DEFAULT_PUSH_CONSUMPTION_THREAD_COUNT = 20;
+
     private RocketMQListener rocketMQListener;
-    private RocketMQMessageListener rocketMQMessageListener;
-    private PushConsumer consumer;
-    private FilterExpressionType selectorType;
-    private String tag;
-    private String instanceName;
-    final ClientServiceProvider provider = ClientServiceProvider.loadService();
-
-    public void setRocketMQMessageListener(RocketMQMessageListener anno) {
-        this.rocketMQMessageListener = anno;
-        this.consumerGroup = anno.consumerGroup();
-        this.selectorType = anno.selectorType();
-        this.tag = anno.tag();
-        this.instanceName = anno.instanceName();
-        this.topic = anno.topic();
-    }
+    private volatile PushConsumer consumer;
+    private volatile PushSession pushSession;
+    private Integer consumptionThreadCount;
+    private Integer maxCacheMessageCount;
+    private Integer maxCacheMessageSizeInBytes;
+    private ConsumeMode consumeMode = ConsumeMode.PUSH;
+    private Executor executor;
+    private ExecutorService ownedExecutor;
+    private int maxInFlight = 1024;
+    private ResizableSemaphore inFlightPermits;
+    private int stripes = Runtime.getRuntime().availableProcessors();
+    private int stripeQueueCapacity = 256;
+    private StripedExecutor stripedExecutor;
+    /**
+     * message groups whose failed message was left for redelivery, by the System.nanoTime() it becomes visible again
+     */
+    private final Map<String, Long> blockedGroups = new ConcurrentHashMap<>();
+    private double rateLimit;
+    private boolean adaptiveConcurrency;
+    private int minConcurrency = 1;
+    private Integer maxConcurrency;
+    private Duration latencyThreshold;
+    private double backoffRatio = 0.5;
+    private SimpleConsumer simpleConsumer;
+    private Thread receiveThread;
+    private volatile boolean consumersClosed;
 
     private void initRocketMQPushConsumer() {
         if (rocketMQListener == null) {
             throw new IllegalArgumentException("Property 'rocketMQListener' or 'rocketMQReplyListener' is required");
         }
-        Assert.notNull(consumerGroup, "Property 'consumerGroup' is required");
-        Assert.notNull(endPoints, "Property 'endpoint' is required");
-        Assert.notNull(topic, "Property 'topic' is required");
+        checkProperties();
+        if (consumeMode != ConsumeMode.PUSH && maxInFlight <= 0) {
+            throw new IllegalArgumentException("Property 'maxInFlight' must be positive in consume mode " + consumeMode);
+        }
+        if (consumeMode == ConsumeMode.ORDERLY && (stripes <= 0 || stripeQueueCapacity <= 0)) {
+            throw new IllegalArgumentException("Properties 'stripes' and 'stripeQueueCapacity' must be positive in consume mode ORDERLY");
+        }
     }
 
     @Override
-    public void start() {
+    public synchronized void start() {
         if (this.isRunning()) {
             throw new IllegalStateException("container already running. " + this.toString());
         }
+        initMetrics();
+        setFlowController(buildFlowController());
+        this.consumersClosed = false;
+        if (consumeMode == ConsumeMode.PUSH) {
+            startPushConsumer();
+        } else {
+            startExecutorDispatch();
+        }
+        this.setRunning(true);
+        if (receiveThread != null) {
+            receiveThread.start();
+        }
+        log.info("running container: {}", this.toString());
+    }
+
+    private void startPushConsumer() {
+        PushSession session = new PushSession();
         try {
-            SessionCredentialsProvider sessionCredentialsProvider =  new StaticSessionCredentialsProvider(accessKey, secretKey);
-            ClientConfiguration clientConfiguration = ClientConfiguration.newBuilder()
-                    .setEndpoints(endPoints)
-                    .setCredentialProvider(sessionCredentialsProvider)
-                    .setRequestTimeout(Duration.ofSeconds(requestTimeout))
-                    .build();
-            FilterExpression filterExpression = new FilterExpression(this.tag, this.selectorType);
-            this.consumer = provider.newPushConsumerBuilder().setClientConfiguration(clientConfiguration)
-                .setConsumerGroup(consumerGroup)
-                .setSubscriptionExpressions(Collections.singletonMap(topic, filterExpression))
-                .setMessageListener(rocketMQListener).build();
+            session.consumer = getClientRegistry().createClient(getEndPoints(), provider -> {
+                PushConsumerBuilder builder = provider.newPushConsumerBuilder().setClientConfiguration(buildClientConfiguration())
+                    .setConsumerGroup(getConsumerGroup())
+                    .setSubscriptionExpressions(Collections.singletonMap(getTopic(), buildFilterExpression()))
+                    .setMessageListener(messageView -> consumePushed(session, messageView));
+                if (consumptionThreadCount != null) {
+                    builder.setConsumptionThreadCount(consumptionThreadCount);
+                }
+                if (maxCacheMessageCount != null) {
+                    builder.setMaxCacheMessageCount(maxCacheMessageCount);
+                }
+                if (maxCacheMessageSizeInBytes != null) {
+                    builder.setMaxCacheMessageSizeInBytes(maxCacheMessageSizeInBytes);
+                }
+                return builder.build();
+            });
         } catch (ClientException e) {
             throw new IllegalStateException("Failed to start RocketMQ push consumer", e);
         }
-        this.setRunning(true);
-        log.info("running container: {}", this.toString());
+        this.pushSession = session;
+        this.consumer = session.consumer;
+    }
+
+    /**
+     * Builds a push consumer with the current settings before retiring the previous one, so a failing build leaves
+     * the container consuming as before. The retired consumer hands the messages it still receives back for
+     * redelivery and is closed once its listener invocations completed.
+     */
+    private void replacePushConsumer() {
+        PushSession previous = pushSession;
+        startPushConsumer();
+        if (previous != null) {
+            closePushSession(previous, System.nanoTime() + getShutdownTimeout().toNanos());
+        }
     }
 
-    @Override
-    public void stop() {
-        if (this.isRunning()) {
-            if (Objects.nonNull(consumer)) {
+    private void closePushSession(PushSession session, long deadlineNanos) {
+        session.retired = true;
+        while (session.inFlight.get() > 0 && System.nanoTime() - deadlineNanos < 0) {
+            sleepQuietly(DRAIN_POLL_MILLIS);
+        }
+        if (session.inFlight.get() > 0) {
+            log.warn("Shutdown timeout {} elapsed with {} messages in flight on the retired push consumer, they will be redelivered. consumerGroup={}",
+                getShutdownTimeout(), session.inFlight.get(), getConsumerGroup());
+        }
+        try {
+            closeSessionClient(session);
+        } catch (IOException e) {
+            log.warn("Close retired push consumer failed, consumerGroup={}", getConsumerGroup(), e);
+        }
+    }
+
+    private void closeSessionClient(PushSession session) throws IOException {
+        session.closing.countDown();
+        try {
+            closeClient(session.consumer);
+        } finally {
+            session.closed.countDown();
+        }
+    }
+
+    /**
+     * Null unless a rate limit or adaptive concurrency is configured. Without an explicit max concurrency the
+     * limit starts at the consumption thread count in PUSH mode and at maxInFlight otherwise.
+     */
+    private FlowController buildFlowController() {
+        if (rateLimit <= 0 && !adaptiveConcurrency) {
+            return null;
+        }
+        int ceiling;
+        if (maxConcurrency != null) {
+            ceiling = maxConcurrency;
+        } else if (consumeMode == ConsumeMode.PUSH) {
+            ceiling = consumptionThreadCount != null ? consumptionThreadCount : DEFAULT_PUSH_CONSUMPTION_THREAD_COUNT;
+        } else {
+            ceiling = maxInFlight;
+        }
+        return new FlowController(rateLimit, ceiling, adaptiveConcurrency, Math.min(minConcurrency, ceiling),
+            latencyThreshold, backoffRatio);
+    }
+
+    /**
+     * Holds the consumption thread while the listener is over its flow limits, once all of them are held the
+     * push consumer's local cache fills up and it stops pulling. While stopping, messages are handed back unconsumed.
+     */
+    private ConsumeResult consumePushed(PushSession session, MessageView messageView) {
+        ConsumeResult result = tryConsume(session, messageView);
+        return result != null ? result : handBack(session);
+    }
+
+    /**
+     * @return null if the message is handed back
+     */
+    private ConsumeResult tryConsume(PushSession session, MessageView messageView) {
+        session.inFlight.incrementAndGet();
+        try {
+            if (session.retired || !isRunning()) {
+                return null;
+            }
+            FlowController flowController = getFlowController();
+            if (flowController == null) {
+                return invokeListener(rocketMQListener, messageView);
+            }
+            try {
+                flowController.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ConsumeResult.FAILURE;
+            }
+            if (session.retired || !isRunning()) {
+                flowController.cancel(1);
+                return null;
+            }
+            try {
+                return invokeListener(rocketMQListener, messageView);
+            } finally {
+                flowController.release();
+            }
+        } finally {
+            session.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * A failure reported while the consumer is open is a consume attempt, so the thread does not count as in flight
+     * and waits until the consumer is being closed. The client stops talking to the broker before it waits for its
+     * consumption threads, so the thread is let go once that had the request timeout to happen. The result is then
+     * dropped and the broker redelivers the message after its invisible duration without counting an attempt.
+     */
+    private ConsumeResult handBack(PushSession session) {
+        try {
+            session.closing.await();
+            session.closed.await(getRequestTimeout(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ConsumeResult.FAILURE;
+    }
+
+    private void startExecutorDispatch() {
+        try {
+            this.simpleConsumer = buildSimpleConsumer();
+        } catch (ClientException e) {
+            throw new IllegalStateException("Failed to start RocketMQ simple consumer", e);
+        }
+        if (consumeMode == ConsumeMode.ORDERLY) {
+            this.stripedExecutor = new StripedExecutor("RocketMQOrderly-" + getConsumerGroup(), stripes, stripeQueueCapacity);
+            this.blockedGroups.clear();
+        } else if (executor == null) {
+            this.ownedExecutor = ListenerExecutors.newListenerExecutor("RocketMQListener-" + getConsumerGroup(), maxInFlight);
+            this.executor = ownedExecutor;
+        }
+        this.inFlightPermits = new ResizableSemaphore(maxInFlight);
+        this.receiveThread = new Thread(this::receiveLoop, "RocketMQReceiver-" + getConsumerGroup());
+        this.receiveThread.setDaemon(true);
+    }
+
+    /**
+     * Receives only as many messages as there are free in-flight slots and flow control admissions,
+     * so a slow or rate limited listener stops the receiving.
+     */
+    private void receiveLoop() {
+        FlowController flowController = getFlowController();
+        receive:
+        while (isRunning()) {
+            if (!awaitResumed()) {
+                break;
+            }
+            try {
+                inFlightPermits.acquire();
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (flowController != null) {
                 try {
-                    consumer.close();
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
+                    flowController.acquire();
+                } catch (InterruptedException e) {
+                    inFlightPermits.release();
+                    break;
+                }
+            }
+            int permits = 1;
+            while (permits < MAX_RECEIVE_BATCH && inFlightPermits.tryAcquire()) {
+                if (flowController != null && !flowController.tryAcquire()) {
+                    inFlightPermits.release();
+                    break;
                 }
+                permits++;
+            }
+            if (!isRunning()) {
+                cancelInFlight(flowController, permits);
+                break;
             }
+            List<MessageView> messages;
+            long receivedNanos;
+            try {
+                messages = simpleConsumer.receive(permits, getInvisibleDuration());
+                receivedNanos = System.nanoTime();
+            } catch (Throwable t) {
+                cancelInFlight(flowController, permits);
+                if (!isRunning()) {
+                    break;
+                }
+                log.warn("Receive messages failed, consumerGroup={}, topic={}", getConsumerGroup(), getTopic(), t);
+                sleepQuietly(RECEIVE_FAILURE_BACKOFF_MILLIS);
+                continue;
+            }
+            if (isPaused()) {
+                // paused while receiving, the messages are handed back for redelivery
+                cancelInFlight(flowController, permits);
+                messages.forEach(messageView -> releaseAsync(simpleConsumer, messageView));
+                continue;
+            }
+            if (messages.size() < permits) {
+                cancelInFlight(flowController, permits - messages.size());
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                if (stripedExecutor == null) {
+                    dispatch(messages.get(i), flowController, receivedNanos);
+                    continue;
+                }
+                try {
+                    dispatchOrdered(messages.get(i), flowController, receivedNanos);
+                } catch (InterruptedException | IllegalStateException e) {
+                    // stopping, the messages not dispatched yet are redelivered after their invisible duration
+                    cancelInFlight(flowController, messages.size() - i);
+                    break receive;
+                }
+            }
+        }
+    }
+
+    private void releaseInFlight(FlowController flowController) {
+        inFlightPermits.release();
+        if (flowController != null) {
+            flowController.release();
+        }
+    }
+
+    private void cancelInFlight(FlowController flowController, int permits) {
+        inFlightPermits.release(permits);
+        if (flowController != null) {
+            flowController.cancel(permits);
+        }
+    }
+
+    /**
+     * Messages of one message group always land on the same stripe, so they are consumed one after another in
+     * the order they were received while other groups are consumed in parallel. Blocks while the stripe is full.
+     */
+    private void dispatchOrdered(MessageView messageView, FlowController flowController, long receivedNanos) throws InterruptedException {
+        stripedExecutor.execute(messageView.getMessageGroup().orElse(null), () -> {
+            try {
+                consumeOrdered(messageView, receivedNanos);
+            } finally {
+                releaseInFlight(flowController);
+            }
+        });
+    }
+
+    /**
+     * Failed messages are retried in place, extending their invisible duration, so the next message of the group
+     * waits for them as long as the container runs. A message left for redelivery, because the container is
+     * stopping or its invisible duration could not be extended, blocks its group: the messages of the group
+     * received before it becomes visible again are not consumed either and are redelivered after it.
+     */
+    private void consumeOrdered(MessageView messageView, long receivedNanos) {
+        if (consumersClosed) {
+            // still queued on its stripe when the shutdown timeout elapsed, the ack could not be sent anyway
+            return;
+        }
+        String messageGroup = messageView.getMessageGroup().orElse(null);
+        if (messageGroup != null && isBlocked(messageGroup)) {
+            log.debug("Skip message of blocked message group, it will be redelivered, messageGroup={}, messageId={}",
+                messageGroup, messageView.getMessageId());
+            return;
+        }
+        for (int attempt = 1; attempt == 1 || isRunning(); attempt++) {
+            try {
+                if (invokeListener(rocketMQListener, messageView, receivedNanos) == ConsumeResult.SUCCESS) {
+                    ackAsync(simpleConsumer, messageView);
+                    return;
+                }
+            } catch (Throwable t) {
+                log.error("Consume message failed, messageId={}, attempt={}", messageView.getMessageId(), attempt, t);
+            }
+            if (!isRunning()) {
+                break;
+            }
+            try {
+                simpleConsumer.changeInvisibleDuration(messageView, getInvisibleDuration());
+            } catch (Throwable t) {
+                log.warn("Extend invisible duration failed, messageId={}", messageView.getMessageId(), t);
+                break;
+            }
+            sleepQuietly(ORDERLY_RETRY_BACKOFF_MILLIS);
+        }
+        if (messageGroup != null) {
+            blockedGroups.put(messageGroup, System.nanoTime() + getInvisibleDuration().toNanos());
+        }
+        log.warn("Ordered consume stopped retrying, message and the rest of its group are left for redelivery, messageGroup={}, messageId={}",
+            messageGroup, messageView.getMessageId());
+    }
+
+    private boolean isBlocked(String messageGroup) {
+        Long visibleAt = blockedGroups.get(messageGroup);
+        if (visibleAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - visibleAt < 0) {
+            return true;
+        }
+        blockedGroups.remove(messageGroup, visibleAt);
+        return false;
+    }
+
+    private void dispatch(MessageView messageView, FlowController flowController, long receivedNanos) {
+        try {
+            executor.execute(() -> {
+                try {
+                    if (invokeListener(rocketMQListener, messageView, receivedNanos) == ConsumeResult.SUCCESS) {
+                        ackAsync(simpleConsumer, messageView);
+                    }
+                } catch (Throwable t) {
+                    log.error("Consume message failed, messageId={}", messageView.getMessageId(), t);
+                } finally {
+                    releaseInFlight(flowController);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            releaseInFlight(flowController);
+            log.warn("Listener executor rejected message, it will be redelivered, messageId={}", messageView.getMessageId());
+        }
+    }
+
+    /**
+     * Stops receiving and waits up to the shutdown timeout for the received messages to be consumed and acked before
+     * closing the consumers, so a rolling restart does not leave messages invisible until their invisible duration
+     * expires.
+     */
+    @Override
+    public synchronized void stop() {
+        if (this.isRunning()) {
             setRunning(false);
+            drain();
+            try {
+                closeConsumers();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + getShutdownTimeout().toNanos();
+        FlowController flowController = getFlowController();
+        if (flowController != null) {
+            // held consumption threads and the receive loop see the container stopping and give their slot back
+            flowController.close();
+        }
+        if (receiveThread != null && !joinUntil(receiveThread, deadline)) {
+            receiveThread.interrupt();
+        }
+        if (!awaitDrained(deadline)) {
+            log.warn("Shutdown timeout {} elapsed with {} messages in flight, they will be redelivered. consumerGroup={}",
+                getShutdownTimeout(), getInFlight(), getConsumerGroup());
         }
     }
 
+    /**
+     * Outside PUSH mode a message holds its in-flight permit from receive until its listener ran, including the time
+     * it waits on a stripe.
+     */
     @Override
-    public void stop(Runnable callback) {
-        stop();
-        callback.run();
+    protected boolean isDrained() {
+        return super.isDrained() && (inFlightPermits == null || inFlightPermits.availablePermits() >= maxInFlight);
     }
 
+    private void closeConsumers() throws IOException {
+        consumersClosed = true;
+        FlowController flowController = getFlowController();
+        if (flowController != null) {
+            // let held consumption threads through so the consumers can shut down
+            flowController.close();
+        }
+        PushSession session = pushSession;
+        if (Objects.nonNull(session)) {
+            pushSession = null;
+            consumer = null;
+            closeSessionClient(session);
+        }
+        if (receiveThread != null) {
+            receiveThread.interrupt();
+        }
+        if (Objects.nonNull(simpleConsumer)) {
+            closeClient(simpleConsumer);
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+            // a restart creates a fresh pool, the executor only stays if it was supplied from outside
+            if (executor == ownedExecutor) {
+                executor = null;
+            }
+            ownedExecutor = null;
+        }
+        if (stripedExecutor != null) {
+            stripedExecutor.shutdown();
+        }
+    }
 
+    /**
+     * The push consumer cannot suspend pulling, so it is closed once its listener invocations completed and rebuilt
+     * on resume. Otherwise the receiving stops and the consumer stays open, messages of a receive still pending
+     * are not consumed but made visible again for redelivery.
+     */
     @Override
-    public boolean isRunning() {
-        return running;
+    protected void onPause() {
+        if (consumeMode == ConsumeMode.PUSH && pushSession != null) {
+            closePushSession(pushSession, System.nanoTime() + getShutdownTimeout().toNanos());
+            pushSession = null;
+            consumer = null;
+        }
     }
 
     @Override
-    public void afterPropertiesSet() throws Exception {
-        initRocketMQPushConsumer();
+    protected void onResume() {
+        if (consumeMode == ConsumeMode.PUSH && pushSession == null) {
+            startPushConsumer();
+        }
+    }
+
+    /**
+     * The simple consumer takes the new expression with its next receive, the push consumer is replaced since it
+     * keeps filtering the queues it already pulls from with the previous one.
+     */
+    @Override
+    protected void onSubscriptionChanged() {
+        if (consumeMode != ConsumeMode.PUSH) {
+            try {
+                simpleConsumer.subscribe(getTopic(), buildFilterExpression());
+            } catch (ClientException e) {
+                throw new IllegalStateException("Failed to subscribe " + getTopic() + " with tag " + getTag(), e);
+            }
+        } else if (!isPaused()) {
+            replacePushConsumer();
+        }
+    }
+
+    /**
+     * Consumption threads in PUSH mode, the in-flight limit otherwise.
+     */
+    @Override
+    public int getConcurrency() {
+        if (consumeMode == ConsumeMode.PUSH) {
+            return consumptionThreadCount != null ? consumptionThreadCount : DEFAULT_PUSH_CONSUMPTION_THREAD_COUNT;
+        }
+        return maxInFlight;
+    }
+
+    /**
+     * Changes the consumption threads in PUSH mode, which replaces the push consumer, and the in-flight limit
+     * otherwise, which takes effect right away. In ORDERLY mode the stripes still bound the message groups consumed
+     * in parallel. A configured flow control limit is capped at the new concurrency as well.
+     */
+    @Override
+    public synchronized void changeConcurrency(int concurrency) {
+        Assert.isTrue(concurrency > 0, "concurrency must be positive");
+        int previous = getConcurrency();
+        if (consumeMode == ConsumeMode.PUSH) {
+            Integer previousThreadCount = consumptionThreadCount;
+            consumptionThreadCount = concurrency;
+            if (isRunning() && !isPaused()) {
+                try {
+                    replacePushConsumer();
+                } catch (RuntimeException e) {
+                    consumptionThreadCount = previousThreadCount;
+                    throw e;
+                }
+            }
+        } else {
+            int delta = concurrency - maxInFlight;
+            maxInFlight = concurrency;
+            if (inFlightPermits != null) {
+                inFlightPermits.resize(delta);
+            }
+            if (ownedExecutor instanceof ThreadPoolExecutor) {
+                ((ThreadPoolExecutor) ownedExecutor).setMaximumPoolSize(concurrency);
+            }
+        }
+        FlowController flowController = getFlowController();
+        if (flowController != null) {
+            flowController.setMaxConcurrency(concurrency);
+        }
+        log.info("changed concurrency of container from {} to {}: {}", previous, concurrency, this);
     }
 
     @Override
-    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
-        this.applicationContext = applicationContext;
+    public void afterPropertiesSet() throws Exception {
+        initRocketMQPushConsumer();
     }
 
     @Override
     public void destroy() throws IOException {
-        this.setRunning(false);
-        if (Objects.nonNull(consumer)) {
-            consumer.close();
+        if (isRunning()) {
+            this.setRunning(false);
+            closeConsumers();
         }
         log.info("container destroyed, {}", this.toString());
     }
 
-    public void setRunning(boolean running) {
-        this.running = running;
+    public RocketMQListener getRocketMQListener() {
+        return rocketMQListener;
     }
 
-    public String getName() {
-        return name;
+    public void setRocketMQListener(RocketMQListener rocketMQListener) {
+        this.rocketMQListener = rocketMQListener;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    public PushConsumer getConsumer() {
+        return consumer;
     }
 
-    public String getEndPoints() {
-        return endPoints;
+    public void setConsumer(PushConsumer consumer) {
+        this.consumer = consumer;
     }
 
-    public void setEndPoints(String endPoints) {
-        this.endPoints = endPoints;
+    public SimpleConsumer getSimpleConsumer() {
+        return simpleConsumer;
     }
 
-    public String getAccessKey() {
-        return accessKey;
+    public ConsumeMode getConsumeMode() {
+        return consumeMode;
     }
 
-    public void setAccessKey(String accessKey) {
-        this.accessKey = accessKey;
+    public void setConsumeMode(ConsumeMode consumeMode) {
+        this.consumeMode = consumeMode;
     }
 
-    public String getSecretKey() {
-        return secretKey;
+    public Executor getExecutor() {
+        return executor;
     }
 
-    public void setSecretKey(String secretKey) {
-        this.secretKey = secretKey;
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
     }
 
-    public String getConsumerGroup() {
-        return consumerGroup;
+    public int getMaxInFlight() {
+        return maxInFlight;
     }
 
-    public void setConsumerGroup(String consumerGroup) {
-        this.consumerGroup = consumerGroup;
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
     }
 
-    public String getTopic() {
-        return topic;
+    public double getRateLimit() {
+        return rateLimit;
     }
 
-    public void setTopic(String topic) {
-        this.topic = topic;
+    public void setRateLimit(double rateLimit) {
+        this.rateLimit = rateLimit;
     }
 
-    public RocketMQListener getRocketMQListener() {
-        return rocketMQListener;
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
     }
 
-    public void setRocketMQListener(RocketMQListener rocketMQListener) {
-        this.rocketMQListener = rocketMQListener;
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
     }
 
-    public RocketMQMessageListener getRocketMQMessageListener() {
-        return rocketMQMessageListener;
+    public int getMinConcurrency() {
+        return minConcurrency;
     }
 
-    public PushConsumer getConsumer() {
-        return consumer;
+    public void setMinConcurrency(int minConcurrency) {
+        this.minConcurrency = minConcurrency;
     }
 
-    public void setConsumer(PushConsumer consumer) {
-        this.consumer = consumer;
+    public Integer getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(Integer maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
     }
 
-    public FilterExpressionType getSelectorType() {
-        return selectorType;
+    public Duration getLatencyThreshold() {
+        return latencyThreshold;
     }
 
-    public void setSelectorType(FilterExpressionType selectorType) {
-        this.selectorType = selectorType;
+    public void setLatencyThreshold(Duration latencyThreshold) {
+        this.latencyThreshold = latencyThreshold;
     }
 
-    public String getTag() {
-        return tag;
+    public double getBackoffRatio() {
+        return backoffRatio;
     }
 
-    public void setTag(String tag) {
-        this.tag = tag;
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
     }
 
-    public String getInstanceName() {
-        return instanceName;
+    public int getStripes() {
+        return stripes;
     }
 
-    public void setInstanceName(String instanceName) {
-        this.instanceName = instanceName;
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
     }
 
-    public Integer getRequestTimeout() {
-        return requestTimeout;
+    public int getStripeQueueCapacity() {
+        return stripeQueueCapacity;
     }
 
-    public void setRequestTimeout(Integer requestTimeout) {
-        this.requestTimeout = requestTimeout;
+    public void setStripeQueueCapacity(int stripeQueueCapacity) {
+        this.stripeQueueCapacity = stripeQueueCapacity;
+    }
+
+    public Integer getConsumptionThreadCount() {
+        return consumptionThreadCount;
+    }
+
+    public void setConsumptionThreadCount(Integer consumptionThreadCount) {
+        this.consumptionThreadCount = consumptionThreadCount;
+    }
+
+    public Integer getMaxCacheMessageCount() {
+        return maxCacheMessageCount;
+    }
+
+    public void setMaxCacheMessageCount(Integer maxCacheMessageCount) {
+        this.maxCacheMessageCount = maxCacheMessageCount;
+    }
+
+    public Integer getMaxCacheMessageSizeInBytes() {
+        return maxCacheMessageSizeInBytes;
+    }
+
+    public void setMaxCacheMessageSizeInBytes(Integer maxCacheMessageSizeInBytes) {
+        this.maxCacheMessageSizeInBytes = maxCacheMessageSizeInBytes;
+    }
+
+    /**
+     * A push consumer with the listener invocations it started.
+     */
+    private static final class PushSession {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private volatile boolean retired;
+
+        private final CountDownLatch closing = new CountDownLatch(1);
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private PushConsumer consumer;
+    }
+
+    /**
+     * In-flight permits whose total can shrink while permits are taken, the shrinking is absorbed as they come back.
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        private void resize(int delta) {
+            if (delta > 0) {
+                release(delta);
+            } else if (delta < 0) {
+                reducePermits(-delta);
+            }
+        }
     }
 
 }
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits messages to a listener at most at a fixed rate (token bucket holding one second worth of tokens) and
+ * with at most {@link #getLimit()} of them being consumed at once. With adaptive concurrency the limit follows
+ * AIMD: it grows by one per limit successes while it is used, and is cut by the backoff ratio when a listener
+ * fails or exceeds the latency threshold. Callers block in {@link #acquire()} while the listener is over its
+ * limits, so the container stops pulling instead of failing messages.
+ */
+public class FlowController {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double permitsPerSecond;
+
+    private final double maxTokens;
+
+    private final boolean adaptive;
+
+    private int minLimit;
+
+    private int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition available = lock.newCondition();
+
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    private long lastDecreaseNanos;
+
+    private double limit;
+
+    private int inFlight;
+
+    private boolean closed;
+
+    /**
+     * @param permitsPerSecond max messages admitted per second, unlimited if not positive
+     * @param maxConcurrency the concurrency limit, or its ceiling when adaptive
+     * @param adaptive whether the limit adapts to the failures and latency of the listener
+     * @param minConcurrency the floor of the adaptive limit
+     * @param latencyThreshold listener latency treated like a failure by the adaptive limit, ignored if null
+     * @param backoffRatio factor the adaptive limit is multiplied with on a failure
+     */
+    public FlowController(double permitsPerSecond, int maxConcurrency, boolean adaptive, int minConcurrency,
+                          Duration latencyThreshold, double backoffRatio) {
+        this(permitsPerSecond, maxConcurrency, adaptive, minConcurrency, latencyThreshold, backoffRatio, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of {@link System#nanoTime()} readings, replaced in tests
+     */
+    FlowController(double permitsPerSecond, int maxConcurrency, boolean adaptive, int minConcurrency,
+                   Duration latencyThreshold, double backoffRatio, LongSupplier nanoClock) {
+        Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be positive");
+        Assert.isTrue(minConcurrency > 0 && minConcurrency <= maxConcurrency, "minConcurrency must be between 1 and maxConcurrency");
+        Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be between 0 and 1");
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxTokens = Math.max(1, permitsPerSecond);
+        this.tokens = maxTokens;
+        this.adaptive = adaptive;
+        this.minLimit = minConcurrency;
+        this.maxLimit = maxConcurrency;
+        this.latencyThresholdNanos = latencyThreshold == null ? 0 : latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = maxConcurrency;
+        this.nanoClock = nanoClock;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.lastDecreaseNanos = lastRefillNanos;
+    }
+
+    /**
+     * Blocks until a message may be consumed, every call must be followed by a {@link #release()}.
+     * Does not block any more once the controller is closed.
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!closed) {
+                if (inFlight < (int) limit) {
+                    long waitNanos = takeToken();
+                    if (waitNanos == 0) {
+                        break;
+                    }
+                    available.awaitNanos(waitNanos);
+                } else {
+                    available.await();
+                }
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #acquire()} without blocking, false if the message may not be consumed now.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (closed || (inFlight < (int) limit && takeToken() == 0)) {
+                inFlight++;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the consumption of an admitted message.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back admissions that were not used, e.g. when fewer messages were received than acquired for.
+     */
+    public void cancel(int permits) {
+        lock.lock();
+        try {
+            inFlight -= permits;
+            if (permitsPerSecond > 0) {
+                tokens = Math.min(maxTokens, tokens + permits);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Feeds the outcome of one listener invocation into the adaptive limit.
+     */
+    public void onResult(long latencyNanos, ConsumeResult result) {
+        if (!adaptive) {
+            return;
+        }
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            boolean overloaded = result != ConsumeResult.SUCCESS
+                    || (latencyThresholdNanos > 0 && latencyNanos > latencyThresholdNanos);
+            if (overloaded) {
+                // invocations started before the last decrease already count against it
+                if (now - latencyNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlight * 2 >= (int) limit && limit < maxLimit) {
+                int before = (int) limit;
+                limit = Math.min(maxLimit, limit + 1 / limit);
+                if ((int) limit > before) {
+                    available.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the concurrency limit, or its ceiling when adaptive, at runtime. A lowered limit is reached as the
+     * invocations in flight complete.
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be positive");
+        lock.lock();
+        try {
+            maxLimit = maxConcurrency;
+            minLimit = Math.min(minLimit, maxConcurrency);
+            limit = adaptive ? Math.min(limit, maxConcurrency) : maxConcurrency;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lets every blocked and future caller through, used when the container stops.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a token, or returns the nanos until the next one is available.
+     */
+    private long takeToken() {
+        if (permitsPerSecond <= 0) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(maxTokens, tokens + (now - lastRefillNanos) * permitsPerSecond / NANOS_PER_SECOND);
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) * NANOS_PER_SECOND / permitsPerSecond));
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+}
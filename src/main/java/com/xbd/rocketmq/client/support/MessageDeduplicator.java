@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import com.xbd.rocketmq.client.annotation.DeduplicationKey;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the keys of consumed messages in a bounded, expiring LRU cache split into independently locked shards,
+ * optionally backed by a {@link DeduplicationStore}. Keys are recorded once the listener returned SUCCESS,
+ * so a failed message is still redelivered.
+ */
+@Slf4j
+public class MessageDeduplicator {
+
+    private final String consumerGroup;
+
+    private final DeduplicationKey deduplicationKey;
+
+    private final long ttlNanos;
+
+    private final Duration ttl;
+
+    private final Shard[] shards;
+
+    private final DeduplicationStore store;
+
+    private final LongAdder duplicates = new LongAdder();
+
+    public MessageDeduplicator(String consumerGroup, DeduplicationKey deduplicationKey, int capacity, Duration ttl,
+                               int shardCount, DeduplicationStore store) {
+        Assert.isTrue(deduplicationKey != DeduplicationKey.NONE, "deduplicationKey must not be NONE");
+        Assert.isTrue(capacity > 0, "capacity must be positive");
+        Assert.isTrue(shardCount > 0, "shardCount must be positive");
+        this.consumerGroup = consumerGroup;
+        this.deduplicationKey = deduplicationKey;
+        this.ttl = ttl;
+        this.ttlNanos = ttl.toNanos();
+        int size = Integer.highestOneBit(Math.min(shardCount, capacity) * 2 - 1);
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard(Math.max(1, capacity / size));
+        }
+        this.store = store;
+    }
+
+    /**
+     * The key the message is deduplicated on.
+     */
+    public String keyOf(MessageView messageView) {
+        if (deduplicationKey == DeduplicationKey.KEYS) {
+            Collection<String> keys = messageView.getKeys();
+            if (keys != null && !keys.isEmpty()) {
+                return keys.size() == 1 ? keys.iterator().next() : String.join(",", keys);
+            }
+        }
+        return messageView.getMessageId().toString();
+    }
+
+    public boolean isDuplicate(String key) {
+        Shard shard = shardOf(key);
+        long now = System.nanoTime();
+        boolean duplicate = shard.contains(key, now);
+        if (!duplicate && store != null) {
+            try {
+                duplicate = store.contains(consumerGroup, key);
+            } catch (RuntimeException e) {
+                log.warn("Deduplication store lookup failed, consumerGroup={}, key={}", consumerGroup, key, e);
+            }
+            if (duplicate) {
+                shard.put(key, now + ttlNanos);
+            }
+        }
+        if (duplicate) {
+            duplicates.increment();
+        }
+        return duplicate;
+    }
+
+    public void record(String key) {
+        shardOf(key).put(key, System.nanoTime() + ttlNanos);
+        if (store != null) {
+            try {
+                store.record(consumerGroup, key, ttl);
+            } catch (RuntimeException e) {
+                log.warn("Deduplication store record failed, consumerGroup={}, key={}", consumerGroup, key, e);
+            }
+        }
+    }
+
+    /**
+     * Number of deliveries skipped as duplicates.
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private Shard shardOf(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+    }
+
+    private static final class Shard {
+
+        private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final int capacity;
+
+        private Shard(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized boolean contains(String key, long now) {
+            Long expiresAt = entries.get(key);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt - now <= 0) {
+                entries.remove(key);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Evicts the least recently used entry once over capacity, and the eldest one if it has expired.
+         */
+        synchronized void put(String key, long expiresAt) {
+            entries.put(key, expiresAt);
+            Iterator<Long> iterator = entries.values().iterator();
+            long eldestExpiresAt = iterator.next();
+            if (entries.size() > capacity || eldestExpiresAt - System.nanoTime() <= 0) {
+                iterator.remove();
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.ClientConfiguration;
+import org.apache.rocketmq.client.apis.ClientConfigurationBuilder;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.ClientServiceProvider;
+import org.apache.rocketmq.client.apis.StaticSessionCredentialsProvider;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares the service provider and the client configurations between all producers and consumers,
+ * and keeps count of the clients opened against every endpoint.
+ * <p>
+ * Every client of rocketmq-client-java owns its gRPC channels, so the number of clients per endpoint
+ * is the number of connections per endpoint, {@code maxClientsPerEndpoint} bounds it.
+ */
+@Slf4j
+public class RocketMQClientRegistry {
+
+    private static final RocketMQClientRegistry DEFAULT = new RocketMQClientRegistry(ClientServiceProvider.loadService(), 0);
+
+    private final ClientServiceProvider provider;
+
+    private final int maxClientsPerEndpoint;
+
+    private final ConcurrentMap<ClientKey, ClientConfiguration> configurations = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicInteger> clientCounts = new ConcurrentHashMap<>();
+
+    private final Map<Object, String> clientEndpoints = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * @param maxClientsPerEndpoint less than or equal to 0 means no limit
+     */
+    public RocketMQClientRegistry(ClientServiceProvider provider, int maxClientsPerEndpoint) {
+        this.provider = Objects.requireNonNull(provider, "provider");
+        this.maxClientsPerEndpoint = maxClientsPerEndpoint;
+    }
+
+    /**
+     * Registry used by containers and producers created outside of the auto-configuration.
+     */
+    public static RocketMQClientRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public ClientServiceProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * @param requestTimeout null to use the client default
+     */
+    public ClientConfiguration getClientConfiguration(String endpoints, String accessKey, String secretKey, Duration requestTimeout) {
+        return configurations.computeIfAbsent(new ClientKey(endpoints, accessKey, secretKey, requestTimeout), key -> {
+            ClientConfigurationBuilder builder = ClientConfiguration.newBuilder()
+                .setEndpoints(key.endpoints)
+                .setCredentialProvider(new StaticSessionCredentialsProvider(key.accessKey, key.secretKey));
+            if (key.requestTimeout != null) {
+                builder.setRequestTimeout(key.requestTimeout);
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * Builds a client against the endpoints, failing if the endpoints already have {@code maxClientsPerEndpoint} clients.
+     * Every created client must be closed with {@link #close(Closeable)}, or given back with {@link #releaseClient(Object)}
+     * when its owner closes it.
+     */
+    public <T> T createClient(String endpoints, ClientFactory<T> factory) throws ClientException {
+        AtomicInteger count = clientCounts.computeIfAbsent(endpoints, key -> new AtomicInteger());
+        int current;
+        do {
+            current = count.get();
+            if (maxClientsPerEndpoint > 0 && current >= maxClientsPerEndpoint) {
+                throw new ClientException("Too many clients for endpoints " + endpoints + ", limit is " + maxClientsPerEndpoint);
+            }
+        } while (!count.compareAndSet(current, current + 1));
+        T client;
+        try {
+            client = factory.create(provider);
+        } catch (ClientException | RuntimeException e) {
+            count.decrementAndGet();
+            throw e;
+        }
+        clientEndpoints.put(client, endpoints);
+        return client;
+    }
+
+    /**
+     * Closes a client, the slot of a client created by this registry is given back even if closing fails.
+     * Other clients are only closed, so closing a client twice releases it once.
+     */
+    public void close(Closeable client) throws IOException {
+        try {
+            client.close();
+        } finally {
+            releaseClient(client);
+        }
+    }
+
+    /**
+     * Gives the slot of a client created by this registry back, does nothing for other or already released clients.
+     */
+    public void releaseClient(Object client) {
+        String endpoints = clientEndpoints.remove(client);
+        if (endpoints != null) {
+            release(endpoints);
+        }
+    }
+
+    public void release(String endpoints) {
+        AtomicInteger count = clientCounts.get(endpoints);
+        if (count == null || count.getAndUpdate(current -> current > 0 ? current - 1 : 0) == 0) {
+            log.warn("Released more clients than created for endpoints {}", endpoints);
+        }
+    }
+
+    public int getClientCount(String endpoints) {
+        AtomicInteger count = clientCounts.get(endpoints);
+        return count == null ? 0 : count.get();
+    }
+
+    public Map<String, Integer> getClientCounts() {
+        Map<String, Integer> counts = new HashMap<>(clientCounts.size());
+        clientCounts.forEach((endpoints, count) -> counts.put(endpoints, count.get()));
+        return counts;
+    }
+
+    public int getMaxClientsPerEndpoint() {
+        return maxClientsPerEndpoint;
+    }
+
+    @FunctionalInterface
+    public interface ClientFactory<T> {
+
+        T create(ClientServiceProvider provider) throws ClientException;
+    }
+
+    private static final class ClientKey {
+
+        private final String endpoints;
+
+        private final String accessKey;
+
+        private final String secretKey;
+
+        private final Duration requestTimeout;
+
+        private ClientKey(String endpoints, String accessKey, String secretKey, Duration requestTimeout) {
+            this.endpoints = endpoints;
+            this.accessKey = accessKey;
+            this.secretKey = secretKey;
+            this.requestTimeout = requestTimeout;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClientKey)) {
+                return false;
+            }
+            ClientKey that = (ClientKey) o;
+            return Objects.equals(endpoints, that.endpoints) && Objects.equals(accessKey, that.accessKey)
+                && Objects.equals(secretKey, that.secretKey) && Objects.equals(requestTimeout, that.requestTimeout);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(endpoints, accessKey, secretKey, requestTimeout);
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Map;
+
+/**
+ * Looks up the listener containers by bean name to pause, resume and reconfigure them at runtime, e.g. to shed the
+ * load of a degraded downstream dependency. Exported over JMX when {@code spring.jmx.enabled} is set.
+ */
+@ManagedResource(objectName = "com.xbd.rocketmq:type=ListenerContainerRegistry", description = "RocketMQ listener containers")
+public class RocketMQListenerContainerRegistry {
+
+    private final ListableBeanFactory beanFactory;
+
+    public RocketMQListenerContainerRegistry(ListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    public Map<String, AbstractRocketMQListenerContainer> getContainers() {
+        return beanFactory.getBeansOfType(AbstractRocketMQListenerContainer.class, true, false);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no container with that name
+     */
+    public AbstractRocketMQListenerContainer getContainer(String name) {
+        AbstractRocketMQListenerContainer container = getContainers().get(name);
+        if (container == null) {
+            throw new IllegalArgumentException("No listener container named " + name);
+        }
+        return container;
+    }
+
+    @ManagedAttribute(description = "Bean names of the listener containers")
+    public String[] getContainerNames() {
+        return getContainers().keySet().toArray(new String[0]);
+    }
+
+    @ManagedOperation(description = "Stop handing new messages to the listener, the messages in flight are still consumed")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "name", description = "Container bean name"))
+    public void pause(String name) {
+        getContainer(name).pause();
+    }
+
+    @ManagedOperation(description = "Resume a paused container")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "name", description = "Container bean name"))
+    public void resume(String name) {
+        getContainer(name).resume();
+    }
+
+    @ManagedOperation(description = "Whether the container is paused")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "name", description = "Container bean name"))
+    public boolean isPaused(String name) {
+        return getContainer(name).isPaused();
+    }
+
+    @ManagedOperation(description = "Listener invocations the container may run at once")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "name", description = "Container bean name"))
+    public int getConcurrency(String name) {
+        return getContainer(name).getConcurrency();
+    }
+
+    @ManagedOperation(description = "Change the listener invocations the container may run at once")
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name = "name", description = "Container bean name"),
+        @ManagedOperationParameter(name = "concurrency", description = "New concurrency")})
+    public void changeConcurrency(String name, int concurrency) {
+        getContainer(name).changeConcurrency(concurrency);
+    }
+
+    @ManagedOperation(description = "The filter expression of the container")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "name", description = "Container bean name"))
+    public String getTag(String name) {
+        return getContainer(name).getTag();
+    }
+
+    @ManagedOperation(description = "Change the filter expression of the container")
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name = "name", description = "Container bean name"),
+        @ManagedOperationParameter(name = "tag", description = "New tag or SQL92 filter expression")})
+    public void changeTag(String name, String tag) {
+        getContainer(name).changeTag(tag);
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts the registered listener containers in parallel on a bounded pool during the lifecycle start,
+ * so the startup takes as long as the slowest consumer instead of the sum of all of them.
+ * The containers themselves are not auto-started.
+ */
+@Slf4j
+public class RocketMQListenerContainerStarter implements SmartLifecycle {
+
+    private final List<AbstractRocketMQListenerContainer> containers = new CopyOnWriteArrayList<>();
+
+    private final CopyOnWriteArrayList<AbstractRocketMQListenerContainer> failedContainers = new CopyOnWriteArrayList<>();
+
+    private final int parallelism;
+
+    private final Duration timeout;
+
+    private final StartupFailurePolicy failurePolicy;
+
+    private volatile boolean running;
+
+    public RocketMQListenerContainerStarter(int parallelism, Duration timeout, StartupFailurePolicy failurePolicy) {
+        this.parallelism = Math.max(1, parallelism);
+        this.timeout = timeout;
+        this.failurePolicy = failurePolicy;
+    }
+
+    /**
+     * Containers added after the lifecycle start, e.g. for lazily initialized listeners, are started right away.
+     */
+    public void addContainer(AbstractRocketMQListenerContainer container) {
+        containers.add(container);
+        if (running && !container.isRunning()) {
+            container.start();
+        }
+    }
+
+    @Override
+    public void start() {
+        List<AbstractRocketMQListenerContainer> pending = new ArrayList<>();
+        for (AbstractRocketMQListenerContainer container : containers) {
+            if (!container.isRunning()) {
+                pending.add(container);
+            }
+        }
+        if (!pending.isEmpty()) {
+            startAll(pending);
+        }
+        running = true;
+    }
+
+    private void startAll(List<AbstractRocketMQListenerContainer> pending) {
+        long begin = System.nanoTime();
+        failedContainers.clear();
+        ExecutorService pool = newStartupPool(Math.min(parallelism, pending.size()));
+        CompletableFuture<AbstractRocketMQListenerContainer> firstFailure = new CompletableFuture<>();
+        List<CompletableFuture<Void>> starts = new ArrayList<>(pending.size());
+        for (AbstractRocketMQListenerContainer container : pending) {
+            starts.add(CompletableFuture.runAsync(container::start, pool).whenComplete((v, t) -> {
+                if (t != null) {
+                    log.error("Started container failed. {}", container, t);
+                    failedContainers.addIfAbsent(container);
+                    firstFailure.complete(container);
+                }
+            }));
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(starts.toArray(new CompletableFuture<?>[0]));
+        try {
+            if (failurePolicy == StartupFailurePolicy.FAIL_FAST) {
+                CompletableFuture.anyOf(all, firstFailure).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                all.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            for (int i = 0; i < starts.size(); i++) {
+                if (!starts.get(i).isDone()) {
+                    AbstractRocketMQListenerContainer container = pending.get(i);
+                    log.error("Container did not start within {}. {}", timeout, container);
+                    failedContainers.addIfAbsent(container);
+                    starts.get(i).whenComplete((v, t) -> onLateStart(container, t));
+                }
+            }
+        } catch (ExecutionException e) {
+            // failures are collected by the callbacks above
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            throw new IllegalStateException("Interrupted while starting RocketMQ listener containers");
+        }
+        if (failurePolicy == StartupFailurePolicy.FAIL_FAST && !failedContainers.isEmpty()) {
+            pool.shutdownNow();
+            throw new IllegalStateException("Failed to start RocketMQ listener containers: " + failedContainers);
+        }
+        pool.shutdown();
+        log.info("Started {} of {} RocketMQ listener containers in {}ms", pending.size() - failedContainers.size(), pending.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+    }
+
+    /**
+     * A start that timed out keeps running on the pool. Under {@link StartupFailurePolicy#DEGRADE} a container that
+     * comes up late is no longer reported as failed, under {@link StartupFailurePolicy#FAIL_FAST} it is stopped again
+     * since the startup has already been aborted.
+     */
+    private void onLateStart(AbstractRocketMQListenerContainer container, Throwable failure) {
+        if (failure != null) {
+            return;
+        }
+        if (failurePolicy == StartupFailurePolicy.FAIL_FAST) {
+            log.warn("Stopping container that started after the startup was aborted. {}", container);
+            container.stop();
+        } else {
+            log.info("Container started after the startup timeout. {}", container);
+            failedContainers.remove(container);
+        }
+    }
+
+    private static ExecutorService newStartupPool(int threads) {
+        AtomicInteger index = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "RocketMQContainerStarter-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The containers are stopped by their own lifecycle.
+     */
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public List<AbstractRocketMQListenerContainer> getContainers() {
+        return Collections.unmodifiableList(containers);
+    }
+
+    /**
+     * Containers that failed or timed out on startup under the {@link StartupFailurePolicy#DEGRADE} policy.
+     */
+    public List<AbstractRocketMQListenerContainer> getFailedContainers() {
+        return Collections.unmodifiableList(failedContainers);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public StartupFailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+}
@@ -1,13 +1,18 @@
 package com.xbd.rocketmq.client.support;
 
-import com.alibaba.fastjson.JSON;
+import com.xbd.rocketmq.client.compression.MessageCompression;
+import com.xbd.rocketmq.client.converter.ByteBufferMessageConverter;
+import com.xbd.rocketmq.client.converter.JsonMessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConversionException;
+import com.xbd.rocketmq.client.converter.MessageConverter;
+import com.xbd.rocketmq.client.metrics.DeliveryLatencyTracker;
+import com.xbd.rocketmq.client.converter.StringMessageConverter;
 import org.apache.rocketmq.client.apis.ClientServiceProvider;
 import org.apache.rocketmq.client.apis.message.Message;
 import org.apache.rocketmq.client.apis.message.MessageBuilder;
 import org.apache.rocketmq.shaded.commons.lang3.ArrayUtils;
 import org.apache.rocketmq.shaded.commons.lang3.StringUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 /**
@@ -18,8 +23,46 @@ public class RocketMQUtil {
 
     final static ClientServiceProvider provider = ClientServiceProvider.loadService();
 
+    public final static MessageConverter DEFAULT_MESSAGE_CONVERTER = new JsonMessageConverter();
+
+    private final static MessageConverter STRING_CONVERTER = new StringMessageConverter();
+
+    private final static MessageConverter BYTES_CONVERTER = new ByteBufferMessageConverter();
+
     public static Message convertToRocketMessage(String topic, Object payloadObj, String messageGroup, Duration delay, String tag, String... keys) {
-        MessageBuilder builder = provider.newMessageBuilder().setTopic(topic).setBody(getMsgBody(payloadObj));
+        return convertToRocketMessage(DEFAULT_MESSAGE_CONVERTER, topic, payloadObj, messageGroup, delay, tag, keys);
+    }
+
+    public static Message convertToRocketMessage(MessageConverter converter, String topic, Object payloadObj, String messageGroup, Duration delay, String tag, String... keys) {
+        return convertToRocketMessage(converter, null, topic, payloadObj, messageGroup, delay, tag, keys);
+    }
+
+    /**
+     * Bodies are compressed if the compression is not null and the body reaches the threshold of the topic.
+     */
+    public static Message convertToRocketMessage(MessageConverter converter, MessageCompression compression, String topic, Object payloadObj,
+                                                 String messageGroup, Duration delay, String tag, String... keys) {
+        return convertToRocketMessage(converter, compression, false, topic, payloadObj, messageGroup, delay, tag, keys);
+    }
+
+    /**
+     * @param sendTimestamp whether to stamp the build time into {@link DeliveryLatencyTracker#SEND_TIMESTAMP_PROPERTY}
+     */
+    public static Message convertToRocketMessage(MessageConverter converter, MessageCompression compression, boolean sendTimestamp, String topic,
+                                                 Object payloadObj, String messageGroup, Duration delay, String tag, String... keys) {
+        MessageConverter payloadConverter = getPayloadConverter(payloadObj, converter);
+        byte[] body = payloadConverter.toMessageBody(payloadObj);
+        byte[] compressed = compression == null ? null : compression.compress(topic, body);
+        MessageBuilder builder = provider.newMessageBuilder().setTopic(topic)
+                .setBody(compressed == null ? body : compressed)
+                .addProperty(MessageConverter.CONTENT_TYPE_PROPERTY, payloadConverter.getContentType());
+        if (compressed != null) {
+            builder.addProperty(MessageCompression.CONTENT_ENCODING_PROPERTY, compression.getType().getEncoding())
+                    .addProperty(MessageCompression.ORIGINAL_LENGTH_PROPERTY, Integer.toString(body.length));
+        }
+        if (sendTimestamp) {
+            builder.addProperty(DeliveryLatencyTracker.SEND_TIMESTAMP_PROPERTY, Long.toString(DeliveryLatencyTracker.currentTimeMicros()));
+        }
         if (StringUtils.isNotBlank(messageGroup)) {
             builder.setMessageGroup(messageGroup);
         }
@@ -35,16 +78,19 @@ public class RocketMQUtil {
         return builder.build();
     }
 
-    private static byte[] getMsgBody(Object payload) {
-        byte[] payloads;
-        if (payload instanceof String) {
-            payloads = ((String) payload).getBytes(StandardCharsets.UTF_8);
-        } else if (payload instanceof byte[]) {
-            payloads = (byte[]) payload;
-        } else {
-            payloads = JSON.toJSONBytes(payload);
+    /**
+     * String and binary payloads are always written as is, everything else goes through the given converter.
+     */
+    private static MessageConverter getPayloadConverter(Object payload, MessageConverter converter) {
+        if (STRING_CONVERTER.supports(payload)) {
+            return STRING_CONVERTER;
+        } else if (BYTES_CONVERTER.supports(payload)) {
+            return BYTES_CONVERTER;
+        } else if (converter.supports(payload)) {
+            return converter;
         }
-        return payloads;
+        throw new MessageConversionException(converter.getClass().getSimpleName() + " does not support payload "
+                + (payload == null ? "null" : payload.getClass().getName()));
     }
 
 }
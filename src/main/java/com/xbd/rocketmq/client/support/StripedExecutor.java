@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks with the same key one after another in submission order, tasks with different keys in parallel.
+ * Every stripe is one thread with a bounded queue, submitting to a full stripe blocks.
+ */
+@Slf4j
+public class StripedExecutor {
+
+    private final Stripe[] stripes;
+
+    private final AtomicInteger unkeyed = new AtomicInteger();
+
+    private volatile boolean shutdown;
+
+    public StripedExecutor(String namePrefix, int stripeCount, int queueCapacity) {
+        if (stripeCount <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("stripeCount and queueCapacity must be positive");
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(namePrefix + "-" + i, queueCapacity);
+        }
+    }
+
+    /**
+     * @param key tasks without key are spread round robin over the stripes
+     */
+    public void execute(Object key, Runnable task) throws InterruptedException {
+        if (shutdown) {
+            throw new IllegalStateException("StripedExecutor is shut down");
+        }
+        stripeOf(key).queue.put(task);
+    }
+
+    private Stripe stripeOf(Object key) {
+        if (key == null) {
+            return stripes[(unkeyed.getAndIncrement() & Integer.MAX_VALUE) % stripes.length];
+        }
+        int h = key.hashCode();
+        return stripes[((h ^ (h >>> 16)) & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    /**
+     * Tasks already queued still run.
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Stripe stripe : stripes) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining > 0) {
+                stripe.thread.join(remaining);
+            }
+            if (stripe.thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Tasks waiting in the stripe queues.
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (Stripe stripe : stripes) {
+            queued += stripe.queue.size();
+        }
+        return queued;
+    }
+
+    private final class Stripe implements Runnable {
+
+        private final BlockingQueue<Runnable> queue;
+
+        private final Thread thread;
+
+        private Stripe(String name, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown || !queue.isEmpty()) {
+                Runnable task;
+                try {
+                    task = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (task == null) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    log.error("Striped task failed", t);
+                }
+            }
+        }
+    }
+
+}
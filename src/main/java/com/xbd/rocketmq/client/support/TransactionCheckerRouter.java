@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.apache.rocketmq.client.apis.producer.TransactionChecker;
+import org.apache.rocketmq.client.apis.producer.TransactionResolution;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The checker of a shared transactional producer, it hands every check to the listener registered
+ * for the topic and tag of the half message.
+ */
+@Slf4j
+public class TransactionCheckerRouter implements TransactionChecker {
+
+    private final Map<String, Map<String, TransactionChecker>> checkers;
+
+    /**
+     * @param checkers transaction listeners by topic then tag
+     */
+    public TransactionCheckerRouter(Map<String, Map<String, TransactionChecker>> checkers) {
+        Map<String, Map<String, TransactionChecker>> copy = new HashMap<>();
+        checkers.forEach((topic, byTag) -> copy.put(topic, Collections.unmodifiableMap(new HashMap<>(byTag))));
+        this.checkers = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public TransactionResolution check(MessageView messageView) {
+        Map<String, TransactionChecker> byTag = checkers.get(messageView.getTopic());
+        TransactionChecker checker = byTag == null ? null : byTag.get(messageView.getTag().orElse(null));
+        if (checker == null) {
+            log.warn("No transaction listener for topic={}, tag={}, messageId={}", messageView.getTopic(),
+                messageView.getTag().orElse(null), messageView.getMessageId());
+            return TransactionResolution.UNKNOWN;
+        }
+        return checker.check(messageView);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import com.xbd.rocketmq.client.converter.MessageBodyDecoder;
+import com.xbd.rocketmq.client.converter.MessageConverter;
+import com.xbd.rocketmq.client.converter.MessageConverterRegistry;
+import com.xbd.rocketmq.client.core.RocketMQListener;
+import com.xbd.rocketmq.client.core.RocketMQTypedListener;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.message.MessageView;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adapts a {@link RocketMQTypedListener} to the push consumer. A decoder for the payload type is
+ * prebuilt for every known content type, so consuming a message is a map lookup and one decode call.
+ */
+@Slf4j
+public class TypedMessageListenerAdapter implements RocketMQListener {
+
+    private final RocketMQTypedListener<Object> delegate;
+
+    private final Type payloadType;
+
+    private final MessageBodyDecoder defaultDecoder;
+
+    private final Map<String, MessageBodyDecoder> decoders = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public TypedMessageListenerAdapter(RocketMQTypedListener<?> delegate, Type payloadType,
+                                       MessageConverter defaultConverter, MessageConverterRegistry registry) {
+        this.delegate = (RocketMQTypedListener<Object>) delegate;
+        this.payloadType = payloadType;
+        this.defaultDecoder = defaultConverter.decoderFor(payloadType);
+        for (MessageConverter converter : registry.getConverters()) {
+            decoders.put(converter.getContentType(), converter.decoderFor(payloadType));
+        }
+        decoders.put(defaultConverter.getContentType(), defaultDecoder);
+    }
+
+    @Override
+    public ConsumeResult consume(MessageView messageView) {
+        String contentType = messageView.getProperties().get(MessageConverter.CONTENT_TYPE_PROPERTY);
+        MessageBodyDecoder decoder = contentType == null ? defaultDecoder : decoders.getOrDefault(contentType, defaultDecoder);
+        Object payload;
+        try {
+            payload = decoder.decode(messageView.getBody());
+        } catch (RuntimeException e) {
+            log.error("Convert message body to {} failed, messageId={}", payloadType.getTypeName(), messageView.getMessageId(), e);
+            return ConsumeResult.FAILURE;
+        }
+        return delegate.consume(payload, messageView);
+    }
+
+    public RocketMQTypedListener<Object> getDelegate() {
+        return delegate;
+    }
+
+    public Type getPayloadType() {
+        return payloadType;
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.autoconfigure;
+
+import com.xbd.rocketmq.client.RocketMQAutoConfiguration;
+import com.xbd.rocketmq.client.annotation.RocketMQTransactionListener;
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.apache.rocketmq.client.apis.producer.Producer;
+import org.apache.rocketmq.client.apis.producer.Transaction;
+import org.apache.rocketmq.client.apis.producer.TransactionChecker;
+import org.apache.rocketmq.client.apis.producer.TransactionResolution;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RocketMQTransactionConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(RocketMQAutoConfiguration.class))
+        .withUserConfiguration(Checkers.class)
+        .withPropertyValues("rocketmq.endpoints=127.0.0.1:8081", "rocketmq.accessKey=ak", "rocketmq.secretKey=sk",
+            "rocketmq.embedded.enabled=true", "rocketmq.embedded.transactionCheckDelay=100ms");
+
+    @Test
+    void checkersOnDifferentTopicsGetProducersOfTheirOwnPerTopic() {
+        contextRunner.run(context -> {
+            RocketMQTemplate template = context.getBean(RocketMQTemplate.class);
+            Producer orders = template.getTransactionProducer("orders", "created");
+            Producer payments = template.getTransactionProducer("payments", "paid");
+
+            assertNotNull(orders);
+            assertNotNull(payments);
+            assertNotSame(orders, payments);
+            assertNull(template.getTransactionProducer("orders", "paid"));
+            assertNull(template.getTransactionProducer("payments", "created"));
+            assertChecksRouted(context.getBean(OrderChecker.class), context.getBean(PaymentChecker.class), template);
+        });
+    }
+
+    @Test
+    void checkersSharingAnEndpointShareTheProducerAndKeepTheirChecks() {
+        contextRunner.withPropertyValues("rocketmq.transaction.producerScope=ENDPOINT").run(context -> {
+            RocketMQTemplate template = context.getBean(RocketMQTemplate.class);
+            Producer orders = template.getTransactionProducer("orders", "created");
+
+            assertNotNull(orders);
+            assertSame(orders, template.getTransactionProducer("payments", "paid"));
+            assertChecksRouted(context.getBean(OrderChecker.class), context.getBean(PaymentChecker.class), template);
+        });
+    }
+
+    @Test
+    void producerPoolSizeAppliesToEveryGroup() {
+        contextRunner.withPropertyValues("rocketmq.transaction.producerPoolSize=3").run(context -> {
+            RocketMQTemplate template = context.getBean(RocketMQTemplate.class);
+
+            assertEquals(3, (int) template.getTransactionProducerPools().get("orders").get("created"));
+            assertEquals(3, (int) template.getTransactionProducerPools().get("payments").get("paid"));
+        });
+    }
+
+    /**
+     * Leaves a transaction open on each topic, the broker checks its half message with the checker of its topic and tag.
+     */
+    private static void assertChecksRouted(OrderChecker orderChecker, PaymentChecker paymentChecker, RocketMQTemplate template)
+        throws Exception {
+        Transaction order = template.beginTransaction("orders", "created");
+        template.sendTransaction(order, "orders", "order-1", "created");
+        Transaction payment = template.beginTransaction("payments", "paid");
+        template.sendTransaction(payment, "payments", "payment-1", "paid");
+
+        awaitTrue(() -> !orderChecker.checked.isEmpty() && !paymentChecker.checked.isEmpty());
+        assertTrue(orderChecker.checked.stream().allMatch(body -> body.contains("order-1")));
+        assertTrue(paymentChecker.checked.stream().allMatch(body -> body.contains("payment-1")));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+    @Configuration
+    @Import({OrderChecker.class, PaymentChecker.class})
+    static class Checkers {
+    }
+
+    abstract static class RecordingChecker implements TransactionChecker {
+
+        final List<String> checked = new CopyOnWriteArrayList<>();
+
+        @Override
+        public TransactionResolution check(MessageView messageView) {
+            checked.add(StandardCharsets.UTF_8.decode(messageView.getBody().duplicate()).toString());
+            return TransactionResolution.COMMIT;
+        }
+    }
+
+    @RocketMQTransactionListener(topic = "orders", tag = "created")
+    static class OrderChecker extends RecordingChecker {
+    }
+
+    @RocketMQTransactionListener(topic = "payments", tag = "paid")
+    static class PaymentChecker extends RecordingChecker {
+    }
+
+}
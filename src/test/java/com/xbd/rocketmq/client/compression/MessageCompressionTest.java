@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.compression;
+
+import com.xbd.rocketmq.client.converter.StringMessageConverter;
+import com.xbd.rocketmq.client.support.RocketMQUtil;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MessageCompressionTest {
+
+    private static final String TOPIC = "orders";
+
+    private static final String BODY = String.join(",", Collections.nCopies(200, "{\"orderId\":42,\"status\":\"PAID\"}"));
+
+    @ParameterizedTest
+    @EnumSource(CompressionType.class)
+    void compressedMessageIsDecompressedForTheListener(CompressionType type) {
+        MessageCompression compression = new MessageCompression(type, 0, 1024, Collections.emptyMap());
+        Message message = RocketMQUtil.convertToRocketMessage(new StringMessageConverter(), compression, TOPIC, BODY,
+            null, null, null);
+
+        Map<String, String> properties = message.getProperties();
+        assertEquals(type.getEncoding(), properties.get(MessageCompression.CONTENT_ENCODING_PROPERTY));
+        assertEquals(Integer.toString(BODY.getBytes(StandardCharsets.UTF_8).length), properties.get(MessageCompression.ORIGINAL_LENGTH_PROPERTY));
+        assertTrue(message.getBody().remaining() < BODY.length());
+
+        MessageView received = viewOf(message.getBody(), properties);
+        MessageView decompressed = MessageCompression.decompress(received);
+        assertTrue(decompressed instanceof DecompressedMessageView);
+        assertSame(received, ((DecompressedMessageView) decompressed).getDelegate());
+        assertEquals(BODY, StandardCharsets.UTF_8.decode(decompressed.getBody()).toString());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CompressionType.class)
+    void directBodyIsDecompressed(CompressionType type) {
+        MessageCompression compression = new MessageCompression(type, 0, 1024, Collections.emptyMap());
+        Message message = RocketMQUtil.convertToRocketMessage(new StringMessageConverter(), compression, TOPIC, BODY,
+            null, null, null);
+        ByteBuffer body = message.getBody();
+        ByteBuffer direct = ByteBuffer.allocateDirect(body.remaining());
+        direct.put(body.duplicate()).flip();
+
+        MessageView decompressed = MessageCompression.decompress(viewOf(direct, message.getProperties()));
+        assertEquals(BODY, StandardCharsets.UTF_8.decode(decompressed.getBody()).toString());
+    }
+
+    @Test
+    void bodyUnderTheThresholdIsNotCompressed() {
+        MessageCompression compression = new MessageCompression(CompressionType.GZIP, 0, 1024, Collections.emptyMap());
+        Message message = RocketMQUtil.convertToRocketMessage(new StringMessageConverter(), compression, TOPIC, "order-42",
+            null, null, null);
+
+        assertNull(message.getProperties().get(MessageCompression.CONTENT_ENCODING_PROPERTY));
+        MessageView received = viewOf(message.getBody(), message.getProperties());
+        assertSame(received, MessageCompression.decompress(received));
+    }
+
+    @Test
+    void topicThresholdOverridesTheDefault() {
+        MessageCompression compression = new MessageCompression(CompressionType.GZIP, 0, 1024,
+            Collections.singletonMap(TOPIC, -1));
+
+        assertNull(compression.compress(TOPIC, BODY.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(compression.compress("payments", BODY.getBytes(StandardCharsets.UTF_8)) != null);
+    }
+
+    @Test
+    void compressedMessageWithoutOriginalLengthFails() {
+        MessageCompression compression = new MessageCompression(CompressionType.GZIP, 0, 1024, Collections.emptyMap());
+        Message message = RocketMQUtil.convertToRocketMessage(new StringMessageConverter(), compression, TOPIC, BODY,
+            null, null, null);
+        Map<String, String> properties = new HashMap<>(message.getProperties());
+        properties.remove(MessageCompression.ORIGINAL_LENGTH_PROPERTY);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> MessageCompression.decompress(viewOf(message.getBody(), properties)));
+        assertTrue(e.getMessage().contains(MessageCompression.ORIGINAL_LENGTH_PROPERTY));
+    }
+
+    @Test
+    void unknownEncodingIsPassedOnUndecoded() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(MessageCompression.CONTENT_ENCODING_PROPERTY, "br");
+        properties.put(MessageCompression.ORIGINAL_LENGTH_PROPERTY, "42");
+        MessageView received = viewOf(ByteBuffer.wrap(BODY.getBytes(StandardCharsets.UTF_8)), properties);
+
+        assertSame(received, MessageCompression.decompress(received));
+    }
+
+    private static MessageView viewOf(ByteBuffer body, Map<String, String> properties) {
+        MessageView messageView = mock(MessageView.class);
+        when(messageView.getBody()).thenAnswer(invocation -> body.duplicate());
+        when(messageView.getProperties()).thenReturn(properties);
+        return messageView;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensOnceTheFailureRateCrossesTheThreshold() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(policy(Duration.ofSeconds(30)));
+        assertNull(circuitBreaker.onResult(circuitBreaker.tryAcquire(), false));
+        assertNull(circuitBreaker.onResult(circuitBreaker.tryAcquire(), true));
+        assertNull(circuitBreaker.onResult(circuitBreaker.tryAcquire(), false));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.onResult(circuitBreaker.tryAcquire(), true));
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void probeOfTheHalfOpenBreakerClosesIt() throws Exception {
+        CircuitBreaker circuitBreaker = openedBreaker();
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        CircuitBreaker.Permit probe = circuitBreaker.tryAcquire();
+        assertNotNull(probe);
+        // a single probe at a time
+        assertNull(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.onResult(probe, false));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertNotNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeOpensTheBreakerAgain() throws Exception {
+        CircuitBreaker circuitBreaker = openedBreaker();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.onResult(circuitBreaker.tryAcquire(), true));
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void resultOfASendAcquiredBeforeOpeningIsNotTakenForTheProbe() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(policy(Duration.ofMillis(50)));
+        CircuitBreaker.Permit stale = circuitBreaker.tryAcquire();
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        TimeUnit.MILLISECONDS.sleep(100);
+        CircuitBreaker.Permit probe = circuitBreaker.tryAcquire();
+        assertNotNull(probe);
+
+        assertNull(circuitBreaker.onResult(stale, false));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.onResult(probe, true));
+    }
+
+    private static CircuitBreaker openedBreaker() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(policy(Duration.ofMillis(50)));
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+
+    private static SendPolicy policy(Duration openDuration) {
+        SendPolicy policy = new SendPolicy();
+        policy.setCircuitBreakerEnabled(true);
+        policy.setSlidingWindowSize(4);
+        policy.setMinimumCalls(4);
+        policy.setFailureRateThreshold(0.5);
+        policy.setOpenDuration(openDuration);
+        return policy;
+    }
+
+}
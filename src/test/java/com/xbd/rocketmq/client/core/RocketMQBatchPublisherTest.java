@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RocketMQBatchPublisherTest {
+
+    private final List<Message> sent = new CopyOnWriteArrayList<>();
+
+    private final Map<Message, SendReceipt> receipts = new ConcurrentHashMap<>();
+
+    private RocketMQTemplate template;
+
+    private RocketMQBatchPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(RocketMQTemplate.class);
+        when(template.sendMessageAsync(any())).thenAnswer(invocation -> {
+            Message message = invocation.getArgument(0);
+            sent.add(message);
+            SendReceipt receipt = mock(SendReceipt.class);
+            receipts.put(message, receipt);
+            return CompletableFuture.completedFuture(receipt);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.close(Duration.ofSeconds(1));
+        }
+    }
+
+    @Test
+    void buffersPerTopicUntilTheCountIsReached() throws Exception {
+        publisher = new RocketMQBatchPublisher(template, 3, 1024, Duration.ofSeconds(10));
+        List<CompletableFuture<SendReceipt>> orders = new ArrayList<>();
+        List<Message> orderMessages = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            orderMessages.add(message("orders", 4));
+            orders.add(publisher.publish(orderMessages.get(i)));
+            publisher.publish(message("payments", 4));
+        }
+        assertTrue(sent.isEmpty());
+
+        orderMessages.add(message("orders", 4));
+        orders.add(publisher.publish(orderMessages.get(2)));
+        assertEquals(orderMessages, sent);
+        // every caller gets the receipt of its own message
+        for (int i = 0; i < 3; i++) {
+            assertSame(receipts.get(orderMessages.get(i)), orders.get(i).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void flushesOnceTheSizeIsReached() {
+        publisher = new RocketMQBatchPublisher(template, 100, 10, Duration.ofSeconds(10));
+        publisher.publish(message("orders", 4));
+        publisher.publish(message("orders", 4));
+        assertTrue(sent.isEmpty());
+
+        publisher.publish(message("orders", 4));
+        assertEquals(3, sent.size());
+    }
+
+    @Test
+    void flushesOnceTheLingerElapsed() throws Exception {
+        publisher = new RocketMQBatchPublisher(template, 100, 1024, Duration.ofMillis(200));
+        Message message = message("orders", 4);
+        CompletableFuture<SendReceipt> future = publisher.publish(message);
+        assertFalse(future.isDone());
+        assertTrue(sent.isEmpty());
+
+        SendReceipt receipt = future.get(5, TimeUnit.SECONDS);
+        assertEquals(1, sent.size());
+        assertSame(receipts.get(message), receipt);
+    }
+
+    @Test
+    void closeFlushesTheBufferAndRejectsFurtherMessages() throws Exception {
+        publisher = new RocketMQBatchPublisher(template, 100, 1024, Duration.ofSeconds(10));
+        CompletableFuture<SendReceipt> orders = publisher.publish(message("orders", 4));
+        CompletableFuture<SendReceipt> payments = publisher.publish(message("payments", 4));
+
+        publisher.close(Duration.ofSeconds(1));
+        assertEquals(2, sent.size());
+        assertTrue(orders.isDone() && payments.isDone());
+
+        CompletableFuture<SendReceipt> rejected = publisher.publish(message("orders", 4));
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void failedSendFailsOnlyItsOwnFuture() throws Exception {
+        RuntimeException failure = new RuntimeException("unavailable");
+        Message failing = message("orders", 4);
+        doAnswer(invocation -> {
+            CompletableFuture<SendReceipt> future = new CompletableFuture<>();
+            future.completeExceptionally(failure);
+            return future;
+        }).when(template).sendMessageAsync(failing);
+        publisher = new RocketMQBatchPublisher(template, 2, 1024, Duration.ofSeconds(10));
+        CompletableFuture<SendReceipt> failed = publisher.publish(failing);
+        CompletableFuture<SendReceipt> succeeded = publisher.publish(message("orders", 4));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertSame(failure, e.getCause());
+        assertSame(receipts.get(sent.get(0)), succeeded.get(5, TimeUnit.SECONDS));
+    }
+
+    private static Message message(String topic, int bodySize) {
+        Message message = mock(Message.class);
+        when(message.getTopic()).thenReturn(topic);
+        when(message.getBody()).thenAnswer(invocation -> ByteBuffer.wrap(new byte[bodySize]));
+        return message;
+    }
+
+}
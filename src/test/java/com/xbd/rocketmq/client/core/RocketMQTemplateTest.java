@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.producer.Producer;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RocketMQTemplateTest {
+
+    private static final String TOPIC = "orders";
+
+    private final List<CompletableFuture<SendReceipt>> sends = new CopyOnWriteArrayList<>();
+
+    private Producer producer;
+
+    private RocketMQTemplate template;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        producer = mock(Producer.class);
+        when(producer.sendAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<SendReceipt> send = new CompletableFuture<>();
+            sends.add(send);
+            return send;
+        });
+        template = new RocketMQTemplate();
+        template.setProducer(producer);
+        template.setAsyncMaxInFlight(2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        template.destroy();
+    }
+
+    @Test
+    void asyncSendsOverTheCapFailFast() throws Exception {
+        CompletableFuture<SendReceipt> first = template.sendNormalAsync(TOPIC, "first");
+        CompletableFuture<SendReceipt> second = template.sendNormalAsync(TOPIC, "second");
+        assertEquals(2, template.getAsyncInFlight());
+
+        CompletableFuture<SendReceipt> rejected = template.sendNormalAsync(TOPIC, "rejected");
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(ClientException.class, e.getCause());
+        verify(producer, times(2)).sendAsync(any());
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(2, template.getAsyncInFlight());
+    }
+
+    @Test
+    void completedSendGivesItsPermitBack() throws Exception {
+        CompletableFuture<SendReceipt> first = template.sendNormalAsync(TOPIC, "first");
+        template.sendNormalAsync(TOPIC, "second");
+
+        SendReceipt receipt = mock(SendReceipt.class);
+        sends.get(0).complete(receipt);
+        assertSame(receipt, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, template.getAsyncInFlight());
+
+        CompletableFuture<SendReceipt> third = template.sendNormalAsync(TOPIC, "third");
+        assertFalse(third.isDone());
+        assertEquals(2, template.getAsyncInFlight());
+    }
+
+    @Test
+    void failedSendGivesItsPermitBack() throws Exception {
+        CompletableFuture<SendReceipt> first = template.sendNormalAsync(TOPIC, "first");
+        template.sendNormalAsync(TOPIC, "second");
+
+        ClientException failure = new ClientException("unavailable");
+        sends.get(0).completeExceptionally(failure);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertSame(failure, e.getCause());
+        assertEquals(1, template.getAsyncInFlight());
+
+        sends.get(1).completeExceptionally(failure);
+        assertEquals(0, template.getAsyncInFlight());
+    }
+
+    @Test
+    void sendThrowingGivesItsPermitBack() {
+        when(producer.sendAsync(any())).thenThrow(new IllegalStateException("producer closed"));
+
+        CompletableFuture<SendReceipt> failed = template.sendNormalAsync(TOPIC, "failed");
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, template.getAsyncInFlight());
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.core;
+
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.apache.rocketmq.client.java.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SendPolicyExecutorTest {
+
+    private static final String TOPIC = "orders";
+
+    private final SendReceipt receipt = mock(SendReceipt.class);
+
+    private SendPolicyExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void retriesWithBackoffUnderTheDeadline() throws Exception {
+        SendPolicy policy = retryPolicy(3, Duration.ofMillis(50));
+        policy.setDeadline(Duration.ofSeconds(5));
+        executor = new SendPolicyExecutor(policy, Collections.emptyMap(), RocketMQMetrics.NOOP);
+        List<Long> sendNanos = new CopyOnWriteArrayList<>();
+
+        SendReceipt result = executor.execute(message(), m -> {
+            sendNanos.add(System.nanoTime());
+            return sendNanos.size() < 3 ? failed(new ClientException("unavailable")) : CompletableFuture.completedFuture(receipt);
+        }).get(5, TimeUnit.SECONDS);
+
+        assertSame(receipt, result);
+        assertEquals(3, sendNanos.size());
+        // backoffs of 50ms then 100ms without jitter
+        assertTrue(sendNanos.get(1) - sendNanos.get(0) >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(sendNanos.get(2) - sendNanos.get(1) >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void backoffReachingPastTheDeadlineFailsRightAway() throws Exception {
+        SendPolicy policy = retryPolicy(5, Duration.ofSeconds(1));
+        policy.setDeadline(Duration.ofMillis(300));
+        executor = new SendPolicyExecutor(policy, Collections.emptyMap(), RocketMQMetrics.NOOP);
+        AtomicInteger sends = new AtomicInteger();
+        ClientException failure = new ClientException("unavailable");
+
+        CompletableFuture<SendReceipt> result = executor.execute(message(), m -> {
+            sends.incrementAndGet();
+            return failed(failure);
+        });
+
+        assertSame(failure, cause(result));
+        assertEquals(1, sends.get());
+    }
+
+    @Test
+    void nonRetryableFailureIsNeitherRetriedNorCounted() throws Exception {
+        SendPolicy policy = retryPolicy(3, Duration.ofMillis(10));
+        policy.setCircuitBreakerEnabled(true);
+        policy.setSlidingWindowSize(1);
+        policy.setMinimumCalls(1);
+        executor = new SendPolicyExecutor(policy, Collections.emptyMap(), RocketMQMetrics.NOOP);
+        AtomicInteger sends = new AtomicInteger();
+        BadRequestException failure = new BadRequestException(40001, "request-id", "bad request");
+
+        CompletableFuture<SendReceipt> result = executor.execute(message(), m -> {
+            sends.incrementAndGet();
+            return failed(failure);
+        });
+
+        assertSame(failure, cause(result));
+        assertEquals(1, sends.get());
+        assertEquals(CircuitBreaker.State.CLOSED, executor.getCircuitBreakerState(TOPIC));
+    }
+
+    @Test
+    void firstReceiptWinsOverTheHedgedSend() throws Exception {
+        executor = new SendPolicyExecutor(hedgePolicy(), Collections.emptyMap(), RocketMQMetrics.NOOP);
+        List<CompletableFuture<SendReceipt>> sends = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<SendReceipt> result = executor.execute(message(), m -> {
+            CompletableFuture<SendReceipt> send = new CompletableFuture<>();
+            sends.add(send);
+            return send;
+        });
+        awaitSends(sends, 2);
+        SendReceipt hedged = mock(SendReceipt.class);
+        sends.get(1).complete(hedged);
+
+        assertSame(hedged, result.get(5, TimeUnit.SECONDS));
+        sends.get(0).complete(receipt);
+        assertSame(hedged, result.get());
+    }
+
+    @Test
+    void hedgeIsCancelledOnceTheSendCompleted() throws Exception {
+        executor = new SendPolicyExecutor(hedgePolicy(), Collections.emptyMap(), RocketMQMetrics.NOOP);
+        AtomicInteger sends = new AtomicInteger();
+
+        SendReceipt result = executor.execute(message(), m -> {
+            sends.incrementAndGet();
+            return CompletableFuture.completedFuture(receipt);
+        }).get(5, TimeUnit.SECONDS);
+
+        assertSame(receipt, result);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, sends.get());
+    }
+
+    @Test
+    void openCircuitBreakerRejectsSendsUntilTheProbeSucceeds() throws Exception {
+        SendPolicy policy = new SendPolicy();
+        policy.setCircuitBreakerEnabled(true);
+        policy.setSlidingWindowSize(2);
+        policy.setMinimumCalls(2);
+        policy.setOpenDuration(Duration.ofMillis(100));
+        executor = new SendPolicyExecutor(policy, Collections.emptyMap(), RocketMQMetrics.NOOP);
+        AtomicInteger sends = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            cause(executor.execute(message(), m -> failed(new ClientException("unavailable"))));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, executor.getCircuitBreakerState(TOPIC));
+        Throwable rejected = cause(executor.execute(message(), m -> {
+            sends.incrementAndGet();
+            return CompletableFuture.completedFuture(receipt);
+        }));
+        assertTrue(rejected.getMessage().contains("is open"));
+        assertEquals(0, sends.get());
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, executor.getCircuitBreakerState(TOPIC));
+        assertSame(receipt, executor.execute(message(), m -> CompletableFuture.completedFuture(receipt)).get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.CLOSED, executor.getCircuitBreakerState(TOPIC));
+    }
+
+    private static SendPolicy retryPolicy(int maxAttempts, Duration initialBackoff) {
+        SendPolicy policy = new SendPolicy();
+        policy.setMaxAttempts(maxAttempts);
+        policy.setInitialBackoff(initialBackoff);
+        policy.setJitter(0);
+        return policy;
+    }
+
+    private static SendPolicy hedgePolicy() {
+        SendPolicy policy = new SendPolicy();
+        policy.setHedgeDelay(Duration.ofMillis(50));
+        return policy;
+    }
+
+    private static Message message() {
+        Message message = mock(Message.class);
+        when(message.getTopic()).thenReturn(TOPIC);
+        when(message.getMessageGroup()).thenReturn(Optional.empty());
+        return message;
+    }
+
+    private static CompletableFuture<SendReceipt> failed(Throwable t) {
+        CompletableFuture<SendReceipt> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
+    private static Throwable cause(CompletableFuture<SendReceipt> result) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    private static void awaitSends(List<?> sends, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sends.size() < expected) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.outbox;
+
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.embedded.EmbeddedBroker;
+import com.xbd.rocketmq.client.embedded.EmbeddedClientServiceProvider;
+import com.xbd.rocketmq.client.metrics.RocketMQMetrics;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.ClientServiceProvider;
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.apache.rocketmq.client.java.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RocketMQOutboxTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedBroker broker;
+
+    private ClientServiceProvider provider;
+
+    private RocketMQOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        broker = new EmbeddedBroker();
+        provider = new EmbeddedClientServiceProvider(broker);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (outbox != null) {
+            outbox.close();
+        }
+        broker.close();
+    }
+
+    @Test
+    void reopenRecoversPendingCountPerTopic() throws Exception {
+        outbox = open(SEGMENT_SIZE);
+        for (int i = 0; i < 3; i++) {
+            outbox.append(message("orders", "order-" + i));
+        }
+        outbox.append(message("payments", "payment-0"));
+        outbox.append(message("payments", "payment-1"));
+        outbox.close();
+
+        outbox = open(SEGMENT_SIZE);
+        assertEquals(3, outbox.getBacklog("orders"));
+        assertEquals(2, outbox.getBacklog("payments"));
+        assertEquals(5, outbox.getTotalBacklog());
+
+        List<String> sent = new CopyOnWriteArrayList<>();
+        outbox.start(recording(sent), 1, Duration.ofMillis(10), Duration.ofMillis(10));
+        awaitTrue(() -> outbox.getTotalBacklog() == 0);
+        assertEquals(5, sent.size());
+        assertTrue(sent.containsAll(Arrays.asList("order-0", "order-1", "order-2", "payment-0", "payment-1")));
+    }
+
+    @Test
+    void recordWithBrokenCrcEndsTheSegment() throws Exception {
+        outbox = open(SEGMENT_SIZE);
+        Message first = message("orders", "order-0");
+        outbox.append(first);
+        outbox.append(message("orders", "order-1"));
+        outbox.close();
+
+        int second = OutboxSegment.HEADER_SIZE + OutboxCodec.encode(first).length;
+        try (FileChannel channel = FileChannel.open(segmentFile(0), StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long position = second + OutboxSegment.HEADER_SIZE + 2;
+            channel.read(b, position);
+            b.put(0, (byte) (b.get(0) ^ 0xff));
+            b.rewind();
+            channel.write(b, position);
+        }
+
+        outbox = open(SEGMENT_SIZE);
+        assertEquals(1, outbox.getBacklog("orders"));
+    }
+
+    @Test
+    void tornTailRecordIsDroppedAndOverwritten() throws Exception {
+        outbox = open(SEGMENT_SIZE);
+        Message first = message("orders", "order-0");
+        outbox.append(first);
+        outbox.append(message("orders", "order-1"));
+        outbox.close();
+
+        // the crash left the length of the second record but only part of its payload
+        int second = OutboxSegment.HEADER_SIZE + OutboxCodec.encode(first).length;
+        try (FileChannel channel = FileChannel.open(segmentFile(0), StandardOpenOption.WRITE)) {
+            channel.truncate(second + OutboxSegment.HEADER_SIZE + 4);
+        }
+
+        outbox = open(SEGMENT_SIZE);
+        assertEquals(1, outbox.getBacklog("orders"));
+        outbox.append(message("orders", "order-2"));
+        outbox.close();
+
+        outbox = open(SEGMENT_SIZE);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        outbox.start(recording(sent), 1, Duration.ofMillis(10), Duration.ofMillis(10));
+        awaitTrue(() -> outbox.getTotalBacklog() == 0);
+        assertEquals(Arrays.asList("order-0", "order-2"), sent);
+    }
+
+    @Test
+    void fullSegmentsRotateAndAreDeletedOnceDrained() throws Exception {
+        int segmentSize = 256;
+        outbox = open(segmentSize);
+        for (int i = 0; i < 20; i++) {
+            outbox.append(message("orders", "order-" + i));
+        }
+        assertTrue(segmentFiles().size() > 2, "expected several segments but got " + segmentFiles());
+
+        List<String> sent = new CopyOnWriteArrayList<>();
+        outbox.start(recording(sent), 4, Duration.ofMillis(10), Duration.ofMillis(10));
+        awaitTrue(() -> outbox.getTotalBacklog() == 0);
+        assertEquals(20, sent.size());
+        awaitTrue(() -> segmentFiles().size() == 1);
+    }
+
+    @Test
+    void retryableFailureIsRetriedWithBackoff() throws Exception {
+        outbox = open(SEGMENT_SIZE);
+        outbox.append(message("orders", "order-0"));
+        AtomicInteger attempts = new AtomicInteger();
+        List<Long> attemptNanos = new CopyOnWriteArrayList<>();
+        outbox.start(message -> {
+            attemptNanos.add(System.nanoTime());
+            if (attempts.incrementAndGet() <= 3) {
+                CompletableFuture<SendReceipt> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new ClientException("broker unavailable"));
+                return failed;
+            }
+            return CompletableFuture.completedFuture(null);
+        }, 1, Duration.ofMillis(50), Duration.ofMillis(100));
+
+        awaitTrue(() -> outbox.getTotalBacklog() == 0);
+        assertEquals(4, attempts.get());
+        // 50ms, then doubled to 100ms and capped at maxRetryInterval
+        assertTrue(attemptNanos.get(1) - attemptNanos.get(0) >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(attemptNanos.get(2) - attemptNanos.get(1) >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(attemptNanos.get(3) - attemptNanos.get(2) >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void nonRetryableFailureDropsTheMessage() throws Exception {
+        outbox = open(SEGMENT_SIZE);
+        outbox.append(message("orders", "order-0"));
+        outbox.append(message("orders", "order-1"));
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Function<Message, CompletableFuture<SendReceipt>> recording = recording(sent);
+        outbox.start(message -> {
+            if ("order-0".equals(body(message))) {
+                CompletableFuture<SendReceipt> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new BadRequestException(400, "request-id", "bad request"));
+                return failed;
+            }
+            return recording.apply(message);
+        }, 1, Duration.ofMillis(10), Duration.ofMillis(10));
+
+        awaitTrue(() -> outbox.getTotalBacklog() == 0);
+        assertEquals(Collections.singletonList("order-1"), sent);
+    }
+
+    @Test
+    void fifoMessagesAreNotTaken() throws Exception {
+        outbox = open(SEGMENT_SIZE);
+        Message fifo = provider.newMessageBuilder().setTopic("orders").setMessageGroup("customer-1")
+            .setBody("order-0".getBytes(StandardCharsets.UTF_8)).build();
+        assertThrows(IllegalArgumentException.class, () -> outbox.append(fifo));
+        assertEquals(0, outbox.getTotalBacklog());
+    }
+
+    @Test
+    void templateFailsFifoSendsInsteadOfSpilling() throws Exception {
+        outbox = open(SEGMENT_SIZE);
+        RocketMQTemplate template = new RocketMQTemplate();
+        template.setProducer(provider.newProducerBuilder().build());
+        template.setOutbox(outbox);
+        broker.setSendFailureRate(1);
+        try {
+            assertThrows(ClientException.class, () -> template.sendFifo("orders", "order-0", "customer-1"));
+            assertEquals(0, outbox.getTotalBacklog());
+
+            SendReceipt receipt = template.sendNormal("orders", "order-1");
+            assertTrue(receipt instanceof OutboxSendReceipt);
+            assertEquals(1, outbox.getBacklog("orders"));
+        } finally {
+            template.destroy();
+        }
+    }
+
+    private RocketMQOutbox open(int segmentSize) throws IOException {
+        return new RocketMQOutbox(directory, segmentSize, false, provider, RocketMQMetrics.NOOP);
+    }
+
+    private Message message(String topic, String body) {
+        return provider.newMessageBuilder().setTopic(topic).setBody(body.getBytes(StandardCharsets.UTF_8)).build();
+    }
+
+    private static Function<Message, CompletableFuture<SendReceipt>> recording(List<String> sent) {
+        return message -> {
+            sent.add(body(message));
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    private static String body(Message message) {
+        return StandardCharsets.UTF_8.decode(message.getBody().duplicate()).toString();
+    }
+
+    private Path segmentFile(long index) {
+        return directory.resolve(OutboxSegment.fileName(index));
+    }
+
+    private List<Path> segmentFiles() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.seg")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return files;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.reactive;
+
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveRocketMQTemplateTest {
+
+    private static final String TOPIC = "orders";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final List<CompletableFuture<SendReceipt>> sends = new CopyOnWriteArrayList<>();
+
+    private RocketMQTemplate template;
+
+    private ReactiveRocketMQTemplate reactiveTemplate;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(RocketMQTemplate.class);
+        when(template.sendNormalAsync(anyString(), any())).thenAnswer(invocation -> {
+            CompletableFuture<SendReceipt> send = new CompletableFuture<>();
+            sends.add(send);
+            return send;
+        });
+        reactiveTemplate = new ReactiveRocketMQTemplate(template);
+    }
+
+    @Test
+    void nothingIsSentBeforeSubscription() {
+        Mono<SendReceipt> send = reactiveTemplate.sendNormal(TOPIC, "order-1");
+        verify(template, never()).sendNormalAsync(anyString(), any());
+
+        SendReceipt receipt = mock(SendReceipt.class);
+        StepVerifier.create(send)
+            .then(() -> sends.get(0).complete(receipt))
+            .expectNext(receipt)
+            .expectComplete()
+            .verify(TIMEOUT);
+    }
+
+    @Test
+    void manySendsKeepAtMostConcurrencyPendingAndEmitInPayloadOrder() {
+        reactiveTemplate.setConcurrency(2);
+        SendReceipt first = mock(SendReceipt.class);
+        SendReceipt second = mock(SendReceipt.class);
+        SendReceipt third = mock(SendReceipt.class);
+
+        StepVerifier.create(reactiveTemplate.sendNormalMany(TOPIC, Flux.just("order-1", "order-2", "order-3")))
+            .then(() -> assertEquals(2, sends.size()))
+            .then(() -> sends.get(1).complete(second))
+            // the second receipt waits for the first one and keeps its slot until emitted
+            .then(() -> assertEquals(2, sends.size()))
+            .then(() -> sends.get(0).complete(first))
+            .expectNext(first, second)
+            .then(() -> assertEquals(3, sends.size()))
+            .then(() -> sends.get(2).complete(third))
+            .expectNext(third)
+            .expectComplete()
+            .verify(TIMEOUT);
+    }
+
+    @Test
+    void failedSendErrorsTheStream() {
+        ClientException failure = new ClientException("unavailable");
+
+        StepVerifier.create(reactiveTemplate.sendNormalMany(TOPIC, Flux.just("order-1", "order-2")))
+            .then(() -> sends.get(0).completeExceptionally(failure))
+            .expectErrorMatches(t -> t == failure)
+            .verify(TIMEOUT);
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.reactive;
+
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.message.MessageId;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RocketMQFluxReceiverTest {
+
+    private static final Duration INVISIBLE_DURATION = Duration.ofSeconds(30);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final List<Integer> receiveSizes = new CopyOnWriteArrayList<>();
+
+    private final List<CompletableFuture<List<MessageView>>> receives = new CopyOnWriteArrayList<>();
+
+    private SimpleConsumer simpleConsumer;
+
+    private RocketMQFluxReceiver receiver;
+
+    @BeforeEach
+    void setUp() {
+        simpleConsumer = mock(SimpleConsumer.class);
+        when(simpleConsumer.receiveAsync(anyInt(), any())).thenAnswer(invocation -> {
+            CompletableFuture<List<MessageView>> receive = new CompletableFuture<>();
+            receiveSizes.add(invocation.getArgument(0));
+            receives.add(receive);
+            return receive;
+        });
+        when(simpleConsumer.ackAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        receiver = new RocketMQFluxReceiver(simpleConsumer, 10, INVISIBLE_DURATION, null);
+    }
+
+    @Test
+    void receivesNoMoreThanTheOutstandingDemandOneReceiveAtATime() {
+        StepVerifier.create(receiver.receive(), 3)
+            .then(() -> assertEquals(Collections.singletonList(3), receiveSizes))
+            // more demand while the receive is in flight does not start another one
+            .thenRequest(20)
+            .then(() -> assertEquals(1, receives.size()))
+            .then(() -> receives.get(0).complete(messages(3)))
+            .expectNextCount(3)
+            // the rest of the demand, capped at the max messages of a receive
+            .then(() -> assertEquals(2, receives.size()))
+            .then(() -> assertEquals(10, (int) receiveSizes.get(1)))
+            .then(() -> receives.get(1).complete(messages(10)))
+            .expectNextCount(10)
+            .then(() -> assertEquals(10, (int) receiveSizes.get(2)))
+            .then(() -> receives.get(2).complete(messages(2)))
+            .expectNextCount(2)
+            .then(() -> assertEquals(8, (int) receiveSizes.get(3)))
+            .thenCancel()
+            .verify(TIMEOUT);
+        verify(simpleConsumer, never()).ackAsync(any());
+    }
+
+    @Test
+    void nothingIsReceivedWithoutDemand() {
+        StepVerifier.create(receiver.receive(), 0)
+            .expectSubscription()
+            .then(() -> assertTrue(receives.isEmpty()))
+            .thenRequest(1)
+            .then(() -> assertEquals(Collections.singletonList(1), receiveSizes))
+            .thenCancel()
+            .verify(TIMEOUT);
+    }
+
+    @Test
+    void messageIsAckedOnceItsHandlerCompleted() {
+        MessageView message = messages(1).get(0);
+        Sinks.Empty<Void> handled = Sinks.empty();
+
+        StepVerifier.create(receiver.consume(messageView -> handled.asMono(), 1), 1)
+            .then(() -> receives.get(0).complete(Collections.singletonList(message)))
+            .then(() -> verify(simpleConsumer, never()).ackAsync(any()))
+            .then(handled::tryEmitEmpty)
+            .expectNext(message)
+            .then(() -> verify(simpleConsumer).ackAsync(message))
+            .thenCancel()
+            .verify(TIMEOUT);
+    }
+
+    @Test
+    void messageOfAFailedHandlerIsNotAcked() {
+        StepVerifier.create(receiver.consume(messageView -> {
+            throw new IllegalStateException("handler failed");
+        }, 1), 1)
+            .then(() -> receives.get(0).complete(messages(1)))
+            .then(() -> verify(simpleConsumer, never()).ackAsync(any()))
+            .then(() -> assertEquals(2, receives.size()))
+            .thenCancel()
+            .verify(TIMEOUT);
+    }
+
+    @Test
+    void streamCompletesWhenTheReceiverIsClosed() throws Exception {
+        StepVerifier.create(receiver.receive(), 1)
+            .then(() -> assertEquals(1, receives.size()))
+            .then(this::closeReceiver)
+            .expectComplete()
+            .verify(TIMEOUT);
+        verify(simpleConsumer).close();
+        StepVerifier.create(receiver.receive()).expectComplete().verify(TIMEOUT);
+        assertEquals(1, receives.size());
+    }
+
+    private void closeReceiver() {
+        try {
+            receiver.close();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<MessageView> messages(int count) {
+        List<MessageView> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MessageView message = mock(MessageView.class);
+            when(message.getMessageId()).thenReturn(mock(MessageId.class));
+            when(message.getBody()).thenReturn(ByteBuffer.wrap(new byte[0]));
+            when(message.getProperties()).thenReturn(Collections.emptyMap());
+            messages.add(message);
+        }
+        return messages;
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import com.xbd.rocketmq.client.compression.CompressionType;
+import com.xbd.rocketmq.client.compression.DecompressedMessageView;
+import com.xbd.rocketmq.client.compression.MessageCompression;
+import com.xbd.rocketmq.client.core.RocketMQBatchListener;
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.embedded.EmbeddedBroker;
+import com.xbd.rocketmq.client.embedded.EmbeddedClientServiceProvider;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.consumer.FilterExpressionType;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.message.MessageId;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultRocketMQBatchListenerContainerTest {
+
+    private static final String TOPIC = "orders";
+
+    private EmbeddedBroker broker;
+
+    private RocketMQClientRegistry clientRegistry;
+
+    private RocketMQTemplate template;
+
+    private DefaultRocketMQBatchListenerContainer container;
+
+    private final List<MessageId> acked = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new EmbeddedBroker();
+        clientRegistry = new RocketMQClientRegistry(new EmbeddedClientServiceProvider(broker), 0);
+        template = new RocketMQTemplate();
+        template.setProducer(clientRegistry.getProvider().newProducerBuilder().build());
+        template.setCompression(new MessageCompression(CompressionType.GZIP, 0, 64, Collections.emptyMap()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (container != null) {
+            container.stop();
+        }
+        template.destroy();
+        broker.close();
+    }
+
+    @Test
+    void compressedMessageAckedByTheListenerIsAckedOnce() throws Exception {
+        List<MessageView> consumed = new CopyOnWriteArrayList<>();
+        container = newContainer((messages, acknowledgment) -> {
+            consumed.addAll(messages);
+            acknowledgment.acknowledge(messages.get(0));
+            return ConsumeResult.SUCCESS;
+        });
+        container.start();
+        String body = String.join("", Collections.nCopies(100, "order-"));
+        template.sendNormal(TOPIC, body);
+
+        awaitAcked(1);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, consumed.size());
+        assertTrue(consumed.get(0) instanceof DecompressedMessageView);
+        assertTrue(StandardCharsets.UTF_8.decode(consumed.get(0).getBody()).toString().contains(body));
+        assertEquals(Collections.singletonList(consumed.get(0).getMessageId()), acked);
+        assertEquals(0, broker.getBacklog(TOPIC, "order-consumer"));
+    }
+
+    private DefaultRocketMQBatchListenerContainer newContainer(RocketMQBatchListener listener) throws Exception {
+        DefaultRocketMQBatchListenerContainer container = new DefaultRocketMQBatchListenerContainer() {
+            @Override
+            protected void ackAsync(SimpleConsumer simpleConsumer, MessageView messageView) {
+                acked.add(messageView.getMessageId());
+                super.ackAsync(simpleConsumer, messageView);
+            }
+        };
+        container.setClientRegistry(clientRegistry);
+        container.setEndPoints("127.0.0.1:8081");
+        container.setAccessKey("ak");
+        container.setSecretKey("sk");
+        container.setRequestTimeout(3);
+        container.setConsumerGroup("order-consumer");
+        container.setTopic(TOPIC);
+        container.setTag("*");
+        container.setSelectorType(FilterExpressionType.TAG);
+        container.setAwaitDuration(Duration.ofMillis(200));
+        container.setShutdownTimeout(Duration.ofSeconds(5));
+        container.setRocketMQBatchListener(listener);
+        container.afterPropertiesSet();
+        return container;
+    }
+
+    private void awaitAcked(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (acked.size() < count) {
+            assertTrue(System.nanoTime() < deadline, "expected " + count + " acks within 5s");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import com.xbd.rocketmq.client.annotation.ConsumeMode;
+import com.xbd.rocketmq.client.core.RocketMQListener;
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.embedded.EmbeddedBroker;
+import com.xbd.rocketmq.client.embedded.EmbeddedClientServiceProvider;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.ClientException;
+import org.apache.rocketmq.client.apis.consumer.FilterExpressionType;
+import org.apache.rocketmq.client.apis.consumer.SimpleConsumer;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class DefaultRocketMQListenerContainerTest {
+
+    private static final String TOPIC = "orders";
+
+    private EmbeddedBroker broker;
+
+    private RocketMQClientRegistry clientRegistry;
+
+    private RocketMQTemplate template;
+
+    private DefaultRocketMQListenerContainer container;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new EmbeddedBroker();
+        broker.setRedeliveryDelay(Duration.ofMillis(100));
+        clientRegistry = new RocketMQClientRegistry(new EmbeddedClientServiceProvider(broker), 0);
+        template = new RocketMQTemplate();
+        template.setProducer(clientRegistry.getProvider().newProducerBuilder().build());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (container != null) {
+            container.stop();
+        }
+        template.destroy();
+        broker.close();
+    }
+
+    @Test
+    void restartInExecutorModeCreatesFreshListenerPool() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        container = newContainer(ConsumeMode.EXECUTOR, messageView -> {
+            received.add(body(messageView));
+            return ConsumeResult.SUCCESS;
+        });
+        container.start();
+        template.sendNormal(TOPIC, "before");
+        assertReceived("before", received);
+
+        container.stop();
+        container.start();
+        template.sendNormal(TOPIC, "after");
+        assertReceived("after", received);
+    }
+
+    @Test
+    void inFlightMessagesSurvivePushConsumerReplacement() throws Exception {
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        container = newContainer(ConsumeMode.PUSH, messageView -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ConsumeResult.FAILURE;
+            }
+            received.add(body(messageView));
+            return ConsumeResult.SUCCESS;
+        });
+        container.start();
+        for (int i = 0; i < 4; i++) {
+            template.sendNormal(TOPIC, "before-" + i);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> change = CompletableFuture.runAsync(() -> container.changeConcurrency(2));
+        TimeUnit.MILLISECONDS.sleep(200);
+        // the retired consumer waits for its listener invocations
+        assertFalse(change.isDone());
+        release.countDown();
+        change.get(5, TimeUnit.SECONDS);
+        assertEquals(2, container.getConcurrency());
+
+        for (int i = 0; i < 4; i++) {
+            template.sendNormal(TOPIC, "after-" + i);
+        }
+        awaitTrue(() -> received.size() == 8 && container.getConsumedCount() == 8);
+        assertEquals(0, container.getFailedCount());
+        assertTrue(broker.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void messagesPushedWhilePausingAreHandedBackWithoutUsingAnAttempt() throws Exception {
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        AtomicInteger redelivered = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        container = newContainer(ConsumeMode.PUSH, messageView -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ConsumeResult.FAILURE;
+            }
+            if (messageView.getDeliveryAttempt() > 1) {
+                redelivered.incrementAndGet();
+            }
+            received.add(body(messageView));
+            return ConsumeResult.SUCCESS;
+        });
+        container.start();
+        for (int i = 0; i < 12; i++) {
+            template.sendNormal(TOPIC, "message-" + i);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> pause = CompletableFuture.runAsync(() -> container.pause());
+        TimeUnit.MILLISECONDS.sleep(200);
+        // the freed consumption threads are pushed further messages while the consumer is retired
+        release.countDown();
+        pause.get(10, TimeUnit.SECONDS);
+        assertEquals(4, received.size());
+
+        container.resume();
+        awaitTrue(() -> received.size() == 12);
+        assertEquals(0, redelivered.get());
+        assertEquals(0, container.getFailedCount());
+        assertTrue(broker.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void orderlyFailureKeepsItsMessageGroupWaiting() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        AtomicInteger firstAttempts = new AtomicInteger();
+        AtomicInteger firstDeliveryAttempt = new AtomicInteger();
+        container = newContainer(ConsumeMode.ORDERLY, messageView -> {
+            String body = body(messageView);
+            if (body.contains("first")) {
+                if (firstAttempts.incrementAndGet() <= 3) {
+                    return ConsumeResult.FAILURE;
+                }
+                firstDeliveryAttempt.set(messageView.getDeliveryAttempt());
+            }
+            received.add(body);
+            return ConsumeResult.SUCCESS;
+        });
+        // shorter than the retries, they have to extend it
+        container.setInvisibleDuration(Duration.ofSeconds(1));
+        container.start();
+        template.sendFifo(TOPIC, "first", "customer-1");
+        template.sendFifo(TOPIC, "second", "customer-1");
+
+        assertReceived("first", received);
+        assertReceived("second", received);
+        assertEquals(4, firstAttempts.get());
+        assertEquals(1, firstDeliveryAttempt.get());
+        awaitTrue(() -> container.getConsumedCount() == 2);
+        assertNull(received.poll(1500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void resumeAfterPauseKeepsDeliveringInPushMode() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        container = newContainer(ConsumeMode.PUSH, messageView -> {
+            received.add(body(messageView));
+            return ConsumeResult.SUCCESS;
+        });
+        container.start();
+        assertResumeKeepsDelivering(received);
+    }
+
+    @Test
+    void messagesOfAReceivePendingOnPauseAreReleased() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        AtomicReference<SimpleConsumer> simpleConsumer = new AtomicReference<>();
+        container = new DefaultRocketMQListenerContainer() {
+            @Override
+            protected SimpleConsumer buildSimpleConsumer() throws ClientException {
+                simpleConsumer.set(mock(SimpleConsumer.class, delegatesTo(super.buildSimpleConsumer())));
+                return simpleConsumer.get();
+            }
+        };
+        configure(container, ConsumeMode.EXECUTOR, messageView -> {
+            received.add(body(messageView));
+            return ConsumeResult.SUCCESS;
+        });
+        // long enough for the receive to still be pending when the message arrives
+        container.setAwaitDuration(Duration.ofSeconds(2));
+        container.start();
+        awaitTrue(() -> mockingDetails(simpleConsumer.get()).getInvocations().stream()
+            .anyMatch(invocation -> invocation.getMethod().getName().equals("receive")));
+
+        container.pause();
+        template.sendNormal(TOPIC, "paused");
+        // made visible again instead of waiting out the invisible duration of 30s
+        verify(simpleConsumer.get(), timeout(5000)).changeInvisibleDurationAsync(
+            argThat(messageView -> body(messageView).equals("paused")), eq(Duration.ZERO));
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+
+        container.resume();
+        assertReceived("paused", received);
+        template.sendNormal(TOPIC, "resumed");
+        assertReceived("resumed", received);
+    }
+
+    private void assertResumeKeepsDelivering(BlockingQueue<String> received) throws Exception {
+        template.sendNormal(TOPIC, "before");
+        assertReceived("before", received);
+
+        container.pause();
+        template.sendNormal(TOPIC, "paused");
+        assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+
+        container.resume();
+        assertReceived("paused", received);
+        template.sendNormal(TOPIC, "resumed");
+        assertReceived("resumed", received);
+        assertFalse(container.isPaused());
+    }
+
+    private DefaultRocketMQListenerContainer newContainer(ConsumeMode consumeMode, RocketMQListener listener) throws Exception {
+        return configure(new DefaultRocketMQListenerContainer(), consumeMode, listener);
+    }
+
+    private DefaultRocketMQListenerContainer configure(DefaultRocketMQListenerContainer container, ConsumeMode consumeMode,
+                                                       RocketMQListener listener) throws Exception {
+        container.setClientRegistry(clientRegistry);
+        container.setEndPoints("127.0.0.1:8081");
+        container.setAccessKey("ak");
+        container.setSecretKey("sk");
+        container.setRequestTimeout(3);
+        container.setConsumerGroup("order-consumer");
+        container.setTopic(TOPIC);
+        container.setTag("*");
+        container.setSelectorType(FilterExpressionType.TAG);
+        container.setConsumeMode(consumeMode);
+        container.setMaxInFlight(8);
+        container.setConsumptionThreadCount(4);
+        container.setAwaitDuration(Duration.ofMillis(200));
+        container.setShutdownTimeout(Duration.ofSeconds(5));
+        container.setRocketMQListener(listener);
+        container.afterPropertiesSet();
+        return container;
+    }
+
+    private static String body(MessageView messageView) {
+        return StandardCharsets.UTF_8.decode(messageView.getBody().duplicate()).toString();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+    private static void assertReceived(String expected, BlockingQueue<String> received) throws InterruptedException {
+        String body = received.poll(5, TimeUnit.SECONDS);
+        assertTrue(body != null && body.contains(expected), "expected " + expected + " but got " + body);
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlowControllerTest {
+
+    private final AtomicLong nanoTime = new AtomicLong(TimeUnit.SECONDS.toNanos(1000));
+
+    @Test
+    void tokenBucketHoldsOneSecondOfTokens() {
+        FlowController flowController = new FlowController(10, 100, false, 1, null, 0.5, nanoTime::get);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(flowController.tryAcquire());
+        }
+        assertFalse(flowController.tryAcquire());
+
+        advance(100);
+        assertTrue(flowController.tryAcquire());
+        assertFalse(flowController.tryAcquire());
+
+        // idle time beyond a second does not add tokens
+        advance(5000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(flowController.tryAcquire());
+        }
+        assertFalse(flowController.tryAcquire());
+    }
+
+    @Test
+    void cancelledAdmissionsGiveTheirTokensBack() {
+        FlowController flowController = new FlowController(2, 100, false, 1, null, 0.5, nanoTime::get);
+        assertTrue(flowController.tryAcquire());
+        assertTrue(flowController.tryAcquire());
+        assertFalse(flowController.tryAcquire());
+
+        flowController.cancel(1);
+        assertEquals(1, flowController.getInFlight());
+        assertTrue(flowController.tryAcquire());
+    }
+
+    @Test
+    void concurrencyLimitBoundsTheAdmissions() {
+        FlowController flowController = new FlowController(0, 2, false, 1, null, 0.5, nanoTime::get);
+        assertTrue(flowController.tryAcquire());
+        assertTrue(flowController.tryAcquire());
+        assertFalse(flowController.tryAcquire());
+
+        flowController.release();
+        assertTrue(flowController.tryAcquire());
+    }
+
+    @Test
+    void failuresCutTheLimitOncePerInvocationWindow() {
+        FlowController flowController = new FlowController(0, 10, true, 2, null, 0.5, nanoTime::get);
+        advance(1000);
+        flowController.onResult(TimeUnit.MILLISECONDS.toNanos(10), ConsumeResult.FAILURE);
+        assertEquals(5, flowController.getLimit());
+
+        // started before the decrease, already accounted for
+        flowController.onResult(TimeUnit.MILLISECONDS.toNanos(10), ConsumeResult.FAILURE);
+        assertEquals(5, flowController.getLimit());
+
+        advance(1000);
+        flowController.onResult(TimeUnit.MILLISECONDS.toNanos(10), ConsumeResult.FAILURE);
+        assertEquals(2, flowController.getLimit());
+        advance(1000);
+        flowController.onResult(TimeUnit.MILLISECONDS.toNanos(10), ConsumeResult.FAILURE);
+        assertEquals(2, flowController.getLimit());
+    }
+
+    @Test
+    void slowSuccessCountsLikeAFailure() {
+        FlowController flowController = new FlowController(0, 10, true, 2, Duration.ofMillis(100), 0.5, nanoTime::get);
+        advance(1000);
+        flowController.onResult(TimeUnit.MILLISECONDS.toNanos(50), ConsumeResult.SUCCESS);
+        assertEquals(10, flowController.getLimit());
+
+        flowController.onResult(TimeUnit.MILLISECONDS.toNanos(200), ConsumeResult.SUCCESS);
+        assertEquals(5, flowController.getLimit());
+    }
+
+    @Test
+    void successesGrowTheLimitByOnePerLimitWhileItIsUsed() {
+        FlowController flowController = new FlowController(0, 10, true, 2, null, 0.5, nanoTime::get);
+        for (int i = 0; i < 2; i++) {
+            advance(1000);
+            flowController.onResult(TimeUnit.MILLISECONDS.toNanos(10), ConsumeResult.FAILURE);
+        }
+        assertEquals(2, flowController.getLimit());
+
+        // unused limit does not grow
+        for (int i = 0; i < 10; i++) {
+            flowController.onResult(TimeUnit.MILLISECONDS.toNanos(10), ConsumeResult.SUCCESS);
+        }
+        assertEquals(2, flowController.getLimit());
+
+        assertTrue(flowController.tryAcquire());
+        for (int i = 0; i < 3; i++) {
+            flowController.onResult(TimeUnit.MILLISECONDS.toNanos(10), ConsumeResult.SUCCESS);
+        }
+        assertEquals(3, flowController.getLimit());
+        for (int i = 0; i < 50; i++) {
+            flowController.onResult(TimeUnit.MILLISECONDS.toNanos(10), ConsumeResult.SUCCESS);
+        }
+        // a single message in flight no longer uses half of the limit
+        assertEquals(3, flowController.getLimit());
+    }
+
+    private void advance(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xbd.rocketmq.client.support;
+
+import com.xbd.rocketmq.client.annotation.ConsumeMode;
+import com.xbd.rocketmq.client.annotation.DeduplicationKey;
+import com.xbd.rocketmq.client.core.RocketMQListener;
+import com.xbd.rocketmq.client.core.RocketMQTemplate;
+import com.xbd.rocketmq.client.embedded.EmbeddedBroker;
+import com.xbd.rocketmq.client.embedded.EmbeddedClientServiceProvider;
+import org.apache.rocketmq.client.apis.consumer.ConsumeResult;
+import org.apache.rocketmq.client.apis.consumer.FilterExpressionType;
+import org.apache.rocketmq.client.apis.message.MessageView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageDeduplicatorTest {
+
+    private static final String TOPIC = "orders";
+
+    private static final String CONSUMER_GROUP = "order-consumer";
+
+    private EmbeddedBroker broker;
+
+    private RocketMQClientRegistry clientRegistry;
+
+    private RocketMQTemplate template;
+
+    private DefaultRocketMQListenerContainer container;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new EmbeddedBroker();
+        broker.setRedeliveryDelay(Duration.ofMillis(100));
+        clientRegistry = new RocketMQClientRegistry(new EmbeddedClientServiceProvider(broker), 0);
+        template = new RocketMQTemplate();
+        template.setProducer(clientRegistry.getProvider().newProducerBuilder().build());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (container != null) {
+            container.stop();
+        }
+        template.destroy();
+        broker.close();
+    }
+
+    @Test
+    void duplicatesAreAckedWithoutInvokingListener() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        MessageDeduplicator deduplicator = newDeduplicator(Duration.ofMinutes(1), null);
+        container = newContainer(deduplicator, messageView -> {
+            received.add(body(messageView));
+            return ConsumeResult.SUCCESS;
+        });
+        container.start();
+
+        template.sendNormal(TOPIC, "first", "*", "order-1");
+        assertEquals("first", received.poll(5, TimeUnit.SECONDS));
+        awaitTrue(() -> container.getConsumedCount() == 1);
+        template.sendNormal(TOPIC, "duplicate", "*", "order-1");
+        template.sendNormal(TOPIC, "second", "*", "order-2");
+        assertEquals("second", received.poll(5, TimeUnit.SECONDS));
+
+        awaitTrue(() -> container.getConsumedCount() == 2);
+        assertNull(received.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, deduplicator.getDuplicateCount());
+        assertTrue(broker.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void onlySuccessfulConsumptionIsRecorded() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        MessageDeduplicator deduplicator = newDeduplicator(Duration.ofMinutes(1), null);
+        container = newContainer(deduplicator, messageView ->
+            attempts.incrementAndGet() == 1 ? ConsumeResult.FAILURE : ConsumeResult.SUCCESS);
+        container.start();
+
+        template.sendNormal(TOPIC, "order", "*", "order-1");
+        awaitTrue(() -> container.getConsumedCount() == 1);
+        assertEquals(2, attempts.get());
+        assertEquals(0, deduplicator.getDuplicateCount());
+
+        template.sendNormal(TOPIC, "order", "*", "order-1");
+        awaitTrue(() -> deduplicator.getDuplicateCount() == 1);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void expiredKeysAreNoLongerDuplicates() throws Exception {
+        MessageDeduplicator deduplicator = newDeduplicator(Duration.ofMillis(50), null);
+        deduplicator.record("order-1");
+        assertTrue(deduplicator.isDuplicate("order-1"));
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(deduplicator.isDuplicate("order-1"));
+        assertEquals(0, deduplicator.size());
+    }
+
+    @Test
+    void leastRecentlyUsedKeyIsEvictedOverCapacity() {
+        MessageDeduplicator deduplicator = new MessageDeduplicator(CONSUMER_GROUP, DeduplicationKey.KEYS, 2,
+            Duration.ofMinutes(1), 1, null);
+        deduplicator.record("order-1");
+        deduplicator.record("order-2");
+        assertTrue(deduplicator.isDuplicate("order-1"));
+        deduplicator.record("order-3");
+
+        assertEquals(2, deduplicator.size());
+        assertTrue(deduplicator.isDuplicate("order-1"));
+        assertFalse(deduplicator.isDuplicate("order-2"));
+        assertTrue(deduplicator.isDuplicate("order-3"));
+    }
+
+    @Test
+    void storeFailuresAreTolerated() {
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicInteger records = new AtomicInteger();
+        MessageDeduplicator deduplicator = newDeduplicator(Duration.ofMinutes(1), new DeduplicationStore() {
+            @Override
+            public boolean contains(String consumerGroup, String key) {
+                lookups.incrementAndGet();
+                throw new IllegalStateException("store unavailable");
+            }
+
+            @Override
+            public void record(String consumerGroup, String key, Duration ttl) {
+                records.incrementAndGet();
+                throw new IllegalStateException("store unavailable");
+            }
+        });
+
+        assertFalse(deduplicator.isDuplicate("order-1"));
+        deduplicator.record("order-1");
+        assertTrue(deduplicator.isDuplicate("order-1"));
+        assertEquals(1, lookups.get());
+        assertEquals(1, records.get());
+        assertEquals(1, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    void storeHitsAreCachedLocally() {
+        AtomicInteger lookups = new AtomicInteger();
+        MessageDeduplicator deduplicator = newDeduplicator(Duration.ofMinutes(1), new DeduplicationStore() {
+            @Override
+            public boolean contains(String consumerGroup, String key) {
+                lookups.incrementAndGet();
+                return CONSUMER_GROUP.equals(consumerGroup) && "order-1".equals(key);
+            }
+
+            @Override
+            public void record(String consumerGroup, String key, Duration ttl) {
+            }
+        });
+
+        assertTrue(deduplicator.isDuplicate("order-1"));
+        assertTrue(deduplicator.isDuplicate("order-1"));
+        assertFalse(deduplicator.isDuplicate("order-2"));
+        assertEquals(2, lookups.get());
+    }
+
+    private static MessageDeduplicator newDeduplicator(Duration ttl, DeduplicationStore store) {
+        return new MessageDeduplicator(CONSUMER_GROUP, DeduplicationKey.KEYS, 1024, ttl, 4, store);
+    }
+
+    private DefaultRocketMQListenerContainer newContainer(MessageDeduplicator deduplicator, RocketMQListener listener) throws Exception {
+        DefaultRocketMQListenerContainer container = new DefaultRocketMQListenerContainer();
+        container.setClientRegistry(clientRegistry);
+        container.setEndPoints("127.0.0.1:8081");
+        container.setAccessKey("ak");
+        container.setSecretKey("sk");
+        container.setRequestTimeout(3);
+        container.setConsumerGroup(CONSUMER_GROUP);
+        container.setTopic(TOPIC);
+        container.setTag("*");
+        container.setSelectorType(FilterExpressionType.TAG);
+        container.setConsumeMode(ConsumeMode.PUSH);
+        container.setMaxInFlight(8);
+        container.setConsumptionThreadCount(4);
+        container.setAwaitDuration(Duration.ofMillis(200));
+        container.setShutdownTimeout(Duration.ofSeconds(5));
+        container.setDeduplicator(deduplicator);
+        container.setRocketMQListener(listener);
+        container.afterPropertiesSet();
+        return container;
+    }
+
+    private static String body(MessageView messageView) {
+        return StandardCharsets.UTF_8.decode(messageView.getBody().duplicate()).toString();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+}